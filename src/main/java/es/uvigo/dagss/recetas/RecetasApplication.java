@@ -2,8 +2,10 @@ package es.uvigo.dagss.recetas;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RecetasApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,34 @@
+package es.uvigo.dagss.recetas.controladores;
+
+import es.uvigo.dagss.recetas.servicios.dto.EstadisticasCache;
+import es.uvigo.dagss.recetas.servicios.dto.EstadisticasRegion;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheCatalogo;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheReferencias;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/cache")
+public class AdminCacheController {
+
+    private final CacheReferencias cacheReferencias;
+    private final CacheCatalogo cacheCatalogo;
+
+    public AdminCacheController(CacheReferencias cacheReferencias, CacheCatalogo cacheCatalogo) {
+        this.cacheReferencias = cacheReferencias;
+        this.cacheCatalogo = cacheCatalogo;
+    }
+
+    /** Aciertos, fallos, expulsiones e invalidaciones de la caché de centros, médicos y medicamentos */
+    @GetMapping("/referencias")
+    public EstadisticasCache referencias() {
+        return cacheReferencias.estadisticas();
+    }
+
+    /** Aciertos, fallos y escrituras de cada región de la caché de segundo nivel de Hibernate */
+    @GetMapping("/hibernate")
+    public List<EstadisticasRegion> hibernate() {
+        return cacheCatalogo.regiones();
+    }
+}
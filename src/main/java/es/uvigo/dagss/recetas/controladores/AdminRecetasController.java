@@ -0,0 +1,33 @@
+package es.uvigo.dagss.recetas.controladores;
+
+import es.uvigo.dagss.recetas.servicios.CaducidadRecetasService;
+import es.uvigo.dagss.recetas.servicios.dto.ProgresoCaducidad;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/recetas")
+public class AdminRecetasController {
+
+    private final CaducidadRecetasService caducidadRecetasService;
+
+    public AdminRecetasController(CaducidadRecetasService caducidadRecetasService) {
+        this.caducidadRecetasService = caducidadRecetasService;
+    }
+
+    /** Progreso de la caducidad en curso o de la última */
+    @GetMapping("/caducidad")
+    public ProgresoCaducidad progresoCaducidad() {
+        return caducidadRecetasService.progreso();
+    }
+
+    /**
+     * Lanza la caducidad sin esperar a la tarea diaria y responde sin esperar a que acabe, con el
+     * progreso actual (se sigue con el GET); 409 si ya está en curso
+     */
+    @PostMapping("/caducidad")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ProgresoCaducidad caducar() {
+        return caducidadRecetasService.lanzarCaducidad();
+    }
+}
@@ -1,18 +1,31 @@
 package es.uvigo.dagss.recetas.controladores;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import es.uvigo.dagss.recetas.entidades.Administrador;
 import es.uvigo.dagss.recetas.entidades.Farmacia;
 import es.uvigo.dagss.recetas.entidades.Medico;
 import es.uvigo.dagss.recetas.entidades.Paciente;
 import es.uvigo.dagss.recetas.servicios.AdministradorService;
 import es.uvigo.dagss.recetas.servicios.FarmaciaService;
+import es.uvigo.dagss.recetas.servicios.ImportacionPacientesService;
 import es.uvigo.dagss.recetas.servicios.MedicoService;
 import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.dto.AdministradorResumen;
+import es.uvigo.dagss.recetas.servicios.dto.MedicoResumen;
+import es.uvigo.dagss.recetas.servicios.dto.PacienteResumen;
+import es.uvigo.dagss.recetas.servicios.dto.FarmaciaResumen;
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoImportacion;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -22,42 +35,60 @@ public class AdminUsuariosController {
     private final MedicoService medicoService;
     private final PacienteService pacienteService;
     private final FarmaciaService farmaciaService;
+    private final ImportacionPacientesService importacionPacientesService;
+    private final ObjectMapper objectMapper;
 
     public AdminUsuariosController(AdministradorService administradorService,
                                    MedicoService medicoService,
                                    PacienteService pacienteService,
-                                   FarmaciaService farmaciaService) {
+                                   FarmaciaService farmaciaService,
+                                   ImportacionPacientesService importacionPacientesService,
+                                   ObjectMapper objectMapper) {
         this.administradorService = administradorService;
         this.medicoService = medicoService;
         this.pacienteService = pacienteService;
         this.farmaciaService = farmaciaService;
+        this.importacionPacientesService = importacionPacientesService;
+        this.objectMapper = objectMapper;
     }
 
+    /*
+     * Listados: paginados por clave (?cursor=&tamano=, el cursor siguiente viene en la respuesta).
+     * Con Accept: application/x-ndjson se devuelve el listado completo, un elemento por línea,
+     * leído de la BD en streaming.
+     */
+
 
     @GetMapping("/administradores")
-    public List<Administrador> listarAdministradoresActivos() {
-        return administradorService.listarActivos();
+    public Pagina<AdministradorResumen> listarAdministradoresActivos(@RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer tamano) {
+        return administradorService.paginarActivos(cursor, tamano);
+    }
+
+    @GetMapping(value = "/administradores", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarAdministradoresActivos() {
+        return ndjson(administradorService::recorrerActivos);
     }
 
     @PostMapping("/administradores")
-    public ResponseEntity<Administrador> crearAdministrador(@RequestBody Administrador a) {
+    public ResponseEntity<AdministradorResumen> crearAdministrador(@RequestBody Administrador a) {
         Administrador creado = administradorService.crear(
                 a.getLogin(),
                 a.getPassword(),
                 a.getNombre(),
                 a.getEmail()
         );
-        return ResponseEntity.status(HttpStatus.CREATED).body(creado);
+        return ResponseEntity.status(HttpStatus.CREATED).body(AdministradorResumen.de(creado));
     }
 
     @PutMapping("/administradores/{id}")
-    public Administrador actualizarAdministrador(@PathVariable Long id, @RequestBody Administrador cambios) {
-        return administradorService.actualizar(
+    public AdministradorResumen actualizarAdministrador(@PathVariable Long id, @RequestBody Administrador cambios) {
+        return AdministradorResumen.de(administradorService.actualizar(
                 id,
                 cambios.getNombre(),
                 cambios.getEmail(),
                 cambios.getActivo()
-        );
+        ));
     }
 
     @DeleteMapping("/administradores/{id}")
@@ -68,24 +99,31 @@ public class AdminUsuariosController {
 
 
     @GetMapping("/medicos")
-    public List<Medico> listarMedicosActivos(@RequestParam(required = false) String nombre,
-                                             @RequestParam(required = false) String localidad,
-                                             @RequestParam(required = false) Long centroId) {
+    public Pagina<MedicoResumen> listarMedicosActivos(@RequestParam(required = false) String nombre,
+                                                      @RequestParam(required = false) String localidad,
+                                                      @RequestParam(required = false) Long centroId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer tamano) {
 
         if ((nombre == null || nombre.isBlank())
                 && (localidad == null || localidad.isBlank())
                 && centroId == null) {
-            return medicoService.listarActivos();
+            return medicoService.paginarActivos(cursor, tamano);
         }
 
         String n = (nombre == null || nombre.isBlank()) ? null : nombre;
         String l = (localidad == null || localidad.isBlank()) ? null : localidad;
 
-        return medicoService.buscarActivos(n, l, centroId);
+        return Pagina.unica(medicoService.buscarActivos(n, l, centroId));
+    }
+
+    @GetMapping(value = "/medicos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarMedicosActivos() {
+        return ndjson(medicoService::recorrerActivos);
     }
 
     @PostMapping("/medicos")
-    public ResponseEntity<Medico> crearMedico(@RequestBody Medico m) {
+    public ResponseEntity<MedicoResumen> crearMedico(@RequestBody Medico m) {
         Long csId = (m.getCentroSalud() != null) ? m.getCentroSalud().getId() : null;
 
         Medico creado = medicoService.crear(
@@ -99,14 +137,14 @@ public class AdminUsuariosController {
                 csId
         );
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(creado);
+        return ResponseEntity.status(HttpStatus.CREATED).body(MedicoResumen.de(creado));
     }
 
     @PutMapping("/medicos/{id}")
-    public Medico actualizarMedico(@PathVariable Long id, @RequestBody Medico cambios) {
+    public MedicoResumen actualizarMedico(@PathVariable Long id, @RequestBody Medico cambios) {
         Long csId = (cambios.getCentroSalud() != null) ? cambios.getCentroSalud().getId() : null;
 
-        return medicoService.actualizarPorAdmin(
+        return MedicoResumen.de(medicoService.actualizarPorAdmin(
                 id,
                 cambios.getNombre(),
                 cambios.getApellidos(),
@@ -116,7 +154,7 @@ public class AdminUsuariosController {
                 cambios.getEmail(),
                 csId,
                 cambios.getActivo()
-        );
+        ));
     }
 
     @DeleteMapping("/medicos/{id}")
@@ -128,26 +166,33 @@ public class AdminUsuariosController {
     // ---- Pacientes ----
 
     @GetMapping("/pacientes")
-    public List<Paciente> listarPacientesActivos(@RequestParam(required = false) String nombre,
-                                                 @RequestParam(required = false) String localidad,
-                                                 @RequestParam(required = false) Long centroId,
-                                                 @RequestParam(required = false) Long medicoId) {
+    public Pagina<PacienteResumen> listarPacientesActivos(@RequestParam(required = false) String nombre,
+                                                          @RequestParam(required = false) String localidad,
+                                                          @RequestParam(required = false) Long centroId,
+                                                          @RequestParam(required = false) Long medicoId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer tamano) {
 
         if ((nombre == null || nombre.isBlank())
                 && (localidad == null || localidad.isBlank())
                 && centroId == null
                 && medicoId == null) {
-            return pacienteService.listarActivos();
+            return pacienteService.paginarActivos(cursor, tamano);
         }
 
         String n = (nombre == null || nombre.isBlank()) ? null : nombre;
         String l = (localidad == null || localidad.isBlank()) ? null : localidad;
 
-        return pacienteService.buscarActivos(n, l, centroId, medicoId);
+        return Pagina.unica(pacienteService.buscarActivos(n, l, centroId, medicoId));
+    }
+
+    @GetMapping(value = "/pacientes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPacientesActivos() {
+        return ndjson(pacienteService::recorrerActivos);
     }
 
     @PostMapping("/pacientes")
-    public ResponseEntity<Paciente> crearPaciente(@RequestBody Paciente p) {
+    public ResponseEntity<PacienteResumen> crearPaciente(@RequestBody Paciente p) {
         Long csId = (p.getCentroSalud() != null) ? p.getCentroSalud().getId() : null;
         Long medId = (p.getMedicoAsignado() != null) ? p.getMedicoAsignado().getId() : null;
 
@@ -169,15 +214,21 @@ public class AdminUsuariosController {
                 medId
         );
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(creado);
+        return ResponseEntity.status(HttpStatus.CREATED).body(PacienteResumen.de(creado));
+    }
+
+    /** Alta masiva: un paciente por línea (NDJSON), devuelve los errores por línea */
+    @PostMapping(value = "/pacientes/importacion", consumes = "application/x-ndjson")
+    public ResultadoImportacion importarPacientes(Reader ndjson) {
+        return importacionPacientesService.importar(ndjson);
     }
 
     @PutMapping("/pacientes/{id}")
-    public Paciente actualizarPaciente(@PathVariable Long id, @RequestBody Paciente cambios) {
+    public PacienteResumen actualizarPaciente(@PathVariable Long id, @RequestBody Paciente cambios) {
         Long csId = (cambios.getCentroSalud() != null) ? cambios.getCentroSalud().getId() : null;
         Long medId = (cambios.getMedicoAsignado() != null) ? cambios.getMedicoAsignado().getId() : null;
 
-        return pacienteService.actualizarPorAdmin(
+        return PacienteResumen.de(pacienteService.actualizarPorAdmin(
                 id,
                 cambios.getNombre(),
                 cambios.getApellidos(),
@@ -194,7 +245,7 @@ public class AdminUsuariosController {
                 csId,
                 medId,
                 cambios.getActivo()
-        );
+        ));
     }
 
     @DeleteMapping("/pacientes/{id}")
@@ -205,14 +256,21 @@ public class AdminUsuariosController {
 
 
     @GetMapping("/farmacias")
-    public List<Farmacia> listarFarmaciasActivas(@RequestParam(required = false) String texto) {
+    public Pagina<FarmaciaResumen> listarFarmaciasActivas(@RequestParam(required = false) String texto,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer tamano) {
         return (texto == null || texto.isBlank())
-                ? farmaciaService.listarActivas()
-                : farmaciaService.buscarActivas(texto);
+                ? farmaciaService.paginarActivas(cursor, tamano)
+                : Pagina.unica(farmaciaService.buscarActivas(texto));
+    }
+
+    @GetMapping(value = "/farmacias", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarFarmaciasActivas() {
+        return ndjson(farmaciaService::recorrerActivas);
     }
 
     @PostMapping("/farmacias")
-    public ResponseEntity<Farmacia> crearFarmacia(@RequestBody Farmacia f) {
+    public ResponseEntity<FarmaciaResumen> crearFarmacia(@RequestBody Farmacia f) {
         Farmacia creada = farmaciaService.crear(
                 f.getLogin(),
                 f.getNombreEstablecimiento(),
@@ -228,12 +286,12 @@ public class AdminUsuariosController {
                 f.getEmail()
         );
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(creada);
+        return ResponseEntity.status(HttpStatus.CREATED).body(FarmaciaResumen.de(creada));
     }
 
     @PutMapping("/farmacias/{id}")
-    public Farmacia actualizarFarmacia(@PathVariable Long id, @RequestBody Farmacia cambios) {
-        return farmaciaService.actualizarPorAdmin(
+    public FarmaciaResumen actualizarFarmacia(@PathVariable Long id, @RequestBody Farmacia cambios) {
+        return FarmaciaResumen.de(farmaciaService.actualizarPorAdmin(
                 id,
                 cambios.getNombreEstablecimiento(),
                 cambios.getNombreFarmaceutico(),
@@ -247,7 +305,7 @@ public class AdminUsuariosController {
                 cambios.getTelefono(),
                 cambios.getEmail(),
                 cambios.getActivo()
-        );
+        ));
     }
 
     @DeleteMapping("/farmacias/{id}")
@@ -255,4 +313,16 @@ public class AdminUsuariosController {
         farmaciaService.baja(id);
         return ResponseEntity.noContent().build();
     }
+
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<T>> recorrido) {
+        StreamingResponseBody cuerpo = out -> recorrido.accept(elemento -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(elemento));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(cuerpo);
+    }
 }
@@ -0,0 +1,23 @@
+package es.uvigo.dagss.recetas.controladores;
+
+import es.uvigo.dagss.recetas.servicios.CentroSaludService;
+import es.uvigo.dagss.recetas.servicios.dto.CentroSaludResumen;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/centros")
+public class CentroSaludController {
+
+    private final CentroSaludService centroSaludService;
+
+    public CentroSaludController(CentroSaludService centroSaludService) {
+        this.centroSaludService = centroSaludService;
+    }
+
+    @GetMapping
+    public List<CentroSaludResumen> listarCentrosActivos(@RequestParam(required = false) String texto) {
+        return centroSaludService.buscarResumenesActivos(texto);
+    }
+}
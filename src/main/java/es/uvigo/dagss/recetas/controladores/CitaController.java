@@ -0,0 +1,29 @@
+package es.uvigo.dagss.recetas.controladores;
+
+import es.uvigo.dagss.recetas.servicios.CitaService;
+import es.uvigo.dagss.recetas.servicios.dto.Hueco;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/citas")
+public class CitaController {
+
+    private final CitaService citaService;
+
+    public CitaController(CitaService citaService) {
+        this.citaService = citaService;
+    }
+
+    /** HU-P3: primeros huecos libres del médico entre dos días */
+    @GetMapping("/huecos")
+    public List<Hueco> huecosLibres(@RequestParam Long medicoId,
+                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                    @RequestParam(defaultValue = "10") int limite) {
+        return citaService.primerosHuecosLibres(medicoId, desde, hasta, limite);
+    }
+}
@@ -0,0 +1,24 @@
+package es.uvigo.dagss.recetas.controladores;
+
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.dto.SugerenciaMedicamento;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/medicamentos")
+public class MedicamentoController {
+
+    private final MedicamentoService medicamentoService;
+
+    public MedicamentoController(MedicamentoService medicamentoService) {
+        this.medicamentoService = medicamentoService;
+    }
+
+    @GetMapping("/sugerencias")
+    public List<SugerenciaMedicamento> sugerencias(@RequestParam String prefijo,
+                                                   @RequestParam(defaultValue = "10") int limite) {
+        return medicamentoService.sugerir(prefijo, limite);
+    }
+}
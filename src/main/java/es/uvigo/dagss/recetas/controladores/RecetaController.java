@@ -0,0 +1,32 @@
+package es.uvigo.dagss.recetas.controladores;
+
+import es.uvigo.dagss.recetas.entidades.RecetaDispensable;
+import es.uvigo.dagss.recetas.servicios.RecetaService;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoDispensacion;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/farmacias/{farmaciaId}")
+public class RecetaController {
+
+    private final RecetaService recetaService;
+
+    public RecetaController(RecetaService recetaService) {
+        this.recetaService = recetaService;
+    }
+
+    /** HU-F2: recetas en vigor de la tarjeta leída en el mostrador */
+    @GetMapping("/recetas")
+    public List<RecetaDispensable> recetasEnVigor(@PathVariable Long farmaciaId, @RequestParam String tarjeta) {
+        return recetaService.recetasDispensables(tarjeta, LocalDate.now());
+    }
+
+    /** HU-F3: servir las recetas que se lleva el paciente, con el resultado de cada una */
+    @PostMapping("/dispensaciones")
+    public List<ResultadoDispensacion> servir(@PathVariable Long farmaciaId, @RequestBody List<Long> recetaIds) {
+        return recetaService.servirRecetas(recetaIds, farmaciaId, LocalDate.now());
+    }
+}
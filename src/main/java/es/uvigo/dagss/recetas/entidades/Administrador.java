@@ -1,10 +1,15 @@
 package es.uvigo.dagss.recetas.entidades;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 @Entity
+@Cacheable(false)
 @DiscriminatorValue(value = "ADMINISTRADOR")
+@Table(indexes = @Index(name = "IDX_ADMINISTRADOR_LISTADO", columnList = "activo, login, id"))
 public class Administrador extends Usuario {
 
     private String nombre;
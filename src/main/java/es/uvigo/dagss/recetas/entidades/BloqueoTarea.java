@@ -0,0 +1,42 @@
+package es.uvigo.dagss.recetas.entidades;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Bloqueo de una tarea programada entre nodos: la tiene {@code propietario} hasta {@code hasta}.
+ * Si el nodo cae sin liberarlo, otro puede tomarlo cuando vence.
+ */
+@Entity
+public class BloqueoTarea implements Serializable {
+
+    @Id
+    @Column(length = 100)
+    private String nombre;
+
+    private String propietario;
+
+    private LocalDateTime hasta;
+
+    public BloqueoTarea() {
+    }
+
+    public BloqueoTarea(String nombre, String propietario, LocalDateTime hasta) {
+        this.nombre = nombre;
+        this.propietario = propietario;
+        this.hasta = hasta;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getPropietario() {
+        return propietario;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+}
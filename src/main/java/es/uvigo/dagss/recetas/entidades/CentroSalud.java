@@ -1,12 +1,17 @@
 package es.uvigo.dagss.recetas.entidades;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.centro-salud")
+@Table(indexes = @Index(name = "IDX_CENTRO_LISTADO", columnList = "activo, nombre"))
 public class CentroSalud implements Serializable {
 
     @Id
@@ -22,9 +27,11 @@ public class CentroSalud implements Serializable {
     private String email;
     private Boolean activo = true;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "centroSalud", cascade = CascadeType.ALL)
     private List<Medico> medicos = new ArrayList<>();
 
+    @JsonIgnore
     @OneToMany(mappedBy = "centroSalud", cascade = CascadeType.ALL)
     private List<Paciente> pacientes = new ArrayList<>();
 
@@ -7,17 +7,25 @@ import java.time.LocalTime;
 import java.util.Objects;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "UK_CITA_HUECO",
+        columnNames = {"medico_id", "fecha", "horaInicio", "ocupaHueco"}),
+        indexes = {
+            @Index(name = "IDX_CITA_ESTADO_FECHA", columnList = "estado, fecha"),
+            @Index(name = "IDX_CITA_MEDICO_FECHA", columnList = "medico_id, fecha, estado, horaInicio"),
+            @Index(name = "IDX_CITA_PACIENTE_ESTADO", columnList = "paciente_id, estado, fecha, horaInicio"),
+            @Index(name = "IDX_CITA_FECHA", columnList = "fecha, horaInicio")
+        })
 public class Cita implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "paciente_id", nullable = false)
     private Paciente paciente;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medico_id", nullable = false)
     private Medico medico;
 
@@ -30,6 +38,15 @@ public class Cita implements Serializable {
     @Enumerated(EnumType.STRING)
     private EstadoCita estado = EstadoCita.PLANIFICADA;
 
+    /**
+     * TRUE mientras la cita está PLANIFICADA y null en otro caso: con UK_CITA_HUECO la BD impide
+     * dos citas planificadas en el mismo hueco, y las anuladas (null) no cuentan para la unicidad.
+     */
+    private Boolean ocupaHueco = Boolean.TRUE;
+
+    @Version
+    private Long version;
+
     public Cita() {
     }
 
@@ -96,18 +113,27 @@ public class Cita implements Serializable {
 
     public void setEstado(EstadoCita estado) {
         this.estado = estado;
+        this.ocupaHueco = (estado == EstadoCita.PLANIFICADA) ? Boolean.TRUE : null;
+    }
+
+    public Boolean getOcupaHueco() {
+        return ocupaHueco;
+    }
+
+    public Long getVersion() {
+        return version;
     }
 
     public void marcarComoAnulada() {
-        this.estado = EstadoCita.ANULADA;
+        setEstado(EstadoCita.ANULADA);
     }
 
     public void marcarComoCompletada() {
-        this.estado = EstadoCita.COMPLETADA;
+        setEstado(EstadoCita.COMPLETADA);
     }
 
     public void marcarComoAusente() {
-        this.estado = EstadoCita.AUSENTE;
+        setEstado(EstadoCita.AUSENTE);
     }
 }
 
@@ -0,0 +1,80 @@
+package es.uvigo.dagss.recetas.entidades;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Índice de credenciales: una fila por usuario, con el login como clave primaria.
+ * Evita la UNION sobre las tablas de cada subclase de Usuario al hacer login.
+ */
+@Entity
+public class Credencial implements Serializable {
+
+    @Id
+    private String login;
+
+    @Column(nullable = false)
+    private Long usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "TIPO_USUARIO", length = 20, nullable = false)
+    private TipoUsuario tipo;
+
+    private String password;
+    private Boolean activo = true;
+
+    public Credencial() {
+    }
+
+    public Credencial(Usuario u) {
+        this.login = u.getLogin();
+        actualizarDesde(u);
+    }
+
+    public void actualizarDesde(Usuario u) {
+        this.usuarioId = u.getId();
+        this.tipo = u.getTipo();
+        this.password = u.getPassword();
+        this.activo = u.getActivo();
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public void setLogin(String login) {
+        this.login = login;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public TipoUsuario getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoUsuario tipo) {
+        this.tipo = tipo;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Boolean getActivo() {
+        return activo;
+    }
+
+    public void setActivo(Boolean activo) {
+        this.activo = activo;
+    }
+}
@@ -3,6 +3,8 @@ package es.uvigo.dagss.recetas.entidades;
 public enum EstadoReceta {
     PLANIFICADA,
     SERVIDA,
-    ANULADA
+    ANULADA,
+    /** Pasó su fechaValidezFinal sin servirse (ver CaducidadRecetasService) */
+    CADUCADA
 }
 
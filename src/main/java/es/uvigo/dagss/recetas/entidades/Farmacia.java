@@ -6,6 +6,7 @@ import java.util.List;
 
 @Entity
 @DiscriminatorValue(value = "FARMACIA")
+@Table(indexes = @Index(name = "IDX_FARMACIA_LISTADO", columnList = "activo, nombreEstablecimiento, id"))
 public class Farmacia extends Usuario {
 
     private String nombreEstablecimiento;
@@ -0,0 +1,48 @@
+package es.uvigo.dagss.recetas.entidades;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * TableGenerator que reserva bloques de ids en una sola actualización de la fila
+ * del contador. Con pooled-lo la fila guarda el primer valor libre, igual que con
+ * allocationSize = 1, por lo que se puede activar sobre una tabla ya existente.
+ * La reserva se hace con SELECT ... FOR UPDATE + UPDATE, así que varios nodos
+ * contra la misma BD obtienen siempre bloques disjuntos.
+ */
+public class GeneradorIdPorBloques extends TableGenerator implements AnnotationBasedGenerator<IdPorBloques> {
+
+    public static final String TAMANO_BLOQUE = "recetas.ids.tamano-bloque";
+    public static final int TAMANO_BLOQUE_DEFECTO = 50;
+
+    private String tabla;
+
+    @Override
+    public void initialize(IdPorBloques anotacion, Member member, GeneratorCreationContext context) {
+        this.tabla = anotacion.tabla();
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        int bloque = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(TAMANO_BLOQUE, StandardConverters.INTEGER, TAMANO_BLOQUE_DEFECTO);
+
+        params.setProperty(TABLE_PARAM, tabla);
+        params.setProperty(SEGMENT_COLUMN_PARAM, "GEN_NAME");
+        params.setProperty(VALUE_COLUMN_PARAM, "GEN_VAL");
+        // mismo valor de segmento que el @TableGenerator de JPA: el nombre de la tabla de la entidad
+        params.setProperty(CONFIG_PREFER_SEGMENT_PER_ENTITY, "true");
+        params.setProperty(INCREMENT_PARAM, String.valueOf(bloque));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package es.uvigo.dagss.recetas.entidades;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * Id generado desde una tabla de contadores reservando bloques de valores
+ * (optimizador pooled-lo). El tamaño de bloque se configura con
+ * {@code spring.jpa.properties.recetas.ids.tamano-bloque}.
+ */
+@IdGeneratorType(GeneradorIdPorBloques.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface IdPorBloques {
+
+    /** Tabla de contadores (columnas GEN_NAME, GEN_VAL) */
+    String tabla();
+}
@@ -0,0 +1,53 @@
+package es.uvigo.dagss.recetas.entidades;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Cambio confirmado de un dato de referencia, para que los demás nodos lo saquen de su
+ * CacheReferencias. Se escribe en la transacción del cambio y se borra pasado un tiempo.
+ */
+@Entity
+@Table(indexes = @Index(name = "IDX_INVALIDACION_CREADA", columnList = "creada"))
+public class InvalidacionReferencia implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoReferencia tipo;
+
+    @Column(nullable = false)
+    private Long entidadId;
+
+    @Column(nullable = false)
+    private LocalDateTime creada;
+
+    public InvalidacionReferencia() {
+    }
+
+    public InvalidacionReferencia(TipoReferencia tipo, Long entidadId, LocalDateTime creada) {
+        this.tipo = tipo;
+        this.entidadId = entidadId;
+        this.creada = creada;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public TipoReferencia getTipo() {
+        return tipo;
+    }
+
+    public Long getEntidadId() {
+        return entidadId;
+    }
+
+    public LocalDateTime getCreada() {
+        return creada;
+    }
+}
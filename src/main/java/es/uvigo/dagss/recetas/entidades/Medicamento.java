@@ -1,6 +1,8 @@
 package es.uvigo.dagss.recetas.entidades;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -8,6 +10,8 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.medicamento")
+@Table(indexes = @Index(name = "IDX_MEDICAMENTO_LISTADO", columnList = "activo, nombreComercial"))
 public class Medicamento implements Serializable {
 
     @Id
@@ -1,11 +1,17 @@
 package es.uvigo.dagss.recetas.entidades;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable(false)
 @DiscriminatorValue(value = "MEDICO")
+@Table(indexes = {
+        @Index(name = "IDX_MEDICO_LISTADO", columnList = "activo, apellidos, nombre, id"),
+        @Index(name = "IDX_MEDICO_CENTRO", columnList = "centro_salud_id, activo, apellidos, nombre")
+})
 public class Medico extends Usuario {
 
     private String nombre;
@@ -20,13 +26,15 @@ public class Medico extends Usuario {
     private String telefono;
     private String email;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "centro_salud_id")
     private CentroSalud centroSalud;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "medico", cascade = CascadeType.ALL)
     private List<Cita> citas = new ArrayList<>();
 
+    @JsonIgnore
     @OneToMany(mappedBy = "medico", cascade = CascadeType.ALL)
     private List<Prescripcion> prescripciones = new ArrayList<>();
 
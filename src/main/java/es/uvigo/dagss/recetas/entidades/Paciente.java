@@ -1,12 +1,15 @@
 package es.uvigo.dagss.recetas.entidades;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 @Entity
+@Cacheable(false)
 @DiscriminatorValue(value = "PACIENTE")
+@Table(indexes = @Index(name = "IDX_PACIENTE_LISTADO", columnList = "activo, apellidos, nombre, id"))
 public class Paciente extends Usuario {
 
     private String nombre;
@@ -32,17 +35,19 @@ public class Paciente extends Usuario {
     @Temporal(TemporalType.DATE)
     private Date fechaNacimiento;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "centro_salud_id")
     private CentroSalud centroSalud;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medico_id")
     private Medico medicoAsignado;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "paciente", cascade = CascadeType.ALL)
     private List<Cita> citas = new ArrayList<>();
 
+    @JsonIgnore
     @OneToMany(mappedBy = "paciente", cascade = CascadeType.ALL)
     private List<Prescripcion> prescripciones = new ArrayList<>();
 
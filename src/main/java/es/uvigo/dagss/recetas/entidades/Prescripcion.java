@@ -8,21 +8,26 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "IDX_PRESCRIPCION_PACIENTE", columnList = "paciente_id, activa, fechaFin"),
+        @Index(name = "IDX_PRESCRIPCION_MEDICO", columnList = "medico_id, activa"),
+        @Index(name = "IDX_PRESCRIPCION_PLAN", columnList = "activa, fechaSiguienteReceta")
+})
 public class Prescripcion implements Serializable {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medicamento_id", nullable = false)
     private Medicamento medicamento;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "paciente_id", nullable = false)
     private Paciente paciente;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medico_id", nullable = false)
     private Medico medico;
 
@@ -37,6 +42,14 @@ public class Prescripcion implements Serializable {
     private LocalDate fechaFin;
     private Boolean activa = true;
 
+    /**
+     * Plan por ventana: número (desde 0) de la primera receta del plan que aún no se ha generado
+     * y la fecha desde la que se podrá servir. Los dos son null cuando el plan ya está generado entero.
+     */
+    private Integer siguienteReceta;
+    @Temporal(TemporalType.DATE)
+    private LocalDate fechaSiguienteReceta;
+
     @OneToMany(mappedBy = "prescripcion", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Receta> recetas = new ArrayList<>();
 
@@ -135,6 +148,22 @@ public class Prescripcion implements Serializable {
         this.activa = false;
     }
 
+    public Integer getSiguienteReceta() {
+        return siguienteReceta;
+    }
+
+    public void setSiguienteReceta(Integer siguienteReceta) {
+        this.siguienteReceta = siguienteReceta;
+    }
+
+    public LocalDate getFechaSiguienteReceta() {
+        return fechaSiguienteReceta;
+    }
+
+    public void setFechaSiguienteReceta(LocalDate fechaSiguienteReceta) {
+        this.fechaSiguienteReceta = fechaSiguienteReceta;
+    }
+
     public List<Receta> getRecetas() {
         return recetas;
     }
@@ -6,13 +6,17 @@ import java.time.LocalDate;
 import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "IDX_RECETA_ESTADO_VALIDEZ", columnList = "estado, fechaValidezFinal"),
+        @Index(name = "IDX_RECETA_PRESCRIPCION", columnList = "prescripcion_id, estado, fechaValidezFinal")
+})
 public class Receta implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @IdPorBloques(tabla = "RECETA_GEN")  // sin IDENTITY, para que el plan se inserte en lotes JDBC
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "prescripcion_id", nullable = false)
     private Prescripcion prescripcion;
 
@@ -25,10 +29,14 @@ public class Receta implements Serializable {
     @Enumerated(EnumType.STRING)
     private EstadoReceta estado = EstadoReceta.PLANIFICADA;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "farmacia_id")
     private Farmacia farmacia;
 
+    /** Dos farmacias que sirven a la vez la misma receta: solo confirma la primera */
+    @Version
+    private Long version;
+
     public Receta() {
     }
 
@@ -104,6 +112,10 @@ public class Receta implements Serializable {
         this.farmacia = farmacia;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public void marcarComoServida(Farmacia farmacia) {
         this.estado = EstadoReceta.SERVIDA;
         this.farmacia = farmacia;
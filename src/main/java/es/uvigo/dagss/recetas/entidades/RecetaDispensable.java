@@ -0,0 +1,115 @@
+package es.uvigo.dagss.recetas.entidades;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Modelo de lectura de la dispensación (HU-F2): una fila por receta PLANIFICADA de una
+ * prescripción activa, con los datos que necesita el mostrador de la farmacia ya copiados.
+ * La consulta por tarjeta sanitaria es un recorrido de IDX_DISPENSABLE_TARJETA sin joins.
+ * La mantiene DispensacionService en la misma transacción que cada cambio de estado.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "IDX_DISPENSABLE_TARJETA", columnList = "numeroTarjetaSanitaria, fechaValidezFinal, fechaValidezInicial"),
+        @Index(name = "IDX_DISPENSABLE_PRESCRIPCION", columnList = "prescripcionId"),
+        @Index(name = "IDX_DISPENSABLE_PACIENTE", columnList = "pacienteId"),
+        @Index(name = "IDX_DISPENSABLE_MEDICO", columnList = "medicoId"),
+        @Index(name = "IDX_DISPENSABLE_MEDICAMENTO", columnList = "medicamentoId")
+})
+public class RecetaDispensable implements Serializable {
+
+    @Id
+    private Long recetaId;
+
+    private Long prescripcionId;
+    private Long pacienteId;
+    private Long medicoId;
+    private Long medicamentoId;
+
+    private String numeroTarjetaSanitaria;
+
+    @Temporal(TemporalType.DATE)
+    private LocalDate fechaValidezInicial;
+    @Temporal(TemporalType.DATE)
+    private LocalDate fechaValidezFinal;
+    private Integer numeroUnidades;
+
+    private String nombreComercial;
+    private String principioActivo;
+    private Integer numeroDosis;
+    private Double dosisDiaria;
+    @Column(length = 1000)
+    private String indicaciones;
+
+    private String nombreMedico;
+    private String apellidosMedico;
+
+    public RecetaDispensable() {
+    }
+
+    public Long getRecetaId() {
+        return recetaId;
+    }
+
+    public Long getPrescripcionId() {
+        return prescripcionId;
+    }
+
+    public Long getPacienteId() {
+        return pacienteId;
+    }
+
+    public Long getMedicoId() {
+        return medicoId;
+    }
+
+    public Long getMedicamentoId() {
+        return medicamentoId;
+    }
+
+    public String getNumeroTarjetaSanitaria() {
+        return numeroTarjetaSanitaria;
+    }
+
+    public LocalDate getFechaValidezInicial() {
+        return fechaValidezInicial;
+    }
+
+    public LocalDate getFechaValidezFinal() {
+        return fechaValidezFinal;
+    }
+
+    public Integer getNumeroUnidades() {
+        return numeroUnidades;
+    }
+
+    public String getNombreComercial() {
+        return nombreComercial;
+    }
+
+    public String getPrincipioActivo() {
+        return principioActivo;
+    }
+
+    public Integer getNumeroDosis() {
+        return numeroDosis;
+    }
+
+    public Double getDosisDiaria() {
+        return dosisDiaria;
+    }
+
+    public String getIndicaciones() {
+        return indicaciones;
+    }
+
+    public String getNombreMedico() {
+        return nombreMedico;
+    }
+
+    public String getApellidosMedico() {
+        return apellidosMedico;
+    }
+}
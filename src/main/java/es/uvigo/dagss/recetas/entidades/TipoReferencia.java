@@ -0,0 +1,8 @@
+package es.uvigo.dagss.recetas.entidades;
+
+/** Datos de referencia que guarda CacheReferencias */
+public enum TipoReferencia {
+    CENTRO_SALUD,
+    MEDICO,
+    MEDICAMENTO
+}
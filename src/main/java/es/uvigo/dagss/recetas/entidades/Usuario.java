@@ -10,25 +10,25 @@ import jakarta.persistence.DiscriminatorType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Inheritance;
 import jakarta.persistence.InheritanceType;
-import jakarta.persistence.TableGenerator;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)  // Una tabla propia para cada subclase
 @DiscriminatorColumn(name = "TIPO_USUARIO",
                      discriminatorType = DiscriminatorType.STRING,
                      length = 20)
+// La región es de la jerarquía, pero solo se guardan las farmacias: el resto de subclases @Cacheable(false)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo.farmacia")
 public abstract class Usuario implements Serializable {
 
     @Id
-    @TableGenerator(name = "USUARIO_GEN", table = "USUARIO_GEN", pkColumnName = "GEN_NAME", valueColumnName = "GEN_VAL", allocationSize = 1)           
-    @GeneratedValue(strategy = GenerationType.TABLE, generator = "USUARIO_GEN")
+    @IdPorBloques(tabla = "USUARIO_GEN")  // reserva bloques de ids, ver GeneradorIdPorBloques
     private Long id;
 
     @Enumerated(EnumType.STRING)
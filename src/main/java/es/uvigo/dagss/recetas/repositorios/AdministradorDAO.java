@@ -1,9 +1,18 @@
 package es.uvigo.dagss.recetas.repositorios;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 import es.uvigo.dagss.recetas.entidades.Administrador;
+import es.uvigo.dagss.recetas.servicios.dto.AdministradorResumen;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 //* jspecificatioexecutor
 // findcell(Specification<cliente> pageable)
 // ver en ejemplo cliente controller ejemplo bucar todos */
@@ -12,4 +21,27 @@ public interface AdministradorDAO extends JpaRepository<Administrador, Long> {
     Optional<Administrador> findByLogin(String login);
 
     List<Administrador> findByActivoTrueOrderByLoginAsc();
+
+    /** Columnas de {@link AdministradorResumen}, sobre "from Administrador a" */
+    String RESUMEN = "new es.uvigo.dagss.recetas.servicios.dto.AdministradorResumen(a.id, a.login, a.nombre, a.email, a.activo) ";
+
+    /** Listado paginado: primera página */
+    @Query("select " + RESUMEN + " from Administrador a where a.activo = true order by a.login, a.id")
+    List<AdministradorResumen> findResumenesActivos(Limit limite);
+
+    /** Listado paginado: página siguiente a la clave (login, id) */
+    @Query("select " + RESUMEN + """
+           from Administrador a
+           where a.activo = true
+             and (a.login > :login or (a.login = :login and a.id > :id))
+           order by a.login, a.id
+           """)
+    List<AdministradorResumen> findResumenesActivosDespues(@Param("login") String login,
+                                                           @Param("id") Long id,
+                                                           Limit limite);
+
+    /** Listado completo en streaming (NDJSON): hay que consumirlo dentro de la transacción */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + RESUMEN + " from Administrador a where a.activo = true order by a.login, a.id")
+    Stream<AdministradorResumen> streamResumenesActivos();
 }
@@ -0,0 +1,32 @@
+package es.uvigo.dagss.recetas.repositorios;
+
+import es.uvigo.dagss.recetas.entidades.BloqueoTarea;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BloqueoTareaDAO extends JpaRepository<BloqueoTarea, String> {
+
+    /** 1 si el nodo se queda con el bloqueo: está libre, ha vencido o ya era suyo */
+    @Modifying
+    @Query("""
+           update BloqueoTarea b set b.propietario = :nodo, b.hasta = :hasta
+           where b.nombre = :nombre and (b.hasta < :ahora or b.propietario = :nodo)
+           """)
+    int adquirir(@Param("nombre") String nombre, @Param("nodo") String nodo,
+                 @Param("ahora") LocalDateTime ahora, @Param("hasta") LocalDateTime hasta);
+
+    /** Primera vez que se ejecuta la tarea; si dos nodos la crean a la vez, uno falla por la clave */
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into BloqueoTarea (nombre, propietario, hasta) values (:nombre, :nodo, :hasta)")
+    int crear(@Param("nombre") String nombre, @Param("nodo") String nodo, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("""
+           update BloqueoTarea b set b.hasta = :ahora
+           where b.nombre = :nombre and b.propietario = :nodo
+           """)
+    int liberar(@Param("nombre") String nombre, @Param("nodo") String nodo, @Param("ahora") LocalDateTime ahora);
+}
@@ -1,15 +1,28 @@
 package es.uvigo.dagss.recetas.repositorios;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.servicios.dto.CentroSaludReferencia;
+import es.uvigo.dagss.recetas.servicios.dto.CentroSaludResumen;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface CentroSaludDAO extends JpaRepository<CentroSalud, Long> {
 
+    /** Caché de consultas: se descarta sola con cualquier escritura en CentroSalud */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HINT_CACHE_REGION, value = "catalogo.listados")})
     List<CentroSalud> findByActivoTrueOrderByNombreAsc();
 
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HINT_CACHE_REGION, value = "catalogo.listados")})
     List<CentroSalud> findByActivoTrueAndProvinciaIgnoreCaseOrderByLocalidadAscNombreAsc(String provincia);
 
     @Query("""
@@ -24,4 +37,23 @@ public interface CentroSaludDAO extends JpaRepository<CentroSalud, Long> {
            order by c.nombre
            """)
     List<CentroSalud> buscarActivosPorNombreOLocalidadLike(@Param("texto") String texto);
+
+    /** Centros activos para listados y desplegables, sin cargar las entidades */
+    @Query("""
+           select new es.uvigo.dagss.recetas.servicios.dto.CentroSaludResumen(
+               c.id, c.nombre, c.localidad, c.provincia, c.telefono)
+           from CentroSalud c
+           where c.activo = true
+             and (
+                  :texto is null
+                  or lower(c.nombre) like lower(concat('%', :texto, '%'))
+                  or lower(c.localidad) like lower(concat('%', :texto, '%'))
+             )
+           order by c.nombre
+           """)
+    List<CentroSaludResumen> buscarResumenesActivos(@Param("texto") String texto);
+
+    /** Fallo de CacheReferencias */
+    @Query("select new es.uvigo.dagss.recetas.servicios.dto.CentroSaludReferencia(c.id, c.nombre) from CentroSalud c where c.id = :id")
+    Optional<CentroSaludReferencia> findReferencia(@Param("id") Long id);
 }
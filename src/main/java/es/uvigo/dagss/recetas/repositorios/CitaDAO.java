@@ -2,35 +2,48 @@ package es.uvigo.dagss.recetas.repositorios;
 
 import es.uvigo.dagss.recetas.entidades.Cita;
 import es.uvigo.dagss.recetas.entidades.EstadoCita;
+import es.uvigo.dagss.recetas.servicios.dto.CitaVencida;
+import es.uvigo.dagss.recetas.servicios.dto.Hueco;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface CitaDAO extends JpaRepository<Cita, Long> {
 
+    /** Listado del administrador: cada cita con su paciente y su médico */
     @Query("""
            select c
            from Cita c
+             join fetch c.paciente p
+             join fetch c.medico m
            where c.fecha = :fecha
-             and (:medicoId is null or c.medico.id = :medicoId)
-             and (:pacienteId is null or c.paciente.id = :pacienteId)
+             and (:medicoId is null or m.id = :medicoId)
+             and (:pacienteId is null or p.id = :pacienteId)
            order by c.horaInicio
            """)
     List<Cita> buscarPorFechaConFiltros(@Param("fecha") LocalDate fecha,
                                         @Param("medicoId") Long medicoId,
                                         @Param("pacienteId") Long pacienteId);
 
+    /** Agenda del médico: con el paciente de cada cita; el médico ya se conoce */
+    @EntityGraph(attributePaths = "paciente")
     List<Cita> findByMedicoIdAndFechaOrderByHoraInicio(Long medicoId, LocalDate fecha);
 
     List<Cita> findByMedicoIdAndFechaAndEstadoOrderByHoraInicio(Long medicoId, LocalDate fecha, EstadoCita estado);
 
+    /** Citas del paciente: con el médico de cada una */
     @Query("""
            select c
            from Cita c
+             join fetch c.medico m
            where c.paciente.id = :pacienteId
              and c.estado = es.uvigo.dagss.recetas.entidades.EstadoCita.PLANIFICADA
              and (c.fecha > :hoy or (c.fecha = :hoy and c.horaInicio >= :ahora))
@@ -41,4 +54,32 @@ public interface CitaDAO extends JpaRepository<Cita, Long> {
                                                  @Param("ahora") LocalTime ahora);
 
     Optional<Cita> findByMedicoIdAndFechaAndHoraInicioAndEstado(Long medicoId, LocalDate fecha, LocalTime horaInicio, EstadoCita estado);
+
+    /** Horas ocupadas de varios días en una sola consulta (búsqueda de huecos en un rango) */
+    @Query("""
+        select new es.uvigo.dagss.recetas.servicios.dto.Hueco(c.fecha, c.horaInicio) from Cita c
+        where c.medico.id = :medicoId and c.fecha between :desde and :hasta
+          and c.estado = es.uvigo.dagss.recetas.entidades.EstadoCita.PLANIFICADA
+        """)
+    List<Hueco> huecosOcupadosEntre(@Param("medicoId") Long medicoId,
+                                    @Param("desde") LocalDate desde,
+                                    @Param("hasta") LocalDate hasta);
+
+    /** Ausencias: citas PLANIFICADAS de días pasados; al marcarlas salen del conjunto */
+    @Query("""
+        select new es.uvigo.dagss.recetas.servicios.dto.CitaVencida(c.id, m.id, m.centroSalud.id)
+        from Cita c join c.medico m
+        where c.estado = es.uvigo.dagss.recetas.entidades.EstadoCita.PLANIFICADA
+          and c.fecha < :hoy
+        """)
+    List<CitaVencida> findVencidas(@Param("hoy") LocalDate hoy, Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        update Cita c
+        set c.estado = es.uvigo.dagss.recetas.entidades.EstadoCita.AUSENTE, c.ocupaHueco = null, c.version = c.version + 1
+        where c.id in :ids
+          and c.estado = es.uvigo.dagss.recetas.entidades.EstadoCita.PLANIFICADA
+        """)
+    int marcarAusentes(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,14 @@
+package es.uvigo.dagss.recetas.repositorios;
+
+import es.uvigo.dagss.recetas.entidades.Credencial;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CredencialDAO extends JpaRepository<Credencial, String> {
+
+    @Query("select c.login from Credencial c where c.login in :logins")
+    List<String> findLoginsExistentes(@Param("logins") Collection<String> logins);
+}
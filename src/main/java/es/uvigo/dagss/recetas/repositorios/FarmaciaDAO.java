@@ -1,10 +1,19 @@
 package es.uvigo.dagss.recetas.repositorios;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 import es.uvigo.dagss.recetas.entidades.Farmacia;
+import es.uvigo.dagss.recetas.servicios.dto.FarmaciaResumen;
+import jakarta.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface FarmaciaDAO extends JpaRepository<Farmacia, Long> {
@@ -13,10 +22,47 @@ public interface FarmaciaDAO extends JpaRepository<Farmacia, Long> {
 
     Optional<Farmacia> findByNumeroColegiadoFarmaceutico(String numeroColegiadoFarmaceutico);
 
+    /** Caché de consultas: se descarta sola con cualquier escritura en Farmacia */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HINT_CACHE_REGION, value = "catalogo.listados")})
     List<Farmacia> findByActivoTrueOrderByNombreEstablecimientoAsc();
 
-    @Query("""
-           select f
+    /** Columnas de {@link FarmaciaResumen}, sobre "from Farmacia f" */
+    String RESUMEN = """
+           new es.uvigo.dagss.recetas.servicios.dto.FarmaciaResumen(
+               f.id, f.login, f.nombreEstablecimiento, f.nombreFarmaceutico, f.apellidosFarmaceutico, f.nif,
+               f.numeroColegiadoFarmaceutico, f.localidad, f.provincia, f.telefono, f.email, f.activo)
+           """;
+
+    /** Listado paginado: primera página */
+    @Query("select " + RESUMEN + """
+           from Farmacia f
+           where f.activo = true
+           order by f.nombreEstablecimiento, f.id
+           """)
+    List<FarmaciaResumen> findResumenesActivas(Limit limite);
+
+    /** Listado paginado: página siguiente a la clave (nombreEstablecimiento, id), null primero */
+    @Query("select " + RESUMEN + """
+           from Farmacia f
+           where f.activo = true
+             and (
+                (:nombre is null and (f.nombreEstablecimiento is not null or f.id > :id))
+                or f.nombreEstablecimiento > :nombre
+                or (f.nombreEstablecimiento = :nombre and f.id > :id)
+             )
+           order by f.nombreEstablecimiento, f.id
+           """)
+    List<FarmaciaResumen> findResumenesActivasDespues(@Param("nombre") String nombreEstablecimiento,
+                                                      @Param("id") Long id,
+                                                      Limit limite);
+
+    /** Listado completo en streaming (NDJSON): hay que consumirlo dentro de la transacción */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + RESUMEN + " from Farmacia f where f.activo = true order by f.nombreEstablecimiento, f.id")
+    Stream<FarmaciaResumen> streamResumenesActivas();
+
+    @Query("select " + RESUMEN + """
            from Farmacia f
            where f.activo = true
              and (
@@ -26,5 +72,5 @@ public interface FarmaciaDAO extends JpaRepository<Farmacia, Long> {
              )
            order by f.nombreEstablecimiento
            """)
-    List<Farmacia> buscarActivasPorNombreEstablecimientoOLocalidadLike(@Param("texto") String texto);
+    List<FarmaciaResumen> buscarActivasPorNombreEstablecimientoOLocalidadLike(@Param("texto") String texto);
 }
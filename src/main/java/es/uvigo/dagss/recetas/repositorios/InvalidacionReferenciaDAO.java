@@ -0,0 +1,19 @@
+package es.uvigo.dagss.recetas.repositorios;
+
+import es.uvigo.dagss.recetas.entidades.InvalidacionReferencia;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface InvalidacionReferenciaDAO extends JpaRepository<InvalidacionReferencia, Long> {
+
+    /** Cambios de los últimos minutos; cada nodo recuerda los que ya ha aplicado */
+    List<InvalidacionReferencia> findByCreadaGreaterThanEqualOrderById(LocalDateTime desde);
+
+    @Modifying
+    @Query("delete from InvalidacionReferencia i where i.creada < :antes")
+    int borrarAnteriores(@Param("antes") LocalDateTime antes);
+}
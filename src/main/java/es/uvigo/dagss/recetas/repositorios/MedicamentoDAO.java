@@ -1,13 +1,23 @@
 package es.uvigo.dagss.recetas.repositorios;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.servicios.dto.MedicamentoReferencia;
+import jakarta.persistence.QueryHint;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface MedicamentoDAO extends JpaRepository<Medicamento, Long> {
 
+    /** Caché de consultas: se descarta sola con cualquier escritura en Medicamento */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HINT_CACHE_REGION, value = "catalogo.listados")})
     List<Medicamento> findByActivoTrueOrderByNombreComercialAsc();
 
     @Query("""
@@ -24,4 +34,12 @@ public interface MedicamentoDAO extends JpaRepository<Medicamento, Long> {
            order by m.nombreComercial
            """)
     List<Medicamento> buscarActivosLike(@Param("texto") String texto);
+
+    /** Fallo de CacheReferencias */
+    @Query("""
+           select new es.uvigo.dagss.recetas.servicios.dto.MedicamentoReferencia(m.id, m.nombreComercial, m.numeroDosis)
+           from Medicamento m
+           where m.id = :id
+           """)
+    Optional<MedicamentoReferencia> findReferencia(@Param("id") Long id);
 }
@@ -1,10 +1,19 @@
 package es.uvigo.dagss.recetas.repositorios;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.servicios.dto.MedicoReferencia;
+import es.uvigo.dagss.recetas.servicios.dto.MedicoResumen;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface MedicoDAO extends JpaRepository<Medico, Long> {
@@ -13,10 +22,72 @@ public interface MedicoDAO extends JpaRepository<Medico, Long> {
 
     Optional<Medico> findByNumeroColegiado(String numeroColegiado);
 
-    List<Medico> findByActivoTrueOrderByApellidosAscNombreAsc();
-
+    /** Activos por apellidos y nombre, con su centro en la misma consulta */
     @Query("""
            select m
+           from Medico m
+             left join fetch m.centroSalud
+           where m.activo = true
+           order by m.apellidos, m.nombre
+           """)
+    List<Medico> findActivosConCentro();
+
+    /** Columnas de {@link MedicoResumen}, sobre "from Medico m left join m.centroSalud c" */
+    String RESUMEN = """
+           new es.uvigo.dagss.recetas.servicios.dto.MedicoResumen(
+               m.id, m.login, m.nombre, m.apellidos, m.dni, m.numeroColegiado, m.telefono, m.email, m.activo,
+               c.id, c.nombre)
+           """;
+
+    /** Listado paginado: primera página */
+    @Query("select " + RESUMEN + """
+           from Medico m
+             left join m.centroSalud c
+           where m.activo = true
+           order by m.apellidos, m.nombre, m.id
+           """)
+    List<MedicoResumen> findResumenesActivos(Limit limite);
+
+    /**
+     * Listado paginado: página siguiente a la clave (apellidos, nombre, id).
+     * Los null van primero, como ordenan MariaDB y H2.
+     */
+    @Query("select " + RESUMEN + """
+           from Medico m
+             left join m.centroSalud c
+           where m.activo = true
+             and (
+                (:apellidos is null and (m.apellidos is not null
+                    or (:nombre is null and (m.nombre is not null or m.id > :id))
+                    or m.nombre > :nombre
+                    or (m.nombre = :nombre and m.id > :id)))
+                or m.apellidos > :apellidos
+                or (m.apellidos = :apellidos and (
+                    (:nombre is null and (m.nombre is not null or m.id > :id))
+                    or m.nombre > :nombre
+                    or (m.nombre = :nombre and m.id > :id)))
+             )
+           order by m.apellidos, m.nombre, m.id
+           """)
+    List<MedicoResumen> findResumenesActivosDespues(@Param("apellidos") String apellidos,
+                                                    @Param("nombre") String nombre,
+                                                    @Param("id") Long id,
+                                                    Limit limite);
+
+    /** Listado completo en streaming (NDJSON): hay que consumirlo dentro de la transacción */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + RESUMEN + """
+           from Medico m
+             left join m.centroSalud c
+           where m.activo = true
+           order by m.apellidos, m.nombre, m.id
+           """)
+    Stream<MedicoResumen> streamResumenesActivos();
+
+    @Query("select m from Medico m left join fetch m.centroSalud where m.id in :ids")
+    List<Medico> findConCentroByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select " + RESUMEN + """
            from Medico m
              left join m.centroSalud c
            where m.activo = true
@@ -35,16 +106,25 @@ public interface MedicoDAO extends JpaRepository<Medico, Long> {
              )
            order by m.apellidos, m.nombre
            """)
-    List<Medico> buscarActivos(@Param("nombre") String nombre,
-                              @Param("localidad") String localidad,
-                              @Param("centroId") Long centroId);
+    List<MedicoResumen> buscarActivos(@Param("nombre") String nombre,
+                                      @Param("localidad") String localidad,
+                                      @Param("centroId") Long centroId);
 
     @Query("""
            select m
            from Medico m
+             join fetch m.centroSalud c
            where m.activo = true
-             and m.centroSalud.id = :centroId
+             and c.id = :centroId
            order by m.apellidos, m.nombre
            """)
     List<Medico> findActivosByCentro(@Param("centroId") Long centroId);
+
+    /** Fallo de CacheReferencias */
+    @Query("""
+           select new es.uvigo.dagss.recetas.servicios.dto.MedicoReferencia(m.id, m.nombre, m.apellidos, m.centroSalud.id)
+           from Medico m
+           where m.id = :id
+           """)
+    Optional<MedicoReferencia> findReferencia(@Param("id") Long id);
 }
@@ -1,10 +1,18 @@
 package es.uvigo.dagss.recetas.repositorios;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.servicios.dto.PacienteResumen;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface PacienteDAO extends JpaRepository<Paciente, Long> {
@@ -13,10 +21,84 @@ public interface PacienteDAO extends JpaRepository<Paciente, Long> {
 
     Optional<Paciente> findByNumeroTarjetaSanitaria(String numeroTarjetaSanitaria);
 
-    List<Paciente> findByActivoTrueOrderByApellidosAscNombreAsc();
-
+    /** Activos por apellidos y nombre, con su centro y su médico (y el centro del médico) en la misma consulta */
     @Query("""
            select p
+           from Paciente p
+             left join fetch p.centroSalud
+             left join fetch p.medicoAsignado m
+             left join fetch m.centroSalud
+           where p.activo = true
+           order by p.apellidos, p.nombre
+           """)
+    List<Paciente> findActivosConCentroYMedico();
+
+    /** Columnas de {@link PacienteResumen}, sobre "from Paciente p left join p.centroSalud c left join p.medicoAsignado m" */
+    String RESUMEN = """
+           new es.uvigo.dagss.recetas.servicios.dto.PacienteResumen(
+               p.id, p.login, p.nombre, p.apellidos, p.dni, p.numeroTarjetaSanitaria, p.numeroSeguridadSocial,
+               p.localidad, p.telefono, p.email, p.fechaNacimiento, p.activo,
+               c.id, c.nombre, m.id, m.nombre, m.apellidos)
+           """;
+
+    /** Listado paginado: primera página */
+    @Query("select " + RESUMEN + """
+           from Paciente p
+             left join p.centroSalud c
+             left join p.medicoAsignado m
+           where p.activo = true
+           order by p.apellidos, p.nombre, p.id
+           """)
+    List<PacienteResumen> findResumenesActivos(Limit limite);
+
+    /**
+     * Listado paginado: página siguiente a la clave (apellidos, nombre, id).
+     * Los null van primero, como ordenan MariaDB y H2.
+     */
+    @Query("select " + RESUMEN + """
+           from Paciente p
+             left join p.centroSalud c
+             left join p.medicoAsignado m
+           where p.activo = true
+             and (
+                (:apellidos is null and (p.apellidos is not null
+                    or (:nombre is null and (p.nombre is not null or p.id > :id))
+                    or p.nombre > :nombre
+                    or (p.nombre = :nombre and p.id > :id)))
+                or p.apellidos > :apellidos
+                or (p.apellidos = :apellidos and (
+                    (:nombre is null and (p.nombre is not null or p.id > :id))
+                    or p.nombre > :nombre
+                    or (p.nombre = :nombre and p.id > :id)))
+             )
+           order by p.apellidos, p.nombre, p.id
+           """)
+    List<PacienteResumen> findResumenesActivosDespues(@Param("apellidos") String apellidos,
+                                                      @Param("nombre") String nombre,
+                                                      @Param("id") Long id,
+                                                      Limit limite);
+
+    /** Listado completo en streaming (NDJSON): hay que consumirlo dentro de la transacción */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select " + RESUMEN + """
+           from Paciente p
+             left join p.centroSalud c
+             left join p.medicoAsignado m
+           where p.activo = true
+           order by p.apellidos, p.nombre, p.id
+           """)
+    Stream<PacienteResumen> streamResumenesActivos();
+
+    @Query("select p.dni from Paciente p where p.dni in :dnis")
+    List<String> findDnisExistentes(@Param("dnis") Collection<String> dnis);
+
+    @Query("select p.numeroTarjetaSanitaria from Paciente p where p.numeroTarjetaSanitaria in :tarjetas")
+    List<String> findTarjetasExistentes(@Param("tarjetas") Collection<String> tarjetas);
+
+    @Query("select p.numeroSeguridadSocial from Paciente p where p.numeroSeguridadSocial in :numeros")
+    List<String> findSeguridadSocialExistentes(@Param("numeros") Collection<String> numeros);
+
+    @Query("select " + RESUMEN + """
            from Paciente p
              left join p.centroSalud c
              left join p.medicoAsignado m
@@ -40,8 +122,8 @@ public interface PacienteDAO extends JpaRepository<Paciente, Long> {
              )
            order by p.apellidos, p.nombre
            """)
-    List<Paciente> buscarActivos(@Param("nombre") String nombre,
-                                @Param("localidad") String localidad,
-                                @Param("centroId") Long centroId,
-                                @Param("medicoId") Long medicoId);
+    List<PacienteResumen> buscarActivos(@Param("nombre") String nombre,
+                                        @Param("localidad") String localidad,
+                                        @Param("centroId") Long centroId,
+                                        @Param("medicoId") Long medicoId);
 }
@@ -3,12 +3,15 @@ package es.uvigo.dagss.recetas.repositorios;
 import es.uvigo.dagss.recetas.entidades.Prescripcion;
 import java.time.LocalDate;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface PrescripcionDAO extends JpaRepository<Prescripcion, Long> {
 
+    /** Vista de prescripciones del paciente: con medicamento y médico */
     @Query("""
            select p
            from Prescripcion p
@@ -21,4 +24,44 @@ public interface PrescripcionDAO extends JpaRepository<Prescripcion, Long> {
            """)
     List<Prescripcion> findEnVigorDePaciente(@Param("pacienteId") Long pacienteId,
                                             @Param("hoy") LocalDate hoy);
+
+    /** Planes por ventana con recetas por generar hasta {@code limite}; el medicamento queda sin cargar */
+    @Query("""
+           select p
+           from Prescripcion p
+           where p.activa = true
+             and p.fechaSiguienteReceta <= :limite
+           order by p.id
+           """)
+    List<Prescripcion> findPlanesPorAmpliar(@Param("limite") LocalDate limite, Limit limit);
+
+    /** HU-P4: planes por ventana del paciente con recetas aún por generar */
+    @Query("""
+           select p
+           from Prescripcion p
+             join fetch p.medicamento m
+             join fetch p.medico md
+           where p.paciente.id = :pacienteId
+             and p.activa = true
+             and p.siguienteReceta is not null
+           order by p.id
+           """)
+    List<Prescripcion> findConPlanPendienteDePaciente(@Param("pacienteId") Long pacienteId);
+
+    /** Baja de un médico: desactiva sus prescripciones activas y corta su plan por ventana */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Prescripcion p
+           set p.activa = false, p.siguienteReceta = null, p.fechaSiguienteReceta = null
+           where p.medico.id = :medicoId and p.activa = true
+           """)
+    int desactivarDeMedico(@Param("medicoId") Long medicoId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Prescripcion p
+           set p.activa = false, p.siguienteReceta = null, p.fechaSiguienteReceta = null
+           where p.paciente.id = :pacienteId and p.activa = true
+           """)
+    int desactivarDePaciente(@Param("pacienteId") Long pacienteId);
 }
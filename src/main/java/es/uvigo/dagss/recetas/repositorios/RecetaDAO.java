@@ -3,8 +3,11 @@ package es.uvigo.dagss.recetas.repositorios;
 import es.uvigo.dagss.recetas.entidades.EstadoReceta;
 import es.uvigo.dagss.recetas.entidades.Receta;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -40,5 +43,50 @@ public interface RecetaDAO extends JpaRepository<Receta, Long> {
   List<Receta> findPlanificadasEnVigorPorTarjetaSanitaria(@Param("nts") String numeroTarjetaSanitaria,
       @Param("hoy") LocalDate hoy);
 
+  /** Anulación de una prescripción: sus recetas PLANIFICADAS, en una sola sentencia */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("""
+      update Receta r set r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.ANULADA, r.version = r.version + 1
+      where r.prescripcion.id = :prescripcionId
+        and r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.PLANIFICADA
+      """)
+  int anularPlanificadasDePrescripcion(@Param("prescripcionId") Long prescripcionId);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("""
+      update Receta r set r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.ANULADA, r.version = r.version + 1
+      where r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.PLANIFICADA
+        and r.prescripcion.id in (
+          select p.id from Prescripcion p where p.medico.id = :medicoId and p.activa = true)
+      """)
+  int anularPlanificadasDeMedico(@Param("medicoId") Long medicoId);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("""
+      update Receta r set r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.ANULADA, r.version = r.version + 1
+      where r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.PLANIFICADA
+        and r.prescripcion.id in (
+          select p.id from Prescripcion p where p.paciente.id = :pacienteId and p.activa = true)
+      """)
+  int anularPlanificadasDePaciente(@Param("pacienteId") Long pacienteId);
+
   List<Receta> findByPrescripcionIdAndEstado(Long prescripcionId, EstadoReceta estado);
+
+  long countByEstadoAndFechaValidezFinalBefore(EstadoReceta estado, LocalDate fecha);
+
+  /** Caducidad: recetas PLANIFICADAS vencidas; al caducarlas salen del conjunto y el siguiente lote sigue */
+  @Query("""
+      select r.id from Receta r
+      where r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.PLANIFICADA
+        and r.fechaValidezFinal < :hoy
+      """)
+  List<Long> findIdsVencidas(@Param("hoy") LocalDate hoy, Limit limit);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("""
+      update Receta r set r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.CADUCADA, r.version = r.version + 1
+      where r.id in :ids
+        and r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.PLANIFICADA
+      """)
+  int caducar(@Param("ids") Collection<Long> ids);
 }
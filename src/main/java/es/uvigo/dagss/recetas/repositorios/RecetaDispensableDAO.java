@@ -0,0 +1,88 @@
+package es.uvigo.dagss.recetas.repositorios;
+
+import es.uvigo.dagss.recetas.entidades.RecetaDispensable;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RecetaDispensableDAO extends JpaRepository<RecetaDispensable, Long> {
+
+    String RELLENAR = """
+           insert into RecetaDispensable (recetaId, prescripcionId, pacienteId, medicoId, medicamentoId,
+               numeroTarjetaSanitaria, fechaValidezInicial, fechaValidezFinal, numeroUnidades,
+               nombreComercial, principioActivo, numeroDosis, dosisDiaria, indicaciones, nombreMedico, apellidosMedico)
+           select r.id, p.id, pa.id, md.id, m.id,
+               pa.numeroTarjetaSanitaria, r.fechaValidezInicial, r.fechaValidezFinal, r.numeroUnidades,
+               m.nombreComercial, m.principioActivo, m.numeroDosis, p.dosisDiaria, p.indicaciones, md.nombre, md.apellidos
+           from Receta r
+             join r.prescripcion p
+             join p.paciente pa
+             join p.medico md
+             join p.medicamento m
+           where p.activa = true
+             and r.estado = es.uvigo.dagss.recetas.entidades.EstadoReceta.PLANIFICADA
+             and not exists (select 1 from RecetaDispensable d where d.recetaId = r.id)
+           """;
+
+    @Query("""
+           select d from RecetaDispensable d
+           where d.numeroTarjetaSanitaria = :nts
+             and d.fechaValidezFinal >= :hoy
+           order by d.fechaValidezInicial
+           """)
+    List<RecetaDispensable> findEnVigorPorTarjetaSanitaria(@Param("nts") String numeroTarjetaSanitaria,
+                                                           @Param("hoy") LocalDate hoy);
+
+    /** Recetas nuevas de esas prescripciones (alta o ampliación del plan) */
+    @Modifying(flushAutomatically = true)
+    @Query(RELLENAR + " and p.id in :prescripciones")
+    int rellenarDePrescripciones(@Param("prescripciones") Collection<Long> prescripcionIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RecetaDispensable d where d.recetaId = :recetaId")
+    int borrarReceta(@Param("recetaId") Long recetaId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RecetaDispensable d where d.recetaId in :recetaIds")
+    int borrarRecetas(@Param("recetaIds") Collection<Long> recetaIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RecetaDispensable d where d.prescripcionId = :prescripcionId")
+    int borrarDePrescripcion(@Param("prescripcionId") Long prescripcionId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RecetaDispensable d where d.medicoId = :medicoId")
+    int borrarDeMedico(@Param("medicoId") Long medicoId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from RecetaDispensable d where d.pacienteId = :pacienteId")
+    int borrarDePaciente(@Param("pacienteId") Long pacienteId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update RecetaDispensable d set d.numeroTarjetaSanitaria = :nts where d.pacienteId = :pacienteId")
+    int actualizarTarjeta(@Param("pacienteId") Long pacienteId, @Param("nts") String numeroTarjetaSanitaria);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+           update RecetaDispensable d
+           set d.nombreMedico = :nombre, d.apellidosMedico = :apellidos
+           where d.medicoId = :medicoId
+           """)
+    int actualizarMedico(@Param("medicoId") Long medicoId, @Param("nombre") String nombre,
+                         @Param("apellidos") String apellidos);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+           update RecetaDispensable d
+           set d.nombreComercial = :nombreComercial, d.principioActivo = :principioActivo, d.numeroDosis = :numeroDosis
+           where d.medicamentoId = :medicamentoId
+           """)
+    int actualizarMedicamento(@Param("medicamentoId") Long medicamentoId,
+                              @Param("nombreComercial") String nombreComercial,
+                              @Param("principioActivo") String principioActivo,
+                              @Param("numeroDosis") Integer numeroDosis);
+}
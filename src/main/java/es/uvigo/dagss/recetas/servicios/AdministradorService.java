@@ -2,10 +2,14 @@ package es.uvigo.dagss.recetas.servicios;
 
 import es.uvigo.dagss.recetas.entidades.Administrador;
 import es.uvigo.dagss.recetas.repositorios.AdministradorDAO;
-import es.uvigo.dagss.recetas.repositorios.UsuarioDAO;
+import es.uvigo.dagss.recetas.servicios.dto.AdministradorResumen;
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,26 +17,53 @@ import org.springframework.transaction.annotation.Transactional;
 public class AdministradorService {
 
     private final AdministradorDAO administradorDAO;
-    private final UsuarioDAO usuarioDAO;
+    private final CredencialService credencialService;
+    private final Paginacion paginacion;
 
     public AdministradorService(AdministradorDAO administradorRepository,
-                                UsuarioDAO usuarioRepository) {
+                                CredencialService credencialService,
+                                Paginacion paginacion) {
         this.administradorDAO = administradorRepository;
-        this.usuarioDAO = usuarioRepository;
+        this.credencialService = credencialService;
+        this.paginacion = paginacion;
     }
 
     /** HU-A2: listado de administradores activos */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Administrador> listarActivos() {
         return administradorDAO.findByActivoTrueOrderByLoginAsc();
     }
 
+    /** HU-A2: listado paginado por (login, id) */
+    @PresupuestoConsultas(1)
+    @Transactional(readOnly = true)
+    public Pagina<AdministradorResumen> paginarActivos(String cursor, Integer tamano) {
+        int n = paginacion.tamano(tamano);
+        List<AdministradorResumen> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = administradorDAO.findResumenesActivos(paginacion.limite(n));
+        } else {
+            String[] c = paginacion.leer(cursor, 2);
+            filas = administradorDAO.findResumenesActivosDespues(c[0], paginacion.leerId(c[1]), paginacion.limite(n));
+        }
+        return paginacion.pagina(filas, n, a -> new Object[] {a.login(), a.id()});
+    }
+
+    /** HU-A2: listado completo en streaming, fila a fila */
+    @Transactional(readOnly = true)
+    public void recorrerActivos(Consumer<AdministradorResumen> consumidor) {
+        try (Stream<AdministradorResumen> filas = administradorDAO.streamResumenesActivos()) {
+            filas.forEach(consumidor);
+        }
+    }
+
     /** HU-A2: alta de administrador */
     @Transactional
     public Administrador crear(String login, String password, String nombre, String email) {
         if (login == null || login.isBlank()) throw new ValidacionException("login obligatorio");
         if (password == null || password.isBlank()) throw new ValidacionException("password obligatorio");
-        if (usuarioDAO.existsByLogin(login.trim())) {
+        if (credencialService.existeLogin(login.trim())) {
             throw new ValidacionException("Ya existe un usuario con ese login");
         }
 
@@ -43,7 +74,9 @@ public class AdministradorService {
         a.setEmail(email);
         a.setActivo(true);
 
-        return administradorDAO.save(a);
+        a = administradorDAO.save(a);
+        credencialService.sincronizar(a);
+        return a;
     }
 
     /** HU-A2: modificación de administrador  */
@@ -56,7 +89,9 @@ public class AdministradorService {
         a.setEmail(email);
         if (activo != null) a.setActivo(activo);
 
-        return administradorDAO.save(a);
+        a = administradorDAO.save(a);
+        credencialService.sincronizar(a);
+        return a;
     }
 
     /** HU-A2: baja  */
@@ -66,5 +101,6 @@ public class AdministradorService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Administrador no encontrado: " + id));
         a.setActivo(false);
         administradorDAO.save(a);
+        credencialService.sincronizar(a);
     }
 }
@@ -0,0 +1,107 @@
+package es.uvigo.dagss.recetas.servicios;
+
+import es.uvigo.dagss.recetas.repositorios.CitaDAO;
+import es.uvigo.dagss.recetas.servicios.dto.CitaVencida;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoAusencias;
+import es.uvigo.dagss.recetas.servicios.tareas.BloqueoTareas;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * HU-M2: las citas PLANIFICADAS de días ya pasados son ausencias. Una tarea nocturna las marca
+ * AUSENTE (como marcarAusente de CitaService) para que no sigan en el conjunto de planificadas
+ * que recorren la agenda y la reserva de huecos.
+ *
+ * Igual que la caducidad de recetas: lotes en su propia transacción con pausa entre ellos, sin
+ * guardar posición. Con varios nodos la ejecuta solo el que toma el bloqueo de la tarea.
+ */
+@Service
+public class AusenciasCitasService {
+
+    private static final Logger log = LoggerFactory.getLogger(AusenciasCitasService.class);
+
+    static final String TAREA = "ausencias-citas";
+    private static final Duration MAXIMO = Duration.ofHours(2);
+
+    private final CitaDAO citaDAO;
+    private final BloqueoTareas bloqueoTareas;
+    private final TransactionTemplate transaccion;
+    private final int tamanoLote;
+    private final Duration pausa;
+
+    public AusenciasCitasService(CitaDAO citaDAO,
+                                 BloqueoTareas bloqueoTareas,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${recetas.ausencias.tamano-lote:1000}") int tamanoLote,
+                                 @Value("${recetas.ausencias.pausa:PT0.2S}") Duration pausa) {
+        this.citaDAO = citaDAO;
+        this.bloqueoTareas = bloqueoTareas;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.pausa = pausa;
+    }
+
+    @Scheduled(cron = "${recetas.ausencias.cron:0 15 3 * * *}")
+    public void marcarAusencias() {
+        bloqueoTareas.ejecutar(TAREA, MAXIMO, () -> marcarAusencias(LocalDate.now()));
+    }
+
+    /** Marca AUSENTE las citas PLANIFICADAS anteriores a {@code hoy} */
+    public ResultadoAusencias marcarAusencias(LocalDate hoy) {
+        Map<Long, Long> porCentro = new TreeMap<>();
+        Map<Long, Long> porMedico = new TreeMap<>();
+        long ausentes = 0;
+        int lotes = 0;
+        Lote lote;
+        do {
+            lote = transaccion.execute(tx -> marcarLote(hoy));
+            lotes++;
+            ausentes += lote.marcadas();
+            for (CitaVencida c : lote.citas()) {
+                porCentro.merge(c.centroSaludId(), 1L, Long::sum);
+                porMedico.merge(c.medicoId(), 1L, Long::sum);
+            }
+        } while (lote.citas().size() == tamanoLote && esperar());
+
+        if (ausentes > 0) {
+            log.info("Marcadas {} citas como AUSENTE en {} lotes", ausentes, lotes);
+            porCentro.forEach((centro, n) -> log.info("Ausencias del centro {}: {}", centro, n));
+            porMedico.forEach((medico, n) -> log.debug("Ausencias del médico {}: {}", medico, n));
+        }
+        return new ResultadoAusencias(ausentes, lotes, porCentro, porMedico);
+    }
+
+    /**
+     * El UPDATE vuelve a comprobar el estado: una cita completada a la vez no se marca, aunque
+     * los recuentos por centro y médico, que salen de la lectura, la incluyan
+     */
+    private Lote marcarLote(LocalDate hoy) {
+        List<CitaVencida> citas = citaDAO.findVencidas(hoy, Limit.of(tamanoLote));
+        if (citas.isEmpty()) return new Lote(citas, 0);
+        return new Lote(citas, citaDAO.marcarAusentes(citas.stream().map(CitaVencida::id).toList()));
+    }
+
+    private record Lote(List<CitaVencida> citas, int marcadas) {
+    }
+
+    private boolean esperar() {
+        try {
+            Thread.sleep(pausa.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
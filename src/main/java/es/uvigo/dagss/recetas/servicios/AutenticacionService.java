@@ -1,23 +1,41 @@
 package es.uvigo.dagss.recetas.servicios;
 
+import es.uvigo.dagss.recetas.entidades.Credencial;
 import es.uvigo.dagss.recetas.entidades.Usuario;
-import es.uvigo.dagss.recetas.repositorios.UsuarioDAO;
+import es.uvigo.dagss.recetas.repositorios.AdministradorDAO;
+import es.uvigo.dagss.recetas.repositorios.FarmaciaDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
 import es.uvigo.dagss.recetas.servicios.excepciones.CredencialesInvalidasException;
 import java.util.Date;
+import java.util.Optional;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AutenticacionService {
 
-    private final UsuarioDAO usuarioDAO;
+    private final CredencialService credencialService;
+    private final AdministradorDAO administradorDAO;
+    private final MedicoDAO medicoDAO;
+    private final PacienteDAO pacienteDAO;
+    private final FarmaciaDAO farmaciaDAO;
 
-    public AutenticacionService(UsuarioDAO usuarioDAO) {
-        this.usuarioDAO = usuarioDAO;
+    public AutenticacionService(CredencialService credencialService,
+                                AdministradorDAO administradorDAO,
+                                MedicoDAO medicoDAO,
+                                PacienteDAO pacienteDAO,
+                                FarmaciaDAO farmaciaDAO) {
+        this.credencialService = credencialService;
+        this.administradorDAO = administradorDAO;
+        this.medicoDAO = medicoDAO;
+        this.pacienteDAO = pacienteDAO;
+        this.farmaciaDAO = farmaciaDAO;
     }
 
     /**
      * HU-C1: Login
+     * Se resuelve contra la tabla Credencial y después se carga solo la tabla del tipo de usuario.
      */
     @Transactional
     public Usuario login(String login, String password) {
@@ -25,14 +43,26 @@ public class AutenticacionService {
             throw new CredencialesInvalidasException("Login y password son obligatorios");
         }
 
-        Usuario u = usuarioDAO.findActivoByLogin(login.trim())
+        Credencial c = credencialService.buscarActiva(login.trim())
                 .orElseThrow(() -> new CredencialesInvalidasException("Credenciales inválidas"));
 
-        if (u.getPassword() == null || !u.getPassword().equals(password)) {
+        if (c.getPassword() == null || !c.getPassword().equals(password)) {
             throw new CredencialesInvalidasException("Credenciales inválidas");
         }
 
+        Usuario u = buscarUsuario(c)
+                .orElseThrow(() -> new CredencialesInvalidasException("Credenciales inválidas"));
+
         u.setUltimoAcceso(new Date());
-        return usuarioDAO.save(u);
+        return u;
+    }
+
+    private Optional<? extends Usuario> buscarUsuario(Credencial c) {
+        return switch (c.getTipo()) {
+            case ADMINISTRADOR -> administradorDAO.findById(c.getUsuarioId());
+            case MEDICO -> medicoDAO.findById(c.getUsuarioId());
+            case PACIENTE -> pacienteDAO.findById(c.getUsuarioId());
+            case FARMACIA -> farmaciaDAO.findById(c.getUsuarioId());
+        };
     }
 }
@@ -0,0 +1,183 @@
+package es.uvigo.dagss.recetas.servicios;
+
+import es.uvigo.dagss.recetas.entidades.EstadoReceta;
+import es.uvigo.dagss.recetas.repositorios.RecetaDAO;
+import es.uvigo.dagss.recetas.servicios.dto.ProgresoCaducidad;
+import es.uvigo.dagss.recetas.servicios.excepciones.ConflictoException;
+import es.uvigo.dagss.recetas.servicios.tareas.BloqueoTareas;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Pasa a CADUCADA las recetas PLANIFICADAS cuya fechaValidezFinal ya pasó, para que el conjunto
+ * de PLANIFICADAS (y sus índices) no crezca con recetas que nadie va a servir.
+ *
+ * Va por lotes, cada uno en su transacción y con una pausa entre ellos. No guarda posición: las
+ * recetas caducadas dejan de cumplir la condición, así que una ejecución interrumpida sigue donde
+ * se quedó la próxima vez. Con varios nodos, la tarea programada y la lanzada a mano toman el
+ * mismo bloqueo: solo la ejecuta un nodo a la vez.
+ *
+ * El avance sale en las métricas recetas.caducidad.caducadas (contador desde el arranque) y
+ * recetas.caducidad.pendientes (las que le quedan a la ejecución en curso).
+ */
+@Service
+public class CaducidadRecetasService {
+
+    private static final Logger log = LoggerFactory.getLogger(CaducidadRecetasService.class);
+
+    static final String CADUCADAS = "recetas.caducidad.caducadas";
+    static final String PENDIENTES = "recetas.caducidad.pendientes";
+    private static final String TAREA = "caducidad-recetas";
+    private static final String EN_CURSO = "La caducidad de recetas ya está en curso";
+    private static final Duration MAXIMO = Duration.ofHours(2);
+
+    private final RecetaDAO recetaDAO;
+    private final DispensacionService dispensacionService;
+    private final BloqueoTareas bloqueoTareas;
+    private final TaskExecutor ejecutor;
+    private final TransactionTemplate transaccion;
+    private final int tamanoLote;
+    private final Duration pausa;
+
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+    private volatile ProgresoCaducidad progreso = ProgresoCaducidad.NINGUNO;
+
+    public CaducidadRecetasService(RecetaDAO recetaDAO,
+                                   DispensacionService dispensacionService,
+                                   BloqueoTareas bloqueoTareas,
+                                   @Qualifier("applicationTaskExecutor") TaskExecutor ejecutor,
+                                   MeterRegistry registro,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${recetas.caducidad.tamano-lote:1000}") int tamanoLote,
+                                   @Value("${recetas.caducidad.pausa:PT0.2S}") Duration pausa) {
+        this.recetaDAO = recetaDAO;
+        this.dispensacionService = dispensacionService;
+        this.bloqueoTareas = bloqueoTareas;
+        this.ejecutor = ejecutor;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.pausa = pausa;
+
+        FunctionCounter.builder(CADUCADAS, this, s -> s.progreso.caducadasTotal())
+                .description("Recetas caducadas desde el arranque")
+                .register(registro);
+        Gauge.builder(PENDIENTES, this, s -> s.progreso.enCurso()
+                        ? Math.max(0, s.progreso.pendientes() - s.progreso.caducadas()) : 0)
+                .description("Recetas vencidas que le quedan a la caducidad en curso")
+                .register(registro);
+    }
+
+    public ProgresoCaducidad progreso() {
+        return progreso;
+    }
+
+    @Scheduled(cron = "${recetas.caducidad.cron:0 0 3 * * *}")
+    public void caducarRecetas() {
+        if (!enCurso.compareAndSet(false, true)) {
+            log.info(EN_CURSO);
+            return;
+        }
+        caducarConBloqueo();
+    }
+
+    /**
+     * Lanza la caducidad en segundo plano sin esperar a la tarea diaria y devuelve el progreso
+     * actual; ConflictoException si ya está en curso en este nodo
+     */
+    public ProgresoCaducidad lanzarCaducidad() {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new ConflictoException(EN_CURSO);
+        }
+        try {
+            ejecutor.execute(this::caducarConBloqueo);
+        } catch (TaskRejectedException e) {
+            enCurso.set(false);
+            throw e;
+        }
+        return progreso;
+    }
+
+    /** Caduca las recetas vencidas antes de {@code hoy}, sin bloqueo entre nodos; devuelve cuántas */
+    public long caducarRecetas(LocalDate hoy) {
+        if (!enCurso.compareAndSet(false, true)) {
+            throw new ConflictoException(EN_CURSO);
+        }
+        try {
+            return caducar(hoy);
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    /** Con enCurso ya tomado; si otro nodo tiene el bloqueo no hace nada */
+    private void caducarConBloqueo() {
+        try {
+            bloqueoTareas.ejecutar(TAREA, MAXIMO, () -> caducar(LocalDate.now()));
+        } finally {
+            enCurso.set(false);
+        }
+    }
+
+    private long caducar(LocalDate hoy) {
+        long total = progreso.caducadasTotal();
+        LocalDateTime inicio = LocalDateTime.now();
+        long pendientes = recetaDAO.countByEstadoAndFechaValidezFinalBefore(EstadoReceta.PLANIFICADA, hoy);
+        progreso = new ProgresoCaducidad(true, inicio, null, pendientes, 0, 0, total);
+
+        long caducadas = 0;
+        int lotes = 0;
+        int[] lote;
+        do {
+            lote = transaccion.execute(tx -> caducarLote(hoy));
+            caducadas += lote[1];
+            lotes++;
+            progreso = new ProgresoCaducidad(true, inicio, null, pendientes, caducadas, lotes, total + caducadas);
+        } while (lote[0] == tamanoLote && esperar());
+
+        progreso = new ProgresoCaducidad(false, inicio, LocalDateTime.now(), pendientes, caducadas, lotes,
+                total + caducadas);
+        if (caducadas > 0) {
+            log.info("Caducadas {} recetas en {} lotes", caducadas, lotes);
+        }
+        return caducadas;
+    }
+
+    /** Recetas leídas y caducadas (una servida entre la lectura y el UPDATE no se caduca) */
+    private int[] caducarLote(LocalDate hoy) {
+        List<Long> ids = recetaDAO.findIdsVencidas(hoy, Limit.of(tamanoLote));
+        if (ids.isEmpty()) {
+            return new int[] {0, 0};
+        }
+        int caducadas = recetaDAO.caducar(ids);
+        dispensacionService.recetasCaducadas(ids);
+        return new int[] {ids.size(), caducadas};
+    }
+
+    /** Pausa entre lotes; si se interrumpe, se para y la próxima ejecución sigue */
+    private boolean esperar() {
+        try {
+            Thread.sleep(pausa.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package es.uvigo.dagss.recetas.servicios;
 
 import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.TipoReferencia;
 import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
+import es.uvigo.dagss.recetas.servicios.dto.CentroSaludResumen;
+import es.uvigo.dagss.recetas.servicios.eventos.ReferenciaModificada;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
 import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,25 +16,38 @@ import org.springframework.transaction.annotation.Transactional;
 public class CentroSaludService {
 
     private final CentroSaludDAO centroSaludRepository;
+    private final ApplicationEventPublisher eventos;
 
-    public CentroSaludService(CentroSaludDAO centroSaludDAO) {
+    public CentroSaludService(CentroSaludDAO centroSaludDAO, ApplicationEventPublisher eventos) {
         this.centroSaludRepository = centroSaludDAO;
+        this.eventos = eventos;
     }
 
     /** HU-A3: listado */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<CentroSalud> listarActivos() {
         return centroSaludRepository.findByActivoTrueOrderByNombreAsc();
     }
 
     /** HU-A3: búsqueda nombre o localidad, LIKE */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<CentroSalud> buscarActivos(String texto) {
         String t = (texto == null || texto.isBlank()) ? null : texto.trim();
         return centroSaludRepository.buscarActivosPorNombreOLocalidadLike(t);
     }
 
+    /** HU-A3: listado o búsqueda para las respuestas REST, solo las columnas del listado */
+    @PresupuestoConsultas(1)
+    @Transactional(readOnly = true)
+    public List<CentroSaludResumen> buscarResumenesActivos(String texto) {
+        String t = (texto == null || texto.isBlank()) ? null : texto.trim();
+        return centroSaludRepository.buscarResumenesActivos(t);
+    }
+
     /** Para HU-A5: centros activos de una provincia */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<CentroSalud> centrosActivosDeProvincia(String provincia) {
         return centroSaludRepository.findByActivoTrueAndProvinciaIgnoreCaseOrderByLocalidadAscNombreAsc(provincia);
@@ -57,7 +75,9 @@ public class CentroSaludService {
         c.setEmail(datos.getEmail());
         if (datos.getActivo() != null) c.setActivo(datos.getActivo());
 
-        return centroSaludRepository.save(c);
+        c = centroSaludRepository.save(c);
+        eventos.publishEvent(new ReferenciaModificada(TipoReferencia.CENTRO_SALUD, id));
+        return c;
     }
 
     /** HU-A3: baja  */
@@ -67,5 +87,6 @@ public class CentroSaludService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Centro de salud no encontrado: " + id));
         c.setActivo(false);
         centroSaludRepository.save(c);
+        eventos.publishEvent(new ReferenciaModificada(TipoReferencia.CENTRO_SALUD, id));
     }
 }
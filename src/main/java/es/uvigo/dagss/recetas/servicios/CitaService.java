@@ -7,54 +7,77 @@ import es.uvigo.dagss.recetas.entidades.Paciente;
 import es.uvigo.dagss.recetas.repositorios.CitaDAO;
 import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
 import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
+import es.uvigo.dagss.recetas.servicios.agenda.HuecosAgenda;
+import es.uvigo.dagss.recetas.servicios.dto.Hueco;
+import es.uvigo.dagss.recetas.servicios.eventos.CitaModificada;
+import es.uvigo.dagss.recetas.servicios.excepciones.ConflictoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CitaService {
 
+
+    /** Días que recorre como mucho una búsqueda de huecos y huecos que devuelve como mucho */
+    public static final int MAX_DIAS_BUSQUEDA = 62;
+    public static final int MAX_HUECOS_BUSQUEDA = 50;
+
     private final CitaDAO citaDAO;
     private final MedicoDAO medicoDAO;
     private final PacienteDAO pacienteDAO;
+    private final HuecosAgenda huecosAgenda;
+    private final ApplicationEventPublisher eventos;
 
     public CitaService(CitaDAO citaDAO,
                        MedicoDAO medicoDAO,
-                       PacienteDAO pacienteDAO) {
+                       PacienteDAO pacienteDAO,
+                       HuecosAgenda huecosAgenda,
+                       ApplicationEventPublisher eventos) {
         this.citaDAO = citaDAO;
         this.medicoDAO = medicoDAO;
         this.pacienteDAO = pacienteDAO;
+        this.huecosAgenda = huecosAgenda;
+        this.eventos = eventos;
     }
 
     /** HU-A7: listado por día + filtros opcionales */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Cita> listarPorDia(LocalDate fecha, Long medicoId, Long pacienteId) {
         return citaDAO.buscarPorFechaConFiltros(fecha, medicoId, pacienteId);
     }
 
     /** HU-A7: anular cita (admin) */
+    @PresupuestoConsultas(2)
     @Transactional
     public void anularComoAdmin(Long citaId) {
         Cita c = citaDAO.findById(citaId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Cita no encontrada: " + citaId));
         c.setEstado(EstadoCita.ANULADA);
-        citaDAO.save(c);
+        guardar(c);
     }
 
     /** HU-M2: agenda de hoy */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Cita> agendaMedico(Long medicoId, LocalDate fecha) {
         return citaDAO.findByMedicoIdAndFechaOrderByHoraInicio(medicoId, fecha);
     }
 
     /** HU-M2: marcar ausente, tiene que ser PLANIFICADA) */
+    @PresupuestoConsultas(2)
     @Transactional
     public void marcarAusente(Long citaId, Long medicoId) {
         Cita c = citaDAO.findById(citaId)
@@ -68,10 +91,11 @@ public class CitaService {
         }
 
         c.setEstado(EstadoCita.AUSENTE);
-        citaDAO.save(c);
+        guardar(c);
     }
 
     /** HU-M3: marcar completada */
+    @PresupuestoConsultas(2)
     @Transactional
     public void marcarCompletada(Long citaId, Long medicoId) {
         Cita c = citaDAO.findById(citaId)
@@ -81,16 +105,18 @@ public class CitaService {
             throw new OperacionNoPermitidaException("La cita no pertenece al médico");
         }
         c.setEstado(EstadoCita.COMPLETADA);
-        citaDAO.save(c);
+        guardar(c);
     }
 
     /** HU-P2: citas futuras planificadas del paciente  */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Cita> citasFuturasPlanificadas(Long pacienteId, LocalDate hoy, LocalTime ahora) {
         return citaDAO.findFuturasPlanificadasDePaciente(pacienteId, hoy, ahora);
     }
 
     /** HU-P2: anular cita (paciente) */
+    @PresupuestoConsultas(2)
     @Transactional
     public void anularComoPaciente(Long citaId, Long pacienteId) {
         Cita c = citaDAO.findById(citaId)
@@ -104,35 +130,55 @@ public class CitaService {
         }
 
         c.setEstado(EstadoCita.ANULADA);
-        citaDAO.save(c);
+        guardar(c);
     }
 
-    /** HU-P3: huecos disponibles, 15 min, para el médico en un dia concreto */
-    @Transactional(readOnly = true)
+    /** HU-P3: huecos disponibles, 15 min, para el médico en un dia concreto (caché de HuecosAgenda) */
+    @PresupuestoConsultas(1)
     public List<LocalTime> huecosDisponibles(Long medicoId, LocalDate fecha) {
-        LocalTime inicio = LocalTime.of(8, 30);
-        LocalTime fin = LocalTime.of(15, 30);
-
-        List<Cita> existentes = citaDAO.findByMedicoIdAndFechaAndEstadoOrderByHoraInicio(
-                medicoId, fecha, EstadoCita.PLANIFICADA);
+        return huecosAgenda.libres(medicoId, fecha);
+    }
 
-        Set<LocalTime> ocupadas = new HashSet<>();
-        for (Cita c : existentes) {
-            ocupadas.add(c.getHoraInicio());
+    /**
+     * HU-P3: primeros huecos libres del médico entre dos días (incluidos), para buscar "la próxima
+     * cita" sin pedir los huecos día a día. No se recorren más de MAX_DIAS_BUSQUEDA días desde
+     * {@code desde} ni se ofrecen días u horas ya pasados.
+     */
+    @PresupuestoConsultas(1)
+    public List<Hueco> primerosHuecosLibres(Long medicoId, LocalDate desde, LocalDate hasta, int limite) {
+        if (medicoId == null || desde == null || hasta == null) {
+            throw new ValidacionException("Médico y fechas son obligatorios");
         }
-
-        java.util.ArrayList<LocalTime> libres = new java.util.ArrayList<>();
-        LocalTime t = inicio;
-        while (t.isBefore(fin)) {
-            if (!ocupadas.contains(t)) {
-                libres.add(t);
+        if (hasta.isBefore(desde)) throw new ValidacionException("La fecha final es anterior a la inicial");
+        if (limite < 1) throw new ValidacionException("El número de huecos debe ser positivo");
+        limite = Math.min(limite, MAX_HUECOS_BUSQUEDA);
+
+        LocalDate hoy = LocalDate.now();
+        if (desde.isBefore(hoy)) desde = hoy;
+        LocalDate tope = desde.plusDays(MAX_DIAS_BUSQUEDA - 1);
+        if (hasta.isAfter(tope)) hasta = tope;
+        List<Hueco> res = new ArrayList<>(limite);
+        if (hasta.isBefore(desde)) return res;
+
+        int[] ocupados = huecosAgenda.ocupados(medicoId, desde, hasta);
+        LocalTime ahora = LocalTime.now();
+        for (int d = 0; d < ocupados.length && res.size() < limite; d++) {
+            LocalDate fecha = desde.plusDays(d);
+            int libres = HuecosAgenda.libres(ocupados[d]);
+            for (; libres != 0 && res.size() < limite; libres &= libres - 1) {
+                LocalTime hora = HuecosAgenda.hora(Integer.numberOfTrailingZeros(libres));
+                if (!fecha.equals(hoy) || hora.isAfter(ahora)) res.add(new Hueco(fecha, hora));
             }
-            t = t.plusMinutes(15);
         }
-        return libres;
+        return res;
     }
 
-    /** HU-P3: crear cita del paciente con su médico asignado  */
+    /**
+     * HU-P3: crear cita del paciente con su médico asignado.
+     * La comprobación previa solo da un mensaje rápido: quien decide entre reservas simultáneas
+     * del mismo hueco es la restricción UK_CITA_HUECO, y el perdedor recibe ConflictoException.
+     */
+    @PresupuestoConsultas(3)
     @Transactional
     public Cita crearCitaPaciente(Long pacienteId, LocalDate fecha, LocalTime horaInicio) {
         if (fecha == null || horaInicio == null) throw new ValidacionException("Fecha y hora son obligatorias");
@@ -144,9 +190,7 @@ public class CitaService {
         if (m == null) throw new OperacionNoPermitidaException("El paciente no tiene médico asignado");
 
         // comprobar rango horario
-        LocalTime inicio = LocalTime.of(8, 30);
-        LocalTime fin = LocalTime.of(15, 30);
-        if (horaInicio.isBefore(inicio) || !horaInicio.isBefore(fin) || (horaInicio.getMinute() % 15 != 0)) {
+        if (HuecosAgenda.indice(horaInicio) < 0) {
             throw new ValidacionException("Hora fuera de rango (8:30-15:30) o no alineada a 15 min");
         }
 
@@ -167,6 +211,40 @@ public class CitaService {
         c.setDuracion(15);
         c.setEstado(EstadoCita.PLANIFICADA);
 
-        return citaDAO.save(c);
+        try {
+            c = citaDAO.saveAndFlush(c);
+        } catch (DataIntegrityViolationException e) {
+            if (violaHueco(e)) throw new ConflictoException("Ese hueco ya está ocupado");
+            throw e;
+        }
+        publicar(c);
+        return c;
+    }
+
+    /** Si la violación es la de UK_CITA_HUECO; el nombre llega en mayúsculas o con prefijo según la BD */
+    private static boolean violaHueco(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ConstraintViolationException cve) {
+                String nombre = cve.getConstraintName();
+                return nombre != null && nombre.toUpperCase().contains("UK_CITA_HUECO");
+            }
+        }
+        return false;
+    }
+
+    /** Cambio de estado con control de versión: si otra operación modificó la cita, conflicto */
+    private void guardar(Cita c) {
+        try {
+            citaDAO.saveAndFlush(c);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictoException("La cita ha sido modificada por otra operación, vuelve a intentarlo");
+        }
+        publicar(c);
+    }
+
+    /** Tras confirmar, HuecosAgenda marca o libera el hueco de la cita */
+    private void publicar(Cita c) {
+        eventos.publishEvent(new CitaModificada(c.getMedico().getId(), c.getFecha(), c.getHoraInicio(),
+                c.getEstado() == EstadoCita.PLANIFICADA));
     }
 }
@@ -0,0 +1,42 @@
+package es.uvigo.dagss.recetas.servicios;
+
+import es.uvigo.dagss.recetas.entidades.Credencial;
+import es.uvigo.dagss.recetas.entidades.Usuario;
+import es.uvigo.dagss.recetas.repositorios.CredencialDAO;
+import java.util.Optional;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class CredencialService {
+
+    private final CredencialDAO credencialDAO;
+
+    public CredencialService(CredencialDAO credencialDAO) {
+        this.credencialDAO = credencialDAO;
+    }
+
+    /** HU-C1: credencial activa por login (búsqueda por clave primaria) */
+    @Transactional(readOnly = true)
+    public Optional<Credencial> buscarActiva(String login) {
+        return credencialDAO.findById(login)
+                .filter(c -> Boolean.TRUE.equals(c.getActivo()));
+    }
+
+    /** Comprobación de login duplicado en las altas */
+    @Transactional(readOnly = true)
+    public boolean existeLogin(String login) {
+        return credencialDAO.existsById(login);
+    }
+
+    /** Mantiene la credencial alineada con el usuario tras alta, edición o baja */
+    @Transactional
+    public void sincronizar(Usuario u) {
+        Credencial c = credencialDAO.findById(u.getLogin()).orElse(null);
+        if (c == null) {
+            credencialDAO.save(new Credencial(u));
+        } else {
+            c.actualizarDesde(u);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package es.uvigo.dagss.recetas.servicios;
+
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.entidades.RecetaDispensable;
+import es.uvigo.dagss.recetas.repositorios.RecetaDispensableDAO;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Modelo de lectura de la dispensación (RecetaDispensable). Los servicios que cambian recetas,
+ * prescripciones o los datos copiados lo llaman dentro de su transacción, con sentencias
+ * masivas: nunca se cargan filas del modelo para modificarlas.
+ */
+@Service
+public class DispensacionService {
+
+    private final RecetaDispensableDAO recetaDispensableDAO;
+
+    public DispensacionService(RecetaDispensableDAO recetaDispensableDAO) {
+        this.recetaDispensableDAO = recetaDispensableDAO;
+    }
+
+    /** HU-F2: recetas en vigor de la tarjeta sanitaria, con una consulta por índice */
+    @Transactional(readOnly = true)
+    public List<RecetaDispensable> recetasEnVigor(String numeroTarjetaSanitaria, LocalDate hoy) {
+        return recetaDispensableDAO.findEnVigorPorTarjetaSanitaria(numeroTarjetaSanitaria, hoy);
+    }
+
+    /** Recetas planificadas nuevas de esas prescripciones */
+    @Transactional
+    public void recetasCreadas(Collection<Long> prescripcionIds) {
+        if (!prescripcionIds.isEmpty()) {
+            recetaDispensableDAO.rellenarDePrescripciones(prescripcionIds);
+        }
+    }
+
+    @Transactional
+    public void recetaServida(Long recetaId) {
+        recetaDispensableDAO.borrarReceta(recetaId);
+    }
+
+    @Transactional
+    public void recetasServidas(Collection<Long> recetaIds) {
+        if (!recetaIds.isEmpty()) {
+            recetaDispensableDAO.borrarRecetas(recetaIds);
+        }
+    }
+
+    @Transactional
+    public void recetasCaducadas(Collection<Long> recetaIds) {
+        if (!recetaIds.isEmpty()) {
+            recetaDispensableDAO.borrarRecetas(recetaIds);
+        }
+    }
+
+    @Transactional
+    public void prescripcionAnulada(Long prescripcionId) {
+        recetaDispensableDAO.borrarDePrescripcion(prescripcionId);
+    }
+
+    @Transactional
+    public void prescripcionesDeMedicoAnuladas(Long medicoId) {
+        recetaDispensableDAO.borrarDeMedico(medicoId);
+    }
+
+    @Transactional
+    public void prescripcionesDePacienteAnuladas(Long pacienteId) {
+        recetaDispensableDAO.borrarDePaciente(pacienteId);
+    }
+
+    @Transactional
+    public void pacienteModificado(Paciente p) {
+        recetaDispensableDAO.actualizarTarjeta(p.getId(), p.getNumeroTarjetaSanitaria());
+    }
+
+    @Transactional
+    public void medicoModificado(Medico m) {
+        recetaDispensableDAO.actualizarMedico(m.getId(), m.getNombre(), m.getApellidos());
+    }
+
+    @Transactional
+    public void medicamentoModificado(Medicamento m) {
+        recetaDispensableDAO.actualizarMedicamento(m.getId(), m.getNombreComercial(), m.getPrincipioActivo(),
+                m.getNumeroDosis());
+    }
+}
@@ -2,10 +2,14 @@ package es.uvigo.dagss.recetas.servicios;
 
 import es.uvigo.dagss.recetas.entidades.Farmacia;
 import es.uvigo.dagss.recetas.repositorios.FarmaciaDAO;
-import es.uvigo.dagss.recetas.repositorios.UsuarioDAO;
+import es.uvigo.dagss.recetas.servicios.dto.FarmaciaResumen;
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,23 +17,50 @@ import org.springframework.transaction.annotation.Transactional;
 public class FarmaciaService {
 
     private final FarmaciaDAO farmaciaDAO;
-    private final UsuarioDAO usuarioDAO;
+    private final CredencialService credencialService;
+    private final Paginacion paginacion;
 
     public FarmaciaService(FarmaciaDAO farmaciaDAO,
-                           UsuarioDAO usuarioDAO) {
+                           CredencialService credencialService,
+                           Paginacion paginacion) {
         this.farmaciaDAO = farmaciaDAO;
-        this.usuarioDAO = usuarioDAO;
+        this.credencialService = credencialService;
+        this.paginacion = paginacion;
     }
 
     /** HU-A6: listado */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Farmacia> listarActivas() {
         return farmaciaDAO.findByActivoTrueOrderByNombreEstablecimientoAsc();
     }
 
+    /** HU-A6: listado paginado por (nombreEstablecimiento, id) */
+    @Transactional(readOnly = true)
+    public Pagina<FarmaciaResumen> paginarActivas(String cursor, Integer tamano) {
+        int n = paginacion.tamano(tamano);
+        List<FarmaciaResumen> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = farmaciaDAO.findResumenesActivas(paginacion.limite(n));
+        } else {
+            String[] c = paginacion.leer(cursor, 2);
+            filas = farmaciaDAO.findResumenesActivasDespues(c[0], paginacion.leerId(c[1]), paginacion.limite(n));
+        }
+        return paginacion.pagina(filas, n, f -> new Object[] {f.nombreEstablecimiento(), f.id()});
+    }
+
+    /** HU-A6: listado completo en streaming, fila a fila */
+    @Transactional(readOnly = true)
+    public void recorrerActivas(Consumer<FarmaciaResumen> consumidor) {
+        try (Stream<FarmaciaResumen> filas = farmaciaDAO.streamResumenesActivas()) {
+            filas.forEach(consumidor);
+        }
+    }
+
     /** HU-A6: búsqueda por nombre/localidad (LIKE) */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
-    public List<Farmacia> buscarActivas(String texto) {
+    public List<FarmaciaResumen> buscarActivas(String texto) {
         String t = (texto == null || texto.isBlank()) ? null : texto.trim();
         return farmaciaDAO.buscarActivasPorNombreEstablecimientoOLocalidadLike(t);
     }
@@ -54,7 +85,7 @@ public class FarmaciaService {
         if (numeroColegiadoFarmaceutico == null || numeroColegiadoFarmaceutico.isBlank()) {
             throw new ValidacionException("nº colegiado obligatorio");
         }
-        if (usuarioDAO.existsByLogin(login.trim())) throw new ValidacionException("Ya existe un usuario con ese login");
+        if (credencialService.existeLogin(login.trim())) throw new ValidacionException("Ya existe un usuario con ese login");
 
         Farmacia f = new Farmacia();
         f.setLogin(login.trim());
@@ -72,7 +103,9 @@ public class FarmaciaService {
         f.setEmail(email);
         f.setActivo(true);
 
-        return farmaciaDAO.save(f);
+        f = farmaciaDAO.save(f);
+        credencialService.sincronizar(f);
+        return f;
     }
 
     /** HU-A6: edición por administrador */
@@ -107,7 +140,9 @@ public class FarmaciaService {
         f.setEmail(email);
         if (activo != null) f.setActivo(activo);
 
-        return farmaciaDAO.save(f);
+        f = farmaciaDAO.save(f);
+        credencialService.sincronizar(f);
+        return f;
     }
 
     /** HU-A6: baja  */
@@ -117,6 +152,7 @@ public class FarmaciaService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Farmacia no encontrada: " + id));
         f.setActivo(false);
         farmaciaDAO.save(f);
+        credencialService.sincronizar(f);
     }
 
     /** HU-F4: actualizar perfil  */
@@ -145,7 +181,9 @@ public class FarmaciaService {
         if (telefono != null) f.setTelefono(telefono);
         if (email != null) f.setEmail(email);
 
-        return farmaciaDAO.save(f);
+        f = farmaciaDAO.save(f);
+        credencialService.sincronizar(f);
+        return f;
     }
 
  
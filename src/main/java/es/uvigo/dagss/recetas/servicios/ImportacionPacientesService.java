@@ -0,0 +1,297 @@
+package es.uvigo.dagss.recetas.servicios;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Credencial;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
+import es.uvigo.dagss.recetas.repositorios.CredencialDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
+import es.uvigo.dagss.recetas.servicios.dto.FilaPaciente;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoImportacion;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoImportacion.ErrorImportacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * HU-A5: alta masiva de pacientes desde NDJSON (un objeto FilaPaciente por línea).
+ * Se procesa por lotes, cada lote en su transacción: las referencias y las claves únicas
+ * se comprueban con una consulta por lote y las inserciones van en batch JDBC.
+ */
+@Service
+public class ImportacionPacientesService {
+
+    private final PacienteDAO pacienteDAO;
+    private final CentroSaludDAO centroDAO;
+    private final MedicoDAO medicoDAO;
+    private final CredencialDAO credencialDAO;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+    private final int tamanoLote;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public ImportacionPacientesService(PacienteDAO pacienteDAO,
+                                       CentroSaludDAO centroDAO,
+                                       MedicoDAO medicoDAO,
+                                       CredencialDAO credencialDAO,
+                                       ObjectMapper objectMapper,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${recetas.importacion.tamano-lote:500}") int tamanoLote) {
+        this.pacienteDAO = pacienteDAO;
+        this.centroDAO = centroDAO;
+        this.medicoDAO = medicoDAO;
+        this.credencialDAO = credencialDAO;
+        this.objectMapper = objectMapper;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+    }
+
+    public ResultadoImportacion importar(Reader ndjson) {
+        Importacion imp = new Importacion();
+        List<Linea> lote = new ArrayList<>(tamanoLote);
+
+        try (BufferedReader in = new BufferedReader(ndjson)) {
+            String texto;
+            long numero = 0;
+            while ((texto = in.readLine()) != null) {
+                numero++;
+                if (texto.isBlank()) continue;
+                imp.leidas++;
+                try {
+                    FilaPaciente fila = objectMapper.readValue(texto, FilaPaciente.class);
+                    if (fila == null) {
+                        imp.error(numero, "línea vacía o no es un objeto");
+                    } else {
+                        lote.add(new Linea(numero, fila));
+                    }
+                } catch (JsonProcessingException e) {
+                    imp.error(numero, "JSON inválido: " + e.getOriginalMessage());
+                }
+                if (lote.size() >= tamanoLote) {
+                    procesarLote(lote, imp);
+                    lote.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!lote.isEmpty()) procesarLote(lote, imp);
+
+        imp.errores.sort(Comparator.comparingLong(ErrorImportacion::linea));
+        return new ResultadoImportacion(imp.leidas, imp.importadas, imp.errores);
+    }
+
+    /**
+     * Un lote en una transacción. Si la BD lo rechaza (p.ej. un alta concurrente con el mismo
+     * login, que las comprobaciones previas no ven) se repite fila a fila para saber cuál falla.
+     */
+    private void procesarLote(List<Linea> lote, Importacion imp) {
+        try {
+            imp.aceptar(transaccion.execute(estado -> insertarLote(lote, imp)));
+        } catch (DataAccessException | PersistenceException e) {
+            if (lote.size() == 1) {
+                imp.error(lote.get(0).numero, "Rechazado por la BD: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            } else {
+                for (Linea l : lote) procesarLote(List.of(l), imp);
+            }
+        }
+    }
+
+    /** Errores y claves del lote: pasan a la importación solo si el lote se confirma */
+    private Lote insertarLote(List<Linea> lote, Importacion imp) {
+        Lote r = new Lote();
+        for (Linea l : lote) {
+            l.valida = validarCampos(l, r);
+        }
+        if (lote.stream().noneMatch(l -> l.valida)) return r;
+
+        Set<String> logins = existentes(lote, l -> l.fila.login().trim(), credencialDAO::findLoginsExistentes);
+        Set<String> dnis = existentes(lote, l -> l.fila.dni(), pacienteDAO::findDnisExistentes);
+        Set<String> tarjetas = existentes(lote, l -> l.fila.numeroTarjetaSanitaria(), pacienteDAO::findTarjetasExistentes);
+        Set<String> numerosSS = existentes(lote, l -> l.fila.numeroSeguridadSocial(), pacienteDAO::findSeguridadSocialExistentes);
+
+        Map<Long, CentroSalud> centros = centroDAO.findAllById(ids(lote, l -> l.fila.centroSaludId())).stream()
+                .collect(Collectors.toMap(CentroSalud::getId, Function.identity()));
+        Map<Long, Medico> medicos = medicoDAO.findConCentroByIdIn(ids(lote, l -> l.fila.medicoId())).stream()
+                .collect(Collectors.toMap(Medico::getId, Function.identity()));
+
+        for (Linea l : lote) {
+            if (!l.valida) continue;
+            FilaPaciente f = l.fila;
+            String login = f.login().trim();
+
+            String error = null;
+            if (usada(login, logins, imp.claves.logins, r.claves.logins)) {
+                error = "Ya existe un usuario con ese login";
+            } else if (usada(f.dni(), dnis, imp.claves.dnis, r.claves.dnis)) {
+                error = "Ya existe un paciente con ese dni";
+            } else if (usada(f.numeroTarjetaSanitaria(), tarjetas, imp.claves.tarjetas, r.claves.tarjetas)) {
+                error = "Ya existe un paciente con esa tarjeta sanitaria";
+            } else if (usada(f.numeroSeguridadSocial(), numerosSS, imp.claves.numerosSS, r.claves.numerosSS)) {
+                error = "Ya existe un paciente con ese nº de seguridad social";
+            }
+
+            CentroSalud cs = centros.get(f.centroSaludId());
+            Medico m = medicos.get(f.medicoId());
+            if (error == null && cs == null) {
+                error = "Centro de salud no encontrado: " + f.centroSaludId();
+            } else if (error == null && m == null) {
+                error = "Médico no encontrado: " + f.medicoId();
+            } else if (error == null && (m.getCentroSalud() == null || !cs.getId().equals(m.getCentroSalud().getId()))) {
+                error = "El médico asignado debe pertenecer al centro de salud del paciente";
+            }
+            if (error != null) {
+                l.valida = false;
+                r.error(l.numero, error);
+                continue;
+            }
+            r.claves.anadir(login, f);
+
+            Paciente p = new Paciente();
+            p.setLogin(login);
+            p.setPassword(f.dni());
+            p.setNombre(f.nombre());
+            p.setApellidos(f.apellidos());
+            p.setDni(f.dni());
+            p.setNumeroTarjetaSanitaria(f.numeroTarjetaSanitaria());
+            p.setNumeroSeguridadSocial(f.numeroSeguridadSocial());
+            p.setDomicilio(f.domicilio());
+            p.setLocalidad(f.localidad());
+            p.setCodigoPostal(f.codigoPostal());
+            p.setProvincia(f.provincia());
+            p.setTelefono(f.telefono());
+            p.setEmail(f.email());
+            p.setFechaNacimiento(f.fechaNacimiento());
+            p.setCentroSalud(cs);
+            p.setMedicoAsignado(m);
+            p.setActivo(true);
+
+            em.persist(p);
+            em.persist(new Credencial(p));
+            r.insertadas++;
+        }
+
+        em.flush();
+        em.clear();
+        return r;
+    }
+
+    private boolean validarCampos(Linea l, Lote r) {
+        FilaPaciente f = l.fila;
+        String error = null;
+        if (f.login() == null || f.login().isBlank()) error = "login obligatorio";
+        else if (f.dni() == null || f.dni().isBlank()) error = "dni obligatorio";
+        else if (f.centroSaludId() == null) error = "centroSaludId obligatorio";
+        else if (f.medicoId() == null) error = "medicoId obligatorio";
+
+        if (error != null) r.error(l.numero, error);
+        return error == null;
+    }
+
+    private static Set<String> existentes(List<Linea> lote,
+                                          Function<Linea, String> clave,
+                                          Function<Set<String>, List<String>> consulta) {
+        Set<String> claves = lote.stream()
+                .filter(l -> l.valida)
+                .map(clave)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return claves.isEmpty() ? Set.of() : new HashSet<>(consulta.apply(claves));
+    }
+
+    /** Si el valor ya está en la BD, en un lote anterior del fichero o en este */
+    private static boolean usada(String valor, Set<String> enBd, Set<String> enFichero, Set<String> enLote) {
+        return valor != null && (enBd.contains(valor) || enFichero.contains(valor) || enLote.contains(valor));
+    }
+
+    private static Set<Long> ids(List<Linea> lote, Function<Linea, Long> id) {
+        return lote.stream().filter(l -> l.valida).map(id).collect(Collectors.toSet());
+    }
+
+    private static final class Linea {
+        final long numero;
+        final FilaPaciente fila;
+        boolean valida;
+
+        Linea(long numero, FilaPaciente fila) {
+            this.numero = numero;
+            this.fila = fila;
+        }
+    }
+
+    /** Estado de una importación: claves ya importadas del fichero y errores acumulados */
+    private static final class Importacion {
+        long leidas;
+        long importadas;
+        final List<ErrorImportacion> errores = new ArrayList<>();
+        final Claves claves = new Claves();
+
+        void error(long linea, String mensaje) {
+            errores.add(new ErrorImportacion(linea, mensaje));
+        }
+
+        void aceptar(Lote lote) {
+            importadas += lote.insertadas;
+            errores.addAll(lote.errores);
+            claves.anadirTodas(lote.claves);
+        }
+    }
+
+    /** Resultado de un lote aún sin confirmar */
+    private static final class Lote {
+        int insertadas;
+        final List<ErrorImportacion> errores = new ArrayList<>();
+        final Claves claves = new Claves();
+
+        void error(long linea, String mensaje) {
+            errores.add(new ErrorImportacion(linea, mensaje));
+        }
+    }
+
+    private static final class Claves {
+        final Set<String> logins = new HashSet<>();
+        final Set<String> dnis = new HashSet<>();
+        final Set<String> tarjetas = new HashSet<>();
+        final Set<String> numerosSS = new HashSet<>();
+
+        void anadir(String login, FilaPaciente f) {
+            logins.add(login);
+            dnis.add(f.dni());
+            if (f.numeroTarjetaSanitaria() != null) tarjetas.add(f.numeroTarjetaSanitaria());
+            if (f.numeroSeguridadSocial() != null) numerosSS.add(f.numeroSeguridadSocial());
+        }
+
+        void anadirTodas(Claves otras) {
+            logins.addAll(otras.logins);
+            dnis.addAll(otras.dnis);
+            tarjetas.addAll(otras.tarjetas);
+            numerosSS.addAll(otras.numerosSS);
+        }
+    }
+}
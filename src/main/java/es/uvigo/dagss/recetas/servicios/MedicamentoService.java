@@ -2,38 +2,73 @@ package es.uvigo.dagss.recetas.servicios;
 
 import es.uvigo.dagss.recetas.entidades.Medicamento;
 import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.servicios.busqueda.IndiceMedicamentos;
+import es.uvigo.dagss.recetas.servicios.busqueda.SugerenciasMedicamentos;
+import es.uvigo.dagss.recetas.servicios.dto.SugerenciaMedicamento;
+import es.uvigo.dagss.recetas.servicios.eventos.MedicamentoModificado;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
 import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class MedicamentoService {
 
+    public static final int MAX_SUGERENCIAS = 50;
+
     private final MedicamentoDAO medicamentoDAO;
+    private final IndiceMedicamentos indice;
+    private final SugerenciasMedicamentos sugerencias;
+    private final ApplicationEventPublisher eventos;
+    private final DispensacionService dispensacionService;
 
-    public MedicamentoService(MedicamentoDAO medicamentoDAO) {
+    public MedicamentoService(MedicamentoDAO medicamentoDAO,
+                              IndiceMedicamentos indice,
+                              SugerenciasMedicamentos sugerencias,
+                              ApplicationEventPublisher eventos,
+                              DispensacionService dispensacionService) {
         this.medicamentoDAO = medicamentoDAO;
+        this.indice = indice;
+        this.sugerencias = sugerencias;
+        this.eventos = eventos;
+        this.dispensacionService = dispensacionService;
     }
 
     /** HU-A8: listado */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Medicamento> listarActivos() {
         return medicamentoDAO.findByActivoTrueOrderByNombreComercialAsc();
     }
 
-    /** HU-A8  y HU-M4: buscador LIKE en nombre/principio/fabricante/familia */
-    @Transactional(readOnly = true)
+    /**
+     * HU-A8  y HU-M4: buscador en nombre/principio/fabricante/familia.
+     * Sin texto devuelve el listado; con texto se resuelve en el índice en memoria,
+     * sin tildes, con todos los términos y ordenado por relevancia.
+     */
     public List<Medicamento> buscarActivos(String texto) {
-        String t = (texto == null || texto.isBlank()) ? null : texto.trim();
-        return medicamentoDAO.buscarActivosLike(t);
+        if (texto == null || texto.isBlank()) {
+            return medicamentoDAO.findByActivoTrueOrderByNombreComercialAsc();
+        }
+        return indice.buscar(texto);
+    }
+
+    /** HU-M4: autocompletado, como mucho MAX_SUGERENCIAS por petición */
+    public List<SugerenciaMedicamento> sugerir(String prefijo, int limite) {
+        if (prefijo == null || prefijo.isBlank()) return List.of();
+        int n = Math.max(1, Math.min(limite, MAX_SUGERENCIAS));
+        return sugerencias.sugerir(prefijo, n);
     }
 
     /** HU-A8: alta */
     @Transactional
     public Medicamento crear(Medicamento m) {
         m.setActivo(true);
-        return medicamentoDAO.save(m);
+        m = medicamentoDAO.save(m);
+        eventos.publishEvent(new MedicamentoModificado(m));
+        return m;
     }
 
     /** HU-A8: edición */
@@ -49,7 +84,10 @@ public class MedicamentoService {
         m.setNumeroDosis(datos.getNumeroDosis());
         if (datos.getActivo() != null) m.setActivo(datos.getActivo());
 
-        return medicamentoDAO.save(m);
+        m = medicamentoDAO.save(m);
+        dispensacionService.medicamentoModificado(m);
+        eventos.publishEvent(new MedicamentoModificado(m));
+        return m;
     }
 
     /** HU-A8: baja  */
@@ -59,7 +97,6 @@ public class MedicamentoService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Medicamento no encontrado: " + id));
         m.setActivo(false);
         medicamentoDAO.save(m);
+        eventos.publishEvent(new MedicamentoModificado(m));
     }
-
- 
 }
@@ -1,14 +1,21 @@
 package es.uvigo.dagss.recetas.servicios;
 
-import es.uvigo.dagss.recetas.entidades.CentroSalud;
 import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.TipoReferencia;
 import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
 import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
-import es.uvigo.dagss.recetas.repositorios.UsuarioDAO;
+import es.uvigo.dagss.recetas.servicios.dto.MedicoResumen;
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
+import es.uvigo.dagss.recetas.servicios.eventos.ReferenciaModificada;
 import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheReferencias;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,31 +24,72 @@ public class MedicoService {
 
     private final MedicoDAO medicoRepository;
     private final CentroSaludDAO centroSaludRepository;
-    private final UsuarioDAO usuarioRepository;
+    private final CredencialService credencialService;
+    private final Paginacion paginacion;
+    private final PrescripcionService prescripcionService;
+    private final DispensacionService dispensacionService;
+    private final CacheReferencias referencias;
+    private final ApplicationEventPublisher eventos;
 
     public MedicoService(MedicoDAO medicoRepository,
                          CentroSaludDAO centroSaludRepository,
-                         UsuarioDAO usuarioRepository) {
+                         CredencialService credencialService,
+                         Paginacion paginacion,
+                         PrescripcionService prescripcionService,
+                         DispensacionService dispensacionService,
+                         CacheReferencias referencias,
+                         ApplicationEventPublisher eventos) {
         this.medicoRepository = medicoRepository;
         this.centroSaludRepository = centroSaludRepository;
-        this.usuarioRepository = usuarioRepository;
+        this.credencialService = credencialService;
+        this.paginacion = paginacion;
+        this.prescripcionService = prescripcionService;
+        this.dispensacionService = dispensacionService;
+        this.referencias = referencias;
+        this.eventos = eventos;
     }
 
     /** HU-A4: listado */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Medico> listarActivos() {
-        return medicoRepository.findByActivoTrueOrderByApellidosAscNombreAsc();
+        return medicoRepository.findActivosConCentro();
+    }
+
+    /** HU-A4: listado paginado por (apellidos, nombre, id) */
+    @PresupuestoConsultas(1)
+    @Transactional(readOnly = true)
+    public Pagina<MedicoResumen> paginarActivos(String cursor, Integer tamano) {
+        int n = paginacion.tamano(tamano);
+        List<MedicoResumen> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = medicoRepository.findResumenesActivos(paginacion.limite(n));
+        } else {
+            String[] c = paginacion.leer(cursor, 3);
+            filas = medicoRepository.findResumenesActivosDespues(c[0], c[1], paginacion.leerId(c[2]), paginacion.limite(n));
+        }
+        return paginacion.pagina(filas, n, m -> new Object[] {m.apellidos(), m.nombre(), m.id()});
+    }
+
+    /** HU-A4: listado completo en streaming, fila a fila */
+    @Transactional(readOnly = true)
+    public void recorrerActivos(Consumer<MedicoResumen> consumidor) {
+        try (Stream<MedicoResumen> filas = medicoRepository.streamResumenesActivos()) {
+            filas.forEach(consumidor);
+        }
     }
 
     /** HU-A4: búsqueda por nombre/localidad/centro */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
-    public List<Medico> buscarActivos(String nombre, String localidad, Long centroId) {
+    public List<MedicoResumen> buscarActivos(String nombre, String localidad, Long centroId) {
         String n = (nombre == null || nombre.isBlank()) ? null : nombre.trim();
         String l = (localidad == null || localidad.isBlank()) ? null : localidad.trim();
         return medicoRepository.buscarActivos(n, l, centroId);
     }
 
     /** HU-A5 (desplegable): médicos activos de un centro */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Medico> medicosActivosDeCentro(Long centroId) {
         return medicoRepository.findActivosByCentro(centroId);
@@ -60,10 +108,9 @@ public class MedicoService {
 
         if (login == null || login.isBlank()) throw new ValidacionException("login obligatorio");
         if (numeroColegiado == null || numeroColegiado.isBlank()) throw new ValidacionException("nº colegiado obligatorio");
-        if (usuarioRepository.existsByLogin(login.trim())) throw new ValidacionException("Ya existe un usuario con ese login");
+        if (credencialService.existeLogin(login.trim())) throw new ValidacionException("Ya existe un usuario con ese login");
 
-        CentroSalud cs = centroSaludRepository.findById(centroSaludId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Centro de salud no encontrado: " + centroSaludId));
+        referencias.centroSalud(centroSaludId);
 
         Medico m = new Medico();
         m.setLogin(login.trim());
@@ -74,10 +121,12 @@ public class MedicoService {
         m.setNumeroColegiado(numeroColegiado);
         m.setTelefono(telefono);
         m.setEmail(email);
-        m.setCentroSalud(cs);
+        m.setCentroSalud(centroSaludRepository.getReferenceById(centroSaludId));
         m.setActivo(true);
 
-        return medicoRepository.save(m);
+        m = medicoRepository.save(m);
+        credencialService.sincronizar(m);
+        return m;
     }
 
     /** HU-A4: edición (incluye cambio de centro) */
@@ -96,9 +145,8 @@ public class MedicoService {
                 .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado: " + id));
 
         if (centroSaludId != null) {
-            CentroSalud cs = centroSaludRepository.findById(centroSaludId)
-                    .orElseThrow(() -> new RecursoNoEncontradoException("Centro de salud no encontrado: " + centroSaludId));
-            m.setCentroSalud(cs);
+            referencias.centroSalud(centroSaludId);
+            m.setCentroSalud(centroSaludRepository.getReferenceById(centroSaludId));
         }
 
         m.setNombre(nombre);
@@ -109,16 +157,23 @@ public class MedicoService {
         m.setEmail(email);
         if (activo != null) m.setActivo(activo);
 
-        return medicoRepository.save(m);
+        m = medicoRepository.save(m);
+        credencialService.sincronizar(m);
+        dispensacionService.medicoModificado(m);
+        eventos.publishEvent(new ReferenciaModificada(TipoReferencia.MEDICO, m.getId()));
+        return m;
     }
 
-    /** HU-A4: baja lógica */
+    /** HU-A4: baja lógica, anula también sus prescripciones activas */
     @Transactional
     public void baja(Long id) {
         Medico m = medicoRepository.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado: " + id));
         m.setActivo(false);
         medicoRepository.save(m);
+        credencialService.sincronizar(m);
+        prescripcionService.anularPrescripcionesDeMedico(id);
+        eventos.publishEvent(new ReferenciaModificada(TipoReferencia.MEDICO, id));
     }
 
     /** HU-M6: perfil (no permite cambiar centro) */
@@ -142,7 +197,11 @@ public class MedicoService {
         if (telefono != null) m.setTelefono(telefono);
         if (email != null) m.setEmail(email);
 
-        return medicoRepository.save(m);
+        m = medicoRepository.save(m);
+        credencialService.sincronizar(m);
+        dispensacionService.medicoModificado(m);
+        eventos.publishEvent(new ReferenciaModificada(TipoReferencia.MEDICO, m.getId()));
+        return m;
     }
 
   
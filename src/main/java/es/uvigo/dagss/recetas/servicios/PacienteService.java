@@ -1,16 +1,21 @@
 package es.uvigo.dagss.recetas.servicios;
 
 import es.uvigo.dagss.recetas.entidades.CentroSalud;
-import es.uvigo.dagss.recetas.entidades.Medico;
 import es.uvigo.dagss.recetas.entidades.Paciente;
 import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
 import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
 import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
-import es.uvigo.dagss.recetas.repositorios.UsuarioDAO;
+import es.uvigo.dagss.recetas.servicios.dto.MedicoReferencia;
+import es.uvigo.dagss.recetas.servicios.dto.PacienteResumen;
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
 import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheReferencias;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,27 +25,64 @@ public class PacienteService {
     private final PacienteDAO pacienteDAO;
     private final CentroSaludDAO centroDAO;
     private final MedicoDAO medicoDAO;
-    private final UsuarioDAO usuarioDAO;
+    private final CredencialService credencialService;
+    private final Paginacion paginacion;
+    private final PrescripcionService prescripcionService;
+    private final DispensacionService dispensacionService;
+    private final CacheReferencias referencias;
 
     public PacienteService(PacienteDAO pacienteRepository,
                            CentroSaludDAO centroSaludRepository,
                            MedicoDAO medicoRepository,
-                           UsuarioDAO usuarioRepository) {
+                           CredencialService credencialService,
+                           Paginacion paginacion,
+                           PrescripcionService prescripcionService,
+                           DispensacionService dispensacionService,
+                           CacheReferencias referencias) {
         this.pacienteDAO = pacienteRepository;
         this.centroDAO = centroSaludRepository;
         this.medicoDAO = medicoRepository;
-        this.usuarioDAO = usuarioRepository;
+        this.credencialService = credencialService;
+        this.paginacion = paginacion;
+        this.prescripcionService = prescripcionService;
+        this.dispensacionService = dispensacionService;
+        this.referencias = referencias;
     }
 
     /** HU-A5: listado */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Paciente> listarActivos() {
-        return pacienteDAO.findByActivoTrueOrderByApellidosAscNombreAsc();
+        return pacienteDAO.findActivosConCentroYMedico();
+    }
+
+    /** HU-A5: listado paginado por (apellidos, nombre, id) */
+    @PresupuestoConsultas(1)
+    @Transactional(readOnly = true)
+    public Pagina<PacienteResumen> paginarActivos(String cursor, Integer tamano) {
+        int n = paginacion.tamano(tamano);
+        List<PacienteResumen> filas;
+        if (cursor == null || cursor.isBlank()) {
+            filas = pacienteDAO.findResumenesActivos(paginacion.limite(n));
+        } else {
+            String[] c = paginacion.leer(cursor, 3);
+            filas = pacienteDAO.findResumenesActivosDespues(c[0], c[1], paginacion.leerId(c[2]), paginacion.limite(n));
+        }
+        return paginacion.pagina(filas, n, p -> new Object[] {p.apellidos(), p.nombre(), p.id()});
+    }
+
+    /** HU-A5: listado completo en streaming, fila a fila */
+    @Transactional(readOnly = true)
+    public void recorrerActivos(Consumer<PacienteResumen> consumidor) {
+        try (Stream<PacienteResumen> filas = pacienteDAO.streamResumenesActivos()) {
+            filas.forEach(consumidor);
+        }
     }
 
     /** HU-A5: búsqueda por nombre/localidad/centro/médico */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
-    public List<Paciente> buscarActivos(String nombre, String localidad, Long centroId, Long medicoId) {
+    public List<PacienteResumen> buscarActivos(String nombre, String localidad, Long centroId, Long medicoId) {
         String n = (nombre == null || nombre.isBlank()) ? null : nombre.trim();
         String l = (localidad == null || localidad.isBlank()) ? null : localidad.trim();
         return pacienteDAO.buscarActivos(n, l, centroId, medicoId);
@@ -68,15 +110,13 @@ public class PacienteService {
 
         if (login == null || login.isBlank()) throw new ValidacionException("login obligatorio");
         if (dni == null || dni.isBlank()) throw new ValidacionException("dni obligatorio");
-        if (usuarioDAO.existsByLogin(login.trim())) throw new ValidacionException("Ya existe un usuario con ese login");
-
-        CentroSalud cs = centroDAO.findById(centroSaludId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Centro de salud no encontrado: " + centroSaludId));
+        if (credencialService.existeLogin(login.trim())) throw new ValidacionException("Ya existe un usuario con ese login");
 
-        Medico m = medicoDAO.findById(medicoId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado: " + medicoId));
+        // centro y médico se validan con CacheReferencias y se enlazan sin SELECT
+        referencias.centroSalud(centroSaludId);
+        MedicoReferencia m = referencias.medico(medicoId);
 
-        if (m.getCentroSalud() == null || cs.getId() == null || !cs.getId().equals(m.getCentroSalud().getId())) {
+        if (!centroSaludId.equals(m.centroSaludId())) {
             throw new OperacionNoPermitidaException("El médico asignado debe pertenecer al centro de salud del paciente");
         }
 
@@ -95,11 +135,13 @@ public class PacienteService {
         p.setTelefono(telefono);
         p.setEmail(email);
         p.setFechaNacimiento(fechaNacimiento);
-        p.setCentroSalud(cs);
-        p.setMedicoAsignado(m);
+        p.setCentroSalud(centroDAO.getReferenceById(centroSaludId));
+        p.setMedicoAsignado(medicoDAO.getReferenceById(medicoId));
         p.setActivo(true);
 
-        return pacienteDAO.save(p);
+        p = pacienteDAO.save(p);
+        credencialService.sincronizar(p);
+        return p;
     }
 
     /** HU-A5: edición por administrador  */
@@ -126,20 +168,18 @@ public class PacienteService {
 
         CentroSalud cs = p.getCentroSalud();
         if (centroSaludId != null) {
-            cs = centroDAO.findById(centroSaludId)
-                    .orElseThrow(() -> new RecursoNoEncontradoException("Centro de salud no encontrado: " + centroSaludId));
+            referencias.centroSalud(centroSaludId);
+            cs = centroDAO.getReferenceById(centroSaludId);
             p.setCentroSalud(cs);
         }
 
         if (medicoId != null) {
-            Medico m = medicoDAO.findById(medicoId)
-                    .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado: " + medicoId));
+            MedicoReferencia m = referencias.medico(medicoId);
 
-            if (m.getCentroSalud() == null || cs == null || cs.getId() == null ||
-                !cs.getId().equals(m.getCentroSalud().getId())) {
+            if (cs == null || !cs.getId().equals(m.centroSaludId())) {
                 throw new OperacionNoPermitidaException("El médico asignado debe pertenecer al centro de salud del paciente");
             }
-            p.setMedicoAsignado(m);
+            p.setMedicoAsignado(medicoDAO.getReferenceById(medicoId));
         }
 
         p.setNombre(nombre);
@@ -156,16 +196,21 @@ public class PacienteService {
         p.setFechaNacimiento(fechaNacimiento);
         if (activo != null) p.setActivo(activo);
 
-        return pacienteDAO.save(p);
+        p = pacienteDAO.save(p);
+        credencialService.sincronizar(p);
+        dispensacionService.pacienteModificado(p);
+        return p;
     }
 
-    /** HU-A5: baja  */
+    /** HU-A5: baja, anula también sus prescripciones activas */
     @Transactional
     public void baja(Long id) {
         Paciente p = pacienteDAO.findById(id)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado: " + id));
         p.setActivo(false);
         pacienteDAO.save(p);
+        credencialService.sincronizar(p);
+        prescripcionService.anularPrescripcionesDePaciente(id);
     }
 
     /** HU-P5: perfil  */
@@ -197,7 +242,9 @@ public class PacienteService {
         if (telefono != null) p.setTelefono(telefono);
         if (email != null) p.setEmail(email);
 
-        return pacienteDAO.save(p);
+        p = pacienteDAO.save(p);
+        credencialService.sincronizar(p);
+        return p;
     }
 
     @Transactional(readOnly = true)
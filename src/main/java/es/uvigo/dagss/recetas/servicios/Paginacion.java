@@ -0,0 +1,83 @@
+package es.uvigo.dagss.recetas.servicios;
+
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
+import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Paginación por clave (keyset) de los listados: el cursor codifica los valores de ordenación
+ * del último elemento devuelto y la consulta siguiente empieza justo después, sin OFFSET.
+ */
+@Component
+public class Paginacion {
+
+    private static final char SEPARADOR = '\u001f';
+    private static final Pattern PARTES = Pattern.compile(String.valueOf(SEPARADOR));
+
+    private final int tamanoPorDefecto;
+    private final int tamanoMaximo;
+
+    public Paginacion(@Value("${recetas.paginacion.tamano-defecto:50}") int tamanoPorDefecto,
+                      @Value("${recetas.paginacion.tamano-maximo:500}") int tamanoMaximo) {
+        this.tamanoPorDefecto = tamanoPorDefecto;
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    public int tamano(Integer pedido) {
+        if (pedido == null) return tamanoPorDefecto;
+        if (pedido < 1) throw new ValidacionException("El tamaño de página debe ser positivo");
+        return Math.min(pedido, tamanoMaximo);
+    }
+
+    /** Se pide un elemento más de los que caben para saber si hay página siguiente */
+    public Limit limite(int tamano) {
+        return Limit.of(tamano + 1);
+    }
+
+    public <T> Pagina<T> pagina(List<T> filas, int tamano, Function<T, Object[]> clave) {
+        if (filas.size() <= tamano) return Pagina.unica(filas);
+        List<T> elementos = filas.subList(0, tamano);
+        return new Pagina<>(elementos, codificar(clave.apply(elementos.get(tamano - 1))));
+    }
+
+    /** Valores del cursor, null en los campos que eran null; falla si no tiene {@code n} valores */
+    public String[] leer(String cursor, int n) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = PARTES.split(texto, -1);
+            if (partes.length != n) throw new IllegalArgumentException();
+            String[] valores = new String[n];
+            for (int i = 0; i < n; i++) {
+                if (partes[i].isEmpty()) throw new IllegalArgumentException();
+                valores[i] = partes[i].charAt(0) == '-' ? null : partes[i].substring(1);
+            }
+            return valores;
+        } catch (IllegalArgumentException e) {
+            throw new ValidacionException("Cursor de página inválido");
+        }
+    }
+
+    public Long leerId(String valor) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new ValidacionException("Cursor de página inválido");
+        }
+    }
+
+    private static String codificar(Object[] valores) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) sb.append(SEPARADOR);
+            sb.append(valores[i] == null ? "-" : "+" + valores[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
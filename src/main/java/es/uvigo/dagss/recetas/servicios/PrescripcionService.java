@@ -1,8 +1,6 @@
 package es.uvigo.dagss.recetas.servicios;
 
 import es.uvigo.dagss.recetas.entidades.EstadoReceta;
-import es.uvigo.dagss.recetas.entidades.Medico;
-import es.uvigo.dagss.recetas.entidades.Medicamento;
 import es.uvigo.dagss.recetas.entidades.Paciente;
 import es.uvigo.dagss.recetas.entidades.Prescripcion;
 import es.uvigo.dagss.recetas.entidades.Receta;
@@ -10,36 +8,70 @@ import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
 import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
 import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
 import es.uvigo.dagss.recetas.repositorios.PrescripcionDAO;
+import es.uvigo.dagss.recetas.repositorios.RecetaDAO;
+import es.uvigo.dagss.recetas.servicios.dto.MedicamentoReferencia;
 import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
+import es.uvigo.dagss.recetas.servicios.plan.CalculoPlan;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheReferencias;
+import es.uvigo.dagss.recetas.servicios.tareas.BloqueoTareas;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class PrescripcionService {
 
+    /** Límite de planificación cuando no hay ventana: el plan se genera entero */
+    private static final LocalDate SIN_LIMITE = LocalDate.of(9999, 12, 31);
+    private static final int LOTE_AMPLIACION = 100;
+    private static final Duration MAXIMO_AMPLIACION = Duration.ofHours(2);
+
     private final PrescripcionDAO prescripcionDAO;
     private final MedicamentoDAO medicamentoDAO;
     private final PacienteDAO pacienteDAO;
     private final MedicoDAO medicoDAO;
+    private final RecetaDAO recetaDAO;
+    private final DispensacionService dispensacionService;
+    private final CacheReferencias referencias;
+    private final BloqueoTareas bloqueoTareas;
+    private final TransactionTemplate transaccion;
+    private final int ventanaSemanas;
 
     public PrescripcionService(PrescripcionDAO prescripcionDAO,
                                MedicamentoDAO medicamentoDAO,
                                PacienteDAO pacienteDAO,
-                               MedicoDAO medicoDAO) {
+                               MedicoDAO medicoDAO,
+                               RecetaDAO recetaDAO,
+                               DispensacionService dispensacionService,
+                               CacheReferencias referencias,
+                               BloqueoTareas bloqueoTareas,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${recetas.plan.ventana-semanas:0}") int ventanaSemanas) {
         this.prescripcionDAO = prescripcionDAO;
         this.medicamentoDAO = medicamentoDAO;
         this.pacienteDAO = pacienteDAO;
         this.medicoDAO = medicoDAO;
+        this.recetaDAO = recetaDAO;
+        this.dispensacionService = dispensacionService;
+        this.referencias = referencias;
+        this.bloqueoTareas = bloqueoTareas;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.ventanaSemanas = ventanaSemanas;
     }
 
     /** HU-M3: prescripciones en vigor del paciente */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Prescripcion> prescripcionesEnVigor(Long pacienteId, LocalDate hoy) {
         return prescripcionDAO.findEnVigorDePaciente(pacienteId, hoy);
@@ -49,6 +81,7 @@ public class PrescripcionService {
      * 
      * 1 caja por rect
     */
+    @PresupuestoConsultas(8)
     @Transactional
     public Prescripcion crearPrescripcion(Long medicoId,
                                           Long pacienteId,
@@ -63,32 +96,76 @@ public class PrescripcionService {
         LocalDate hoy = LocalDate.now();
         if (fechaFin.isBefore(hoy)) throw new ValidacionException("fechaFin no puede ser anterior a hoy");
 
-        Medico medico = medicoDAO.findById(medicoId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Médico no encontrado: " + medicoId));
+        // médico y medicamento se validan con CacheReferencias y se enlazan sin SELECT
+        referencias.medico(medicoId);
+        MedicamentoReferencia medicamento = referencias.medicamento(medicamentoId);
 
         Paciente paciente = pacienteDAO.findById(pacienteId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Paciente no encontrado: " + pacienteId));
 
-        Medicamento medicamento = medicamentoDAO.findById(medicamentoId)
-                .orElseThrow(() -> new RecursoNoEncontradoException("Medicamento no encontrado: " + medicamentoId));
-
         Prescripcion p = new Prescripcion();
-        p.setMedico(medico);
+        p.setMedico(medicoDAO.getReferenceById(medicoId));
         p.setPaciente(paciente);
-        p.setMedicamento(medicamento);
+        p.setMedicamento(medicamentoDAO.getReferenceById(medicamentoId));
         p.setDosisDiaria(dosisDiaria);
         p.setIndicaciones(indicaciones);
         p.setFechaInicio(hoy);
         p.setFechaFin(fechaFin);
         p.setActiva(true);
+        p.setSiguienteReceta(0);
 
-        List<Receta> plan = generarPlanRecetas(p);
+        List<Receta> plan = generarPlanRecetas(p, medicamento.numeroDosis(), limitePlan(hoy));
         p.getRecetas().addAll(plan);
 
-        return prescripcionDAO.save(p);
+        p = prescripcionDAO.save(p);
+        dispensacionService.recetasCreadas(List.of(p.getId()));
+        return p;
+    }
+
+    /**
+     * HU-M5: con plan por ventana, genera las recetas de los planes activos que entran en la
+     * ventana. Se ejecuta a diario, en un solo nodo; cada lote de prescripciones va en su propia
+     * transacción.
+     */
+    @Scheduled(cron = "${recetas.plan.cron:0 30 2 * * *}")
+    public void ampliarPlanes() {
+        bloqueoTareas.ejecutar("ampliacion-planes", MAXIMO_AMPLIACION, () -> ampliarPlanes(LocalDate.now()));
+    }
+
+    /** Devuelve el número de recetas generadas */
+    public int ampliarPlanes(LocalDate hoy) {
+        LocalDate limite = limitePlan(hoy);
+        int total = 0;
+        int[] lote;
+        do {
+            lote = transaccion.execute(tx -> ampliarLote(limite));
+            total += lote[1];
+        } while (lote[0] == LOTE_AMPLIACION);
+        return total;
+    }
+
+    /** Prescripciones ampliadas y recetas generadas */
+    private int[] ampliarLote(LocalDate limite) {
+        List<Prescripcion> planes = prescripcionDAO.findPlanesPorAmpliar(limite, Limit.of(LOTE_AMPLIACION));
+        List<Receta> nuevas = new ArrayList<>();
+        for (Prescripcion p : planes) {
+            // sin pasar por p.getRecetas(), que cargaría las ya generadas, ni cargar el medicamento
+            Integer numeroDosis = referencias.medicamento(p.getMedicamento().getId()).numeroDosis();
+            nuevas.addAll(generarPlanRecetas(p, numeroDosis, limite));
+        }
+        recetaDAO.saveAll(nuevas);
+        if (!nuevas.isEmpty()) {
+            dispensacionService.recetasCreadas(planes.stream().map(Prescripcion::getId).toList());
+        }
+        return new int[] {planes.size(), nuevas.size()};
     }
 
-    /** HU-M3: anular prescripción y recetas asociadas*/
+    private LocalDate limitePlan(LocalDate hoy) {
+        return ventanaSemanas > 0 ? hoy.plusWeeks(ventanaSemanas) : SIN_LIMITE;
+    }
+
+    /** HU-M3: anular prescripción y sus recetas planificadas (las servidas no se tocan) */
+    @PresupuestoConsultas(4)
     @Transactional
     public void anularPrescripcion(Long prescripcionId, Long medicoId) {
         Prescripcion p = prescripcionDAO.findById(prescripcionId)
@@ -99,23 +176,61 @@ public class PrescripcionService {
         }
 
         p.setActiva(false);
+        p.setSiguienteReceta(null);
+        p.setFechaSiguienteReceta(null);
 
-        for (Receta r : p.getRecetas()) {
-            r.setEstado(EstadoReceta.ANULADA);
-            r.setFarmacia(null);
-        }
+        // un UPDATE para todas las recetas; guarda antes p y después vacía el contexto de persistencia
+        recetaDAO.anularPlanificadasDePrescripcion(p.getId());
+        dispensacionService.prescripcionAnulada(p.getId());
+    }
+
+    /** HU-A4: baja de médico, anula sus prescripciones activas. Devuelve las recetas anuladas */
+    @Transactional
+    public int anularPrescripcionesDeMedico(Long medicoId) {
+        int recetas = recetaDAO.anularPlanificadasDeMedico(medicoId);
+        prescripcionDAO.desactivarDeMedico(medicoId);
+        dispensacionService.prescripcionesDeMedicoAnuladas(medicoId);
+        return recetas;
+    }
+
+    /** HU-A5: baja de paciente, anula sus prescripciones activas. Devuelve las recetas anuladas */
+    @Transactional
+    public int anularPrescripcionesDePaciente(Long pacienteId) {
+        int recetas = recetaDAO.anularPlanificadasDePaciente(pacienteId);
+        prescripcionDAO.desactivarDePaciente(pacienteId);
+        dispensacionService.prescripcionesDePacienteAnuladas(pacienteId);
+        return recetas;
+    }
 
-        prescripcionDAO.save(p);
+    /**
+     * HU-P4: recetas de los planes por ventana del paciente que todavía no se han generado, sin
+     * guardar (id null), con su prescripción, medicamento y médico.
+     */
+    @Transactional(readOnly = true)
+    public List<Receta> recetasPorGenerar(Long pacienteId) {
+        List<Receta> recetas = new ArrayList<>();
+        for (Prescripcion p : prescripcionDAO.findConPlanPendienteDePaciente(pacienteId)) {
+            recetas.addAll(tramoPlan(p, p.getMedicamento().getNumeroDosis(), SIN_LIMITE).recetas());
+        }
+        return recetas;
     }
 
     /**
      * HU-M5: generación semanal de recetas con margen de 1 semana 
      *  1 caja por receta.
-     * 
+     * Genera desde la receta p.siguienteReceta las que se pueden servir a partir de {@code limite}
+     * o antes, y deja apuntada la siguiente, o null si ya se ha llegado al final del plan.
      */
-    private List<Receta> generarPlanRecetas(Prescripcion p) {
-        Medicamento med = p.getMedicamento();
-        if (med.getNumeroDosis() == null || med.getNumeroDosis() <= 0) {
+    private List<Receta> generarPlanRecetas(Prescripcion p, Integer numeroDosis, LocalDate limite) {
+        TramoPlan tramo = tramoPlan(p, numeroDosis, limite);
+        p.setSiguienteReceta(tramo.siguiente());
+        p.setFechaSiguienteReceta(tramo.fechaSiguiente());
+        return tramo.recetas();
+    }
+
+    /** Recetas del plan desde p.siguienteReceta hasta {@code limite}, sin tocar p */
+    private static TramoPlan tramoPlan(Prescripcion p, Integer numeroDosis, LocalDate limite) {
+        if (numeroDosis == null || numeroDosis <= 0) {
             throw new ValidacionException("El medicamento debe tener numeroDosis > 0");
         }
 
@@ -123,21 +238,12 @@ public class PrescripcionService {
         LocalDate fin = p.getFechaFin();
 
         long dias = java.time.temporal.ChronoUnit.DAYS.between(inicio, fin) + 1; // inclusivo
-        BigDecimal bdDias = new BigDecimal(dias);
-        BigDecimal bdDosis = BigDecimal.valueOf(p.getDosisDiaria());
-        BigDecimal bdDosisEnvase = BigDecimal.valueOf(med.getNumeroDosis());
-
-        BigDecimal totalUnidades = bdDias.multiply(bdDosis);
-        int cajas = totalUnidades.divide(bdDosisEnvase, 0, RoundingMode.CEILING).intValueExact();
-        if (cajas < 1) cajas = 1;
-
-        BigDecimal diasPorCaja = bdDosisEnvase.divide(bdDosis, 8, RoundingMode.HALF_UP);
+        CalculoPlan calculo = CalculoPlan.de(dias, p.getDosisDiaria(), numeroDosis);
 
         List<Receta> recetas = new ArrayList<>();
 
-        for (int i = 0; i < cajas; i++) {
-            BigDecimal offset = diasPorCaja.multiply(BigDecimal.valueOf(i));
-            long offsetDias = offset.setScale(0, RoundingMode.FLOOR).longValue(); // recoger un poco antes, mejor que tarde
+        for (int i = p.getSiguienteReceta(); i < calculo.cajas(); i++) {
+            long offsetDias = calculo.desplazamiento(i); // recoger un poco antes, mejor que tarde
             LocalDate fechaExacta = inicio.plusDays(offsetDias);
 
             LocalDate valIni = (i == 0) ? fechaExacta : fechaExacta.minusWeeks(1);
@@ -145,6 +251,10 @@ public class PrescripcionService {
 
             if (valIni.isBefore(inicio)) valIni = inicio;
 
+            if (valIni.isAfter(limite)) {
+                return new TramoPlan(recetas, i, valIni);
+            }
+
             Receta r = new Receta();
             r.setPrescripcion(p);
             r.setFechaValidezInicial(valIni);
@@ -156,6 +266,10 @@ public class PrescripcionService {
             recetas.add(r);
         }
 
-        return recetas;
+        return new TramoPlan(recetas, null, null);
+    }
+
+    /** Recetas de un tramo del plan y la siguiente por generar, null al final del plan */
+    private record TramoPlan(List<Receta> recetas, Integer siguiente, LocalDate fechaSiguiente) {
     }
 }
@@ -3,51 +3,83 @@ package es.uvigo.dagss.recetas.servicios;
 import es.uvigo.dagss.recetas.entidades.EstadoReceta;
 import es.uvigo.dagss.recetas.entidades.Farmacia;
 import es.uvigo.dagss.recetas.entidades.Receta;
+import es.uvigo.dagss.recetas.entidades.RecetaDispensable;
 import es.uvigo.dagss.recetas.repositorios.FarmaciaDAO;
 import es.uvigo.dagss.recetas.repositorios.RecetaDAO;
+import es.uvigo.dagss.recetas.servicios.excepciones.ConflictoException;
 import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoDispensacion;
 import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
+import es.uvigo.dagss.recetas.servicios.excepciones.ValidacionException;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RecetaService {
 
+    public static final int MAX_RECETAS_DISPENSACION = 50;
+
     private final RecetaDAO recetaDAO;
     private final FarmaciaDAO farmaciaDAO;
+    private final DispensacionService dispensacionService;
+    private final PrescripcionService prescripcionService;
 
     public RecetaService(RecetaDAO recetaDAO,
-                         FarmaciaDAO farmaciaDAO) {
+                         FarmaciaDAO farmaciaDAO,
+                         DispensacionService dispensacionService,
+                         PrescripcionService prescripcionService) {
         this.recetaDAO = recetaDAO;
         this.farmaciaDAO = farmaciaDAO;
+        this.dispensacionService = dispensacionService;
+        this.prescripcionService = prescripcionService;
     }
 
-    /** HU-P4: recetas pendientes de recoger del paciente */
+    /**
+     * HU-P4: recetas pendientes de recoger del paciente, hasta el final de cada tratamiento: las
+     * generadas y, con plan por ventana, las que aún no se han generado (sin id)
+     */
+    @PresupuestoConsultas(2)
     @Transactional(readOnly = true)
     public List<Receta> recetasPendientesPaciente(Long pacienteId, LocalDate hoy) {
-        return recetaDAO.findPendientesDePaciente(pacienteId, hoy);
+        List<Receta> pendientes = new ArrayList<>(recetaDAO.findPendientesDePaciente(pacienteId, hoy));
+        pendientes.addAll(prescripcionService.recetasPorGenerar(pacienteId));
+        pendientes.sort(Comparator.comparing(Receta::getFechaValidezInicial));
+        return pendientes;
     }
 
     /** HU-F2: recetas en vigor  */
+    @PresupuestoConsultas(1)
     @Transactional(readOnly = true)
     public List<Receta> recetasEnVigorPorTarjetaSanitaria(String numeroTarjetaSanitaria, LocalDate hoy) {
         return recetaDAO.findPlanificadasEnVigorPorTarjetaSanitaria(numeroTarjetaSanitaria, hoy);
     }
 
+    /** HU-F2: recetas en vigor desde el modelo de dispensación, sin joins */
+    @PresupuestoConsultas(1)
+    @Transactional(readOnly = true)
+    public List<RecetaDispensable> recetasDispensables(String numeroTarjetaSanitaria, LocalDate hoy) {
+        return dispensacionService.recetasEnVigor(numeroTarjetaSanitaria, hoy);
+    }
+
     /** HU-F3: servir receta*/
+    @PresupuestoConsultas(4)
     @Transactional
     public Receta servirReceta(Long recetaId, Long farmaciaId, LocalDate hoy) {
         Receta r = recetaDAO.findById(recetaId)
                 .orElseThrow(() -> new RecursoNoEncontradoException("Receta no encontrada: " + recetaId));
 
-        if (r.getEstado() != EstadoReceta.PLANIFICADA) {
-            throw new OperacionNoPermitidaException("Solo se pueden servir recetas PLANIFICADAS");
-        }
-
-        if (hoy.isBefore(r.getFechaValidezInicial()) || hoy.isAfter(r.getFechaValidezFinal())) {
-            throw new OperacionNoPermitidaException("No se puede servir la receta fuera de su periodo de validez");
+        String motivo = motivoNoServible(r, hoy);
+        if (motivo != null) {
+            throw new OperacionNoPermitidaException(motivo);
         }
 
         Farmacia f = farmaciaDAO.findById(farmaciaId)
@@ -56,7 +88,57 @@ public class RecetaService {
         r.setEstado(EstadoReceta.SERVIDA);
         r.setFarmacia(f);
 
-        return recetaDAO.save(r);
+        r = guardar(r);
+        dispensacionService.recetaServida(r.getId());
+        return r;
+    }
+
+    /**
+     * HU-F3: servir varias recetas en el mostrador, en una transacción. Las recetas se cargan con
+     * una consulta, sin su prescripción, y se actualizan en lote; las que no se pueden servir se devuelven con el motivo
+     * sin impedir servir el resto. Si otra farmacia sirve a la vez alguna del lote, no se sirve
+     * ninguna (conflicto) y al reintentar esa sale como ya servida.
+     */
+    @PresupuestoConsultas(4)
+    @Transactional
+    public List<ResultadoDispensacion> servirRecetas(List<Long> recetaIds, Long farmaciaId, LocalDate hoy) {
+        if (recetaIds == null || recetaIds.isEmpty()) throw new ValidacionException("Ninguna receta que servir");
+        if (recetaIds.size() > MAX_RECETAS_DISPENSACION) {
+            throw new ValidacionException("Como mucho " + MAX_RECETAS_DISPENSACION + " recetas por dispensación");
+        }
+
+        Farmacia f = farmaciaDAO.findById(farmaciaId)
+                .orElseThrow(() -> new RecursoNoEncontradoException("Farmacia no encontrada: " + farmaciaId));
+
+        Map<Long, Receta> recetas = new HashMap<>();
+        for (Receta r : recetaDAO.findAllById(new HashSet<>(recetaIds))) {
+            recetas.put(r.getId(), r);
+        }
+
+        List<ResultadoDispensacion> resultados = new ArrayList<>(recetaIds.size());
+        List<Long> servidas = new ArrayList<>();
+        for (Long id : recetaIds) {
+            Receta r = recetas.get(id);
+            // una receta repetida en el lote ya está SERVIDA la segunda vez
+            String motivo = r == null ? "Receta no encontrada: " + id : motivoNoServible(r, hoy);
+            if (motivo != null) {
+                resultados.add(ResultadoDispensacion.rechazada(id, motivo));
+                continue;
+            }
+            r.setEstado(EstadoReceta.SERVIDA);
+            r.setFarmacia(f);
+            servidas.add(id);
+            resultados.add(ResultadoDispensacion.servida(id));
+        }
+
+        // los UPDATE de las servidas salen en lote JDBC, cada uno con su versión
+        try {
+            recetaDAO.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictoException("Otra farmacia ha servido alguna de las recetas, vuelve a intentarlo");
+        }
+        dispensacionService.recetasServidas(servidas);
+        return resultados;
     }
 
     public boolean esServible(Receta r, LocalDate hoy) {
@@ -64,4 +146,23 @@ public class RecetaService {
                 && !hoy.isBefore(r.getFechaValidezInicial())
                 && !hoy.isAfter(r.getFechaValidezFinal());
     }
+
+    /** Servir con control de versión: si otra farmacia la sirvió antes, conflicto */
+    private Receta guardar(Receta r) {
+        try {
+            return recetaDAO.saveAndFlush(r);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictoException("La receta ha sido servida o anulada por otra operación");
+        }
+    }
+
+    private String motivoNoServible(Receta r, LocalDate hoy) {
+        if (r.getEstado() != EstadoReceta.PLANIFICADA) {
+            return "Solo se pueden servir recetas PLANIFICADAS";
+        }
+        if (!esServible(r, hoy)) {
+            return "No se puede servir la receta fuera de su periodo de validez";
+        }
+        return null;
+    }
 }
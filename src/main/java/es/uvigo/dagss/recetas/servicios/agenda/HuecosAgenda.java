@@ -0,0 +1,169 @@
+package es.uvigo.dagss.recetas.servicios.agenda;
+
+import es.uvigo.dagss.recetas.repositorios.CitaDAO;
+import es.uvigo.dagss.recetas.servicios.dto.Hueco;
+import es.uvigo.dagss.recetas.servicios.eventos.CitaModificada;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * HU-P3: huecos ocupados de cada médico y día como una máscara de bits, un bit por hueco de
+ * 15 min entre 8:30 y 15:30 (28 huecos caben en un int).
+ *
+ * Caché LRU acotada con caducidad: un fallo lee las horas ocupadas de la BD, y las reservas y
+ * anulaciones confirmadas actualizan el bit de la entrada si está en caché. La BD sigue siendo
+ * quien decide en una reserva (UK_CITA_HUECO); aquí solo se sirven las consultas de huecos.
+ */
+@Component
+public class HuecosAgenda {
+
+    public static final LocalTime PRIMER_HUECO = LocalTime.of(8, 30);
+    public static final LocalTime FIN_JORNADA = LocalTime.of(15, 30);
+    public static final int MINUTOS_HUECO = 15;
+    public static final int HUECOS = 28;
+
+    private static final int TODOS = (1 << HUECOS) - 1;
+    private static final LocalTime[] HORAS = new LocalTime[HUECOS];
+
+    static {
+        for (int i = 0; i < HUECOS; i++) {
+            HORAS[i] = PRIMER_HUECO.plusMinutes((long) MINUTOS_HUECO * i);
+        }
+    }
+
+    private final CitaDAO citaDAO;
+    private final int tamanoMaximo;
+    private final long ttlNanos;
+    private final Map<Clave, Entrada> entradas;
+
+    /** Cambia con cada modificación confirmada: una carga que lo ve cambiar no se guarda (puede ser vieja) */
+    private long generacion;
+
+    public HuecosAgenda(CitaDAO citaDAO,
+                        @Value("${recetas.agenda.cache-tamano:10000}") int tamanoMaximo,
+                        @Value("${recetas.agenda.cache-ttl:PT5M}") Duration ttl) {
+        this.citaDAO = citaDAO;
+        this.tamanoMaximo = tamanoMaximo;
+        this.ttlNanos = ttl.toNanos();
+        this.entradas = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                return size() > HuecosAgenda.this.tamanoMaximo;
+            }
+        };
+    }
+
+    /** Índice del hueco que empieza a esa hora, o -1 si está fuera de la jornada o no alineado */
+    public static int indice(LocalTime hora) {
+        int minutos = hora.getHour() * 60 + hora.getMinute() - (PRIMER_HUECO.getHour() * 60 + PRIMER_HUECO.getMinute());
+        if (minutos < 0 || minutos % MINUTOS_HUECO != 0 || hora.getSecond() != 0 || hora.getNano() != 0) return -1;
+        int i = minutos / MINUTOS_HUECO;
+        return i < HUECOS ? i : -1;
+    }
+
+    public static LocalTime hora(int indice) {
+        return HORAS[indice];
+    }
+
+    /** Máscara con un bit a 1 por cada hueco ocupado del médico ese día */
+    public int ocupados(Long medicoId, LocalDate fecha) {
+        return ocupados(medicoId, fecha, fecha)[0];
+    }
+
+    /**
+     * Máscaras de huecos ocupados de cada día entre {@code desde} y {@code hasta} (incluidos), en
+     * orden. Los días que no están en caché se leen con una sola consulta y se guardan.
+     */
+    public int[] ocupados(Long medicoId, LocalDate desde, LocalDate hasta) {
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+        int[] res = new int[dias];
+        int primero = -1, ultimo = -1;
+        long ahora = System.nanoTime();
+        long generacionLeida;
+        synchronized (this) {
+            for (int d = 0; d < dias; d++) {
+                Entrada e = entradas.get(new Clave(medicoId, desde.plusDays(d)));
+                if (e != null && ahora - e.cargada < ttlNanos) {
+                    res[d] = e.ocupados;
+                } else {
+                    if (primero < 0) primero = d;
+                    ultimo = d;
+                }
+            }
+            generacionLeida = generacion;
+        }
+        if (primero < 0) return res;
+
+        // se leen también los días en caché que quedan entre el primero y el último que faltan
+        LocalDate inicio = desde.plusDays(primero);
+        int[] leidos = new int[ultimo - primero + 1];
+        for (Hueco h : citaDAO.huecosOcupadosEntre(medicoId, inicio, desde.plusDays(ultimo))) {
+            int i = indice(h.horaInicio());
+            if (i >= 0) leidos[(int) ChronoUnit.DAYS.between(inicio, h.fecha())] |= 1 << i;
+        }
+        System.arraycopy(leidos, 0, res, primero, leidos.length);
+
+        synchronized (this) {
+            if (generacion == generacionLeida) {
+                for (int d = 0; d < leidos.length; d++) {
+                    entradas.put(new Clave(medicoId, inicio.plusDays(d)), new Entrada(leidos[d], ahora));
+                }
+            }
+        }
+        return res;
+    }
+
+    /** Horas de inicio de los huecos libres, en orden */
+    public List<LocalTime> libres(Long medicoId, LocalDate fecha) {
+        int libres = libres(ocupados(medicoId, fecha));
+        List<LocalTime> res = new ArrayList<>(Integer.bitCount(libres));
+        for (; libres != 0; libres &= libres - 1) {
+            res.add(HORAS[Integer.numberOfTrailingZeros(libres)]);
+        }
+        return res;
+    }
+
+    /** Máscara de huecos libres a partir de la de ocupados */
+    public static int libres(int ocupados) {
+        return ~ocupados & TODOS;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void alModificar(CitaModificada evento) {
+        generacion++;
+        int i = indice(evento.horaInicio());
+        Clave clave = new Clave(evento.medicoId(), evento.fecha());
+        Entrada e = entradas.get(clave);
+        if (e == null) return;
+        if (i < 0) {
+            entradas.remove(clave);
+        } else if (evento.ocupaHueco()) {
+            e.ocupados |= 1 << i;
+        } else {
+            e.ocupados &= ~(1 << i);
+        }
+    }
+
+    private record Clave(Long medicoId, LocalDate fecha) {
+    }
+
+    private static final class Entrada {
+        int ocupados;
+        final long cargada;
+
+        Entrada(int ocupados, long cargada) {
+            this.ocupados = ocupados;
+            this.cargada = cargada;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package es.uvigo.dagss.recetas.servicios.busqueda;
+
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.servicios.eventos.MedicamentoModificado;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * HU-M4: índice invertido en memoria de los medicamentos activos.
+ *
+ * Cada campo (nombre comercial, principio activo, familia, fabricante) se normaliza sin tildes
+ * y se indexa por sus bigramas y trigramas. Una búsqueda intersecta las listas de los n-gramas
+ * de cada término, verifica que el término aparece en algún campo y ordena por relevancia
+ * (campo en que aparece y si es al inicio del campo o de una palabra).
+ *
+ * Los huecos que deja una baja o edición no se reutilizan, así las listas de cada n-grama
+ * quedan ordenadas por construcción; cuando hay demasiados se reconstruye el índice.
+ */
+@Component
+public class IndiceMedicamentos {
+
+    /** Peso de cada campo, en el orden de {@link #campos(Medicamento)} */
+    private static final int[] PESOS = {8, 4, 2, 1};
+
+    private static final Comparator<Resultado> POR_RELEVANCIA =
+            Comparator.comparingInt(Resultado::puntuacion).reversed()
+                    .thenComparing(r -> r.entrada().campos()[0])
+                    .thenComparing(r -> r.entrada().medicamento().getId());
+
+    private final MedicamentoDAO medicamentoDAO;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Entrada[] entradas = new Entrada[1024];
+    private int siguienteSlot;
+    private int vivas;
+    private final Map<Long, Integer> slotPorId = new HashMap<>();
+    private final Map<String, Postings> gramas = new HashMap<>();
+    private volatile boolean cargado;
+
+    public IndiceMedicamentos(MedicamentoDAO medicamentoDAO) {
+        this.medicamentoDAO = medicamentoDAO;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recargar() {
+        lock.writeLock().lock();
+        try {
+            List<Medicamento> activos = medicamentoDAO.findByActivoTrueOrderByNombreComercialAsc();
+            vaciar(activos.size());
+            for (Medicamento m : activos) {
+                anadir(m);
+            }
+            cargado = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificar(MedicamentoModificado evento) {
+        Medicamento m = evento.medicamento();
+        lock.writeLock().lock();
+        try {
+            if (!cargado) return; // la carga inicial ya leerá el cambio confirmado
+            quitar(m.getId());
+            if (Boolean.TRUE.equals(m.getActivo())) {
+                anadir(m);
+            }
+            if (siguienteSlot - vivas > Math.max(1024, vivas / 4)) {
+                compactar();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Medicamentos activos que contienen todos los términos del texto, por relevancia */
+    public List<Medicamento> buscar(String texto) {
+        String[] terminos = Normalizador.terminos(texto);
+        if (!cargado) recargar();
+
+        lock.readLock().lock();
+        try {
+            List<Postings> listas = new ArrayList<>();
+            for (String t : terminos) {
+                if (t.length() < 2) continue; // un solo carácter: se comprueba al puntuar
+                for (String g : gramasDeConsulta(t)) {
+                    Postings p = gramas.get(g);
+                    if (p == null) return List.of();
+                    listas.add(p);
+                }
+            }
+
+            List<Resultado> resultados = new ArrayList<>();
+            if (listas.isEmpty()) {
+                for (int s = 0; s < siguienteSlot; s++) {
+                    puntuar(s, terminos, resultados);
+                }
+            } else {
+                listas.sort(Comparator.comparingInt(p -> p.n));
+                Postings menor = listas.get(0);
+                for (int i = 0; i < menor.n; i++) {
+                    int s = menor.slots[i];
+                    if (enTodas(s, listas)) puntuar(s, terminos, resultados);
+                }
+            }
+
+            resultados.sort(POR_RELEVANCIA);
+            List<Medicamento> medicamentos = new ArrayList<>(resultados.size());
+            for (Resultado r : resultados) {
+                medicamentos.add(r.entrada().medicamento());
+            }
+            return medicamentos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean enTodas(int slot, List<Postings> listas) {
+        for (int j = 1; j < listas.size(); j++) {
+            Postings p = listas.get(j);
+            if (Arrays.binarySearch(p.slots, 0, p.n, slot) < 0) return false;
+        }
+        return true;
+    }
+
+    private void puntuar(int slot, String[] terminos, List<Resultado> resultados) {
+        Entrada e = entradas[slot];
+        if (e == null) return;
+
+        int total = 0;
+        for (String t : terminos) {
+            int mejor = 0;
+            String[] campos = e.campos();
+            for (int i = 0; i < campos.length; i++) {
+                int pos = campos[i].indexOf(t);
+                if (pos < 0) continue;
+                int tipo = pos == 0 ? 3 : (campos[i].charAt(pos - 1) == ' ' ? 2 : 1);
+                mejor = Math.max(mejor, PESOS[i] * tipo);
+            }
+            if (mejor == 0) return;
+            total += mejor;
+        }
+        resultados.add(new Resultado(e, total));
+    }
+
+    private void anadir(Medicamento m) {
+        if (siguienteSlot == entradas.length) {
+            entradas = Arrays.copyOf(entradas, entradas.length * 2);
+        }
+        int slot = siguienteSlot++;
+        Entrada e = new Entrada(copiar(m), campos(m));
+        entradas[slot] = e;
+        slotPorId.put(m.getId(), slot);
+        vivas++;
+
+        for (String g : gramasDeEntrada(e.campos())) {
+            gramas.computeIfAbsent(g, k -> new Postings()).anadir(slot);
+        }
+    }
+
+    private void quitar(Long id) {
+        Integer slot = slotPorId.remove(id);
+        if (slot != null) {
+            entradas[slot] = null;
+            vivas--;
+        }
+    }
+
+    private void compactar() {
+        List<Medicamento> actuales = new ArrayList<>(vivas);
+        for (int s = 0; s < siguienteSlot; s++) {
+            if (entradas[s] != null) actuales.add(entradas[s].medicamento());
+        }
+        vaciar(actuales.size());
+        for (Medicamento m : actuales) {
+            anadir(m);
+        }
+    }
+
+    private void vaciar(int capacidad) {
+        entradas = new Entrada[Math.max(1024, capacidad * 2)];
+        siguienteSlot = 0;
+        vivas = 0;
+        slotPorId.clear();
+        gramas.clear();
+    }
+
+    private static String[] campos(Medicamento m) {
+        return new String[] {
+                Normalizador.normalizar(m.getNombreComercial()),
+                Normalizador.normalizar(m.getPrincipioActivo()),
+                Normalizador.normalizar(m.getFamilia()),
+                Normalizador.normalizar(m.getFabricante())
+        };
+    }
+
+    private static Set<String> gramasDeEntrada(String[] campos) {
+        Set<String> res = new HashSet<>();
+        for (String c : campos) {
+            for (int n = 2; n <= 3; n++) {
+                for (int i = 0; i + n <= c.length(); i++) {
+                    String g = c.substring(i, i + n);
+                    if (g.indexOf(' ') < 0) res.add(g);
+                }
+            }
+        }
+        return res;
+    }
+
+    private static List<String> gramasDeConsulta(String termino) {
+        if (termino.length() <= 3) return List.of(termino);
+        List<String> res = new ArrayList<>(termino.length() - 2);
+        for (int i = 0; i + 3 <= termino.length(); i++) {
+            res.add(termino.substring(i, i + 3));
+        }
+        return res;
+    }
+
+    /** Copia desacoplada de la sesión JPA, compartida por todas las consultas */
+    private static Medicamento copiar(Medicamento m) {
+        Medicamento c = new Medicamento(m.getNombreComercial(), m.getPrincipioActivo(), m.getFabricante(),
+                m.getFamilia(), m.getNumeroDosis());
+        c.setId(m.getId());
+        c.setActivo(m.getActivo());
+        return c;
+    }
+
+    private record Entrada(Medicamento medicamento, String[] campos) {
+    }
+
+    private record Resultado(Entrada entrada, int puntuacion) {
+    }
+
+    /** Lista de slots ascendente: los slots nuevos siempre son mayores que los anteriores */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int n;
+
+        void anadir(int slot) {
+            if (n == slots.length) slots = Arrays.copyOf(slots, n * 2);
+            slots[n++] = slot;
+        }
+    }
+}
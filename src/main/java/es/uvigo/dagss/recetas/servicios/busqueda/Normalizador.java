@@ -0,0 +1,26 @@
+package es.uvigo.dagss.recetas.servicios.busqueda;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/** Texto en minúsculas y sin tildes, para comparar "Ácido" con "acido" */
+final class Normalizador {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("\\s+");
+
+    private Normalizador() {
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) return "";
+        String t = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return DIACRITICOS.matcher(t).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    static String[] terminos(String texto) {
+        String t = normalizar(texto);
+        return t.isEmpty() ? new String[0] : SEPARADORES.split(t);
+    }
+}
@@ -0,0 +1,119 @@
+package es.uvigo.dagss.recetas.servicios.busqueda;
+
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.servicios.dto.SugerenciaMedicamento;
+import es.uvigo.dagss.recetas.servicios.eventos.MedicamentoModificado;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * HU-M4: autocompletado por prefijo de nombre comercial o principio activo.
+ *
+ * Las claves normalizadas están en un array ordenado: un prefijo es una búsqueda binaria y un
+ * recorrido de como mucho dos claves por sugerencia devuelta. Las lecturas no bloquean: cada
+ * cambio del catálogo construye una copia nueva y la publica en una referencia volátil.
+ */
+@Component
+public class SugerenciasMedicamentos {
+
+    private final MedicamentoDAO medicamentoDAO;
+    private volatile Instantanea actual;
+
+    public SugerenciasMedicamentos(MedicamentoDAO medicamentoDAO) {
+        this.medicamentoDAO = medicamentoDAO;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void recargar() {
+        List<Clave> claves = new ArrayList<>();
+        for (Medicamento m : medicamentoDAO.findByActivoTrueOrderByNombreComercialAsc()) {
+            anadirClaves(m, claves);
+        }
+        actual = Instantanea.de(claves);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void alModificar(MedicamentoModificado evento) {
+        Instantanea previa = actual;
+        if (previa == null) return; // la carga inicial ya leerá el cambio confirmado
+
+        Medicamento m = evento.medicamento();
+        List<Clave> claves = new ArrayList<>(previa.claves.length + 2);
+        for (int i = 0; i < previa.claves.length; i++) {
+            if (!previa.valores[i].id().equals(m.getId())) {
+                claves.add(new Clave(previa.claves[i], previa.valores[i]));
+            }
+        }
+        if (Boolean.TRUE.equals(m.getActivo())) {
+            anadirClaves(m, claves);
+        }
+        actual = Instantanea.de(claves);
+    }
+
+    /** Hasta {@code limite} medicamentos activos cuyo nombre o principio activo empieza por el prefijo */
+    public List<SugerenciaMedicamento> sugerir(String prefijo, int limite) {
+        Instantanea s = actual;
+        if (s == null) {
+            recargar();
+            s = actual;
+        }
+
+        String p = Normalizador.normalizar(prefijo);
+        List<SugerenciaMedicamento> res = new ArrayList<>(limite);
+        Set<Long> vistos = new HashSet<>();
+        int i = Arrays.binarySearch(s.claves, p);
+        if (i < 0) i = -i - 1;
+        for (; i < s.claves.length && res.size() < limite && s.claves[i].startsWith(p); i++) {
+            if (vistos.add(s.valores[i].id())) res.add(s.valores[i]);
+        }
+        return res;
+    }
+
+    private static void anadirClaves(Medicamento m, List<Clave> claves) {
+        SugerenciaMedicamento sug = new SugerenciaMedicamento(m.getId(), m.getNombreComercial(),
+                m.getPrincipioActivo(), m.getNumeroDosis());
+        String nombre = Normalizador.normalizar(m.getNombreComercial());
+        String principio = Normalizador.normalizar(m.getPrincipioActivo());
+        claves.add(new Clave(nombre, sug));
+        if (!principio.isEmpty() && !principio.equals(nombre)) {
+            claves.add(new Clave(principio, sug));
+        }
+    }
+
+    private record Clave(String texto, SugerenciaMedicamento sugerencia) {
+    }
+
+    /** Claves ordenadas y su sugerencia en la misma posición; no se modifica tras publicarse */
+    private static final class Instantanea {
+        final String[] claves;
+        final SugerenciaMedicamento[] valores;
+
+        private Instantanea(String[] claves, SugerenciaMedicamento[] valores) {
+            this.claves = claves;
+            this.valores = valores;
+        }
+
+        static Instantanea de(List<Clave> lista) {
+            lista.sort((a, b) -> {
+                int c = a.texto().compareTo(b.texto());
+                return c != 0 ? c : a.sugerencia().id().compareTo(b.sugerencia().id());
+            });
+            String[] claves = new String[lista.size()];
+            SugerenciaMedicamento[] valores = new SugerenciaMedicamento[lista.size()];
+            for (int i = 0; i < claves.length; i++) {
+                claves[i] = lista.get(i).texto();
+                valores[i] = lista.get(i).sugerencia();
+            }
+            return new Instantanea(claves, valores);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import es.uvigo.dagss.recetas.entidades.Administrador;
+
+/** Administrador en las respuestas REST, sin password */
+public record AdministradorResumen(Long id, String login, String nombre, String email, Boolean activo) {
+
+    public static AdministradorResumen de(Administrador a) {
+        return new AdministradorResumen(a.getId(), a.getLogin(), a.getNombre(), a.getEmail(), a.getActivo());
+    }
+}
@@ -0,0 +1,5 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Instantánea de un centro de salud en CacheReferencias */
+public record CentroSaludReferencia(Long id, String nombre) {
+}
@@ -0,0 +1,5 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Centro de salud en listados y desplegables, sin sus médicos ni pacientes */
+public record CentroSaludResumen(Long id, String nombre, String localidad, String provincia, String telefono) {
+}
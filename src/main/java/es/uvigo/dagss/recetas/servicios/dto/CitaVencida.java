@@ -0,0 +1,5 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Cita PLANIFICADA de un día ya pasado, con su médico y centro para el recuento de ausencias */
+public record CitaVencida(Long id, Long medicoId, Long centroSaludId) {
+}
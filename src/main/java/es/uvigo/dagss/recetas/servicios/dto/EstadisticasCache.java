@@ -0,0 +1,9 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Contadores de una caché desde el arranque y entradas actuales */
+public record EstadisticasCache(long aciertos,
+                                long fallos,
+                                long expulsiones,
+                                long invalidaciones,
+                                int entradas) {
+}
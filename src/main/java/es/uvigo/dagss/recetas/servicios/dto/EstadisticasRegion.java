@@ -0,0 +1,8 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Contadores de una región de la caché de segundo nivel de Hibernate desde el arranque */
+public record EstadisticasRegion(String region,
+                                 long aciertos,
+                                 long fallos,
+                                 long escrituras) {
+}
@@ -0,0 +1,24 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import es.uvigo.dagss.recetas.entidades.Farmacia;
+
+/** Farmacia en las respuestas REST: solo las columnas del listado, sin password */
+public record FarmaciaResumen(Long id,
+                              String login,
+                              String nombreEstablecimiento,
+                              String nombreFarmaceutico,
+                              String apellidosFarmaceutico,
+                              String nif,
+                              String numeroColegiadoFarmaceutico,
+                              String localidad,
+                              String provincia,
+                              String telefono,
+                              String email,
+                              Boolean activo) {
+
+    public static FarmaciaResumen de(Farmacia f) {
+        return new FarmaciaResumen(f.getId(), f.getLogin(), f.getNombreEstablecimiento(), f.getNombreFarmaceutico(),
+                f.getApellidosFarmaceutico(), f.getNif(), f.getNumeroColegiadoFarmaceutico(), f.getLocalidad(),
+                f.getProvincia(), f.getTelefono(), f.getEmail(), f.getActivo());
+    }
+}
@@ -0,0 +1,21 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import java.util.Date;
+
+/** Una línea del fichero NDJSON de importación de pacientes */
+public record FilaPaciente(String login,
+                           String nombre,
+                           String apellidos,
+                           String dni,
+                           String numeroTarjetaSanitaria,
+                           String numeroSeguridadSocial,
+                           String domicilio,
+                           String localidad,
+                           String codigoPostal,
+                           String provincia,
+                           String telefono,
+                           String email,
+                           Date fechaNacimiento,
+                           Long centroSaludId,
+                           Long medicoId) {
+}
@@ -0,0 +1,8 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/** Hueco de 15 min de la agenda de un médico: el día y la hora a la que empieza */
+public record Hueco(LocalDate fecha, LocalTime horaInicio) {
+}
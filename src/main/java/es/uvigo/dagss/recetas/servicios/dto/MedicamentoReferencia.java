@@ -0,0 +1,5 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Instantánea de un medicamento en CacheReferencias: lo que hace falta para calcular un plan */
+public record MedicamentoReferencia(Long id, String nombreComercial, Integer numeroDosis) {
+}
@@ -0,0 +1,5 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Instantánea de un médico en CacheReferencias: lo que hace falta para asignarlo a un paciente */
+public record MedicoReferencia(Long id, String nombre, String apellidos, Long centroSaludId) {
+}
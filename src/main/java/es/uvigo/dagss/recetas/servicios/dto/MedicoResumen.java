@@ -0,0 +1,24 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import es.uvigo.dagss.recetas.entidades.Medico;
+
+/** Médico en las respuestas REST: solo las columnas del listado, sin colecciones ni password */
+public record MedicoResumen(Long id,
+                            String login,
+                            String nombre,
+                            String apellidos,
+                            String dni,
+                            String numeroColegiado,
+                            String telefono,
+                            String email,
+                            Boolean activo,
+                            Long centroSaludId,
+                            String centroSaludNombre) {
+
+    public static MedicoResumen de(Medico m) {
+        var c = m.getCentroSalud();
+        return new MedicoResumen(m.getId(), m.getLogin(), m.getNombre(), m.getApellidos(), m.getDni(),
+                m.getNumeroColegiado(), m.getTelefono(), m.getEmail(), m.getActivo(),
+                c == null ? null : c.getId(), c == null ? null : c.getNombre());
+    }
+}
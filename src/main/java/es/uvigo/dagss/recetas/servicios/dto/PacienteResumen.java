@@ -0,0 +1,34 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import java.util.Date;
+
+/** Paciente en las respuestas REST: solo las columnas del listado, sin colecciones ni password */
+public record PacienteResumen(Long id,
+                              String login,
+                              String nombre,
+                              String apellidos,
+                              String dni,
+                              String numeroTarjetaSanitaria,
+                              String numeroSeguridadSocial,
+                              String localidad,
+                              String telefono,
+                              String email,
+                              Date fechaNacimiento,
+                              Boolean activo,
+                              Long centroSaludId,
+                              String centroSaludNombre,
+                              Long medicoId,
+                              String medicoNombre,
+                              String medicoApellidos) {
+
+    public static PacienteResumen de(Paciente p) {
+        var c = p.getCentroSalud();
+        var m = p.getMedicoAsignado();
+        return new PacienteResumen(p.getId(), p.getLogin(), p.getNombre(), p.getApellidos(), p.getDni(),
+                p.getNumeroTarjetaSanitaria(), p.getNumeroSeguridadSocial(), p.getLocalidad(), p.getTelefono(),
+                p.getEmail(), p.getFechaNacimiento(), p.getActivo(),
+                c == null ? null : c.getId(), c == null ? null : c.getNombre(),
+                m == null ? null : m.getId(), m == null ? null : m.getNombre(), m == null ? null : m.getApellidos());
+    }
+}
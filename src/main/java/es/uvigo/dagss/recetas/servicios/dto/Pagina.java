@@ -0,0 +1,11 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import java.util.List;
+
+/** Página de un listado: {@code siguiente} es el cursor de la página siguiente, null en la última */
+public record Pagina<T>(List<T> elementos, String siguiente) {
+
+    public static <T> Pagina<T> unica(List<T> elementos) {
+        return new Pagina<>(elementos, null);
+    }
+}
@@ -0,0 +1,18 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progreso de la caducidad de recetas: la ejecución en curso o la última. {@code pendientes} son
+ * las vencidas al empezar; {@code caducadasTotal} suma todas las ejecuciones desde el arranque.
+ */
+public record ProgresoCaducidad(boolean enCurso,
+                                LocalDateTime inicio,
+                                LocalDateTime fin,
+                                long pendientes,
+                                long caducadas,
+                                int lotes,
+                                long caducadasTotal) {
+
+    public static final ProgresoCaducidad NINGUNO = new ProgresoCaducidad(false, null, null, 0, 0, 0, 0);
+}
@@ -0,0 +1,7 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import java.util.Map;
+
+/** Citas marcadas AUSENTE en una ejecución, en total y por centro de salud y por médico */
+public record ResultadoAusencias(long ausentes, int lotes, Map<Long, Long> porCentro, Map<Long, Long> porMedico) {
+}
@@ -0,0 +1,13 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Resultado de servir una receta de un lote: las que no se pueden servir no impiden servir el resto */
+public record ResultadoDispensacion(Long recetaId, boolean servida, String motivo) {
+
+    public static ResultadoDispensacion servida(Long recetaId) {
+        return new ResultadoDispensacion(recetaId, true, null);
+    }
+
+    public static ResultadoDispensacion rechazada(Long recetaId, String motivo) {
+        return new ResultadoDispensacion(recetaId, false, motivo);
+    }
+}
@@ -0,0 +1,10 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+import java.util.List;
+
+/** Resumen de una importación masiva: las filas con error no impiden importar el resto */
+public record ResultadoImportacion(long leidas, long importadas, List<ErrorImportacion> errores) {
+
+    public record ErrorImportacion(long linea, String mensaje) {
+    }
+}
@@ -0,0 +1,5 @@
+package es.uvigo.dagss.recetas.servicios.dto;
+
+/** Elemento del autocompletado de medicamentos en la pantalla de prescripción */
+public record SugerenciaMedicamento(Long id, String nombreComercial, String principioActivo, Integer numeroDosis) {
+}
@@ -0,0 +1,8 @@
+package es.uvigo.dagss.recetas.servicios.eventos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/** Una cita ocupa o libera su hueco (reserva, anulación, ausencia...); se publica dentro de la transacción */
+public record CitaModificada(Long medicoId, LocalDate fecha, LocalTime horaInicio, boolean ocupaHueco) {
+}
@@ -0,0 +1,10 @@
+package es.uvigo.dagss.recetas.servicios.eventos;
+
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+
+/**
+ * Alta, edición o baja de un medicamento del catálogo. Se publica dentro de la transacción, o al
+ * sondear la fila de InvalidacionReferencia si el cambio lo hizo otro nodo.
+ */
+public record MedicamentoModificado(Medicamento medicamento) {
+}
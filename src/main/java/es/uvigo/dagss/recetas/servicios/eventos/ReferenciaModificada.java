@@ -0,0 +1,7 @@
+package es.uvigo.dagss.recetas.servicios.eventos;
+
+import es.uvigo.dagss.recetas.entidades.TipoReferencia;
+
+/** Edición o baja de un centro de salud o de un médico (se publica dentro de la transacción) */
+public record ReferenciaModificada(TipoReferencia tipo, Long id) {
+}
@@ -0,0 +1,12 @@
+package es.uvigo.dagss.recetas.servicios.excepciones;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Otra operación concurrente ganó la carrera (hueco ya reservado, cita modificada): 409, se puede reintentar */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictoException extends RuntimeException {
+    public ConflictoException(String message) {
+        super(message);
+    }
+}
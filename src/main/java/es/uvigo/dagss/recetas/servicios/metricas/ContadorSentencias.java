@@ -0,0 +1,99 @@
+package es.uvigo.dagss.recetas.servicios.metricas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sentencias SQL que prepara Hibernate en el hilo en curso, para cada medición abierta en él: la
+ * de la petición (MedicionPeticiones) y las de los métodos con @PresupuestoConsultas, anidadas.
+ * Se registra como StatementInspector salvo que la configuración ya traiga otro.
+ */
+@Component
+@ConditionalOnProperty(name = "recetas.metricas.activas", havingValue = "true", matchIfMissing = true)
+public class ContadorSentencias implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<List<Medicion>> abiertas = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<Medicion> l = abiertas.get();
+        for (int i = 0; i < l.size(); i++) l.get(i).registrar(sql);
+        return sql;
+    }
+
+    /** Empieza a contar en este hilo; cada medición se cierra con {@link #cerrar} */
+    public Medicion abrir() {
+        Medicion m = new Medicion();
+        abiertas.get().add(m);
+        return m;
+    }
+
+    /** Deja de contar en m; las demás abiertas en el hilo siguen */
+    public void cerrar(Medicion m) {
+        List<Medicion> l = abiertas.get();
+        l.remove(m);
+        if (l.isEmpty()) abiertas.remove();
+    }
+
+    /** Sentencias de una medición y cuántas veces se repitió cada una */
+    public static final class Medicion {
+
+        private static final Pattern LISTA_IN = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+        private static final Pattern CADENA = Pattern.compile("'(?:[^']|'')*'");
+        private static final Pattern NUMERO = Pattern.compile("\\b\\d+\\b");
+        private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+        private static final int LARGO_FORMA = 200;
+
+        private int sentencias;
+        /** Por SQL tal cual; se normaliza solo al informar */
+        private final Map<String, Integer> veces = new HashMap<>();
+
+        private Medicion() {
+        }
+
+        void registrar(String sql) {
+            sentencias++;
+            veces.merge(sql, 1, Integer::sum);
+        }
+
+        public int sentencias() {
+            return sentencias;
+        }
+
+        /**
+         * Las formas de consulta más repetidas, "3x select ...": literales y listas de IN como ?,
+         * de modo que un N+1 sale como una sola forma con muchas veces
+         */
+        public List<String> formas(int maximo) {
+            Map<String, Integer> porForma = new HashMap<>();
+            veces.forEach((sql, n) -> porForma.merge(forma(sql), n, Integer::sum));
+            return porForma.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(maximo)
+                    .map(e -> e.getValue() + "x " + e.getKey())
+                    .collect(Collectors.toList());
+        }
+
+        static String forma(String sql) {
+            String f = CADENA.matcher(sql).replaceAll("?");
+            f = NUMERO.matcher(f).replaceAll("?");
+            f = LISTA_IN.matcher(f).replaceAll("(?...)");
+            f = ESPACIOS.matcher(f).replaceAll(" ").trim();
+            return f.length() <= LARGO_FORMA ? f : f.substring(0, LARGO_FORMA) + "...";
+        }
+    }
+}
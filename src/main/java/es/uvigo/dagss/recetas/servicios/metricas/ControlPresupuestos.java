@@ -0,0 +1,80 @@
+package es.uvigo.dagss.recetas.servicios.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.List;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Cuenta las sentencias de cada llamada a un método con @PresupuestoConsultas. Si pasa del
+ * presupuesto lo deja en WARN con las formas de consulta más repetidas y suma uno a
+ * recetas.presupuesto.excedido; con recetas.metricas.presupuesto-estricto=true (tests) además
+ * lanza PresupuestoConsultasExcedidoException. Va por fuera de @Transactional para contar el
+ * flush del commit.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "recetas.metricas.activas", havingValue = "true", matchIfMissing = true)
+public class ControlPresupuestos {
+
+    static final String EXCEDIDO = "recetas.presupuesto.excedido";
+    private static final Logger log = LoggerFactory.getLogger(ControlPresupuestos.class);
+    private static final int FORMAS = 5;
+
+    private final ContadorSentencias contador;
+    private final MeterRegistry registro;
+    private final boolean estricto;
+
+    public ControlPresupuestos(ContadorSentencias contador,
+                               MeterRegistry registro,
+                               @Value("${recetas.metricas.presupuesto-estricto:false}") boolean estricto) {
+        this.contador = contador;
+        this.registro = registro;
+        this.estricto = estricto;
+    }
+
+    // sin enlazar la anotación como argumento: con HIGHEST_PRECEDENCE el aspecto va antes de que
+    // Spring exponga el JoinPointMatch
+    @Around("@annotation(es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas)")
+    public Object controlar(ProceedingJoinPoint jp) throws Throwable {
+        ContadorSentencias.Medicion medicion = contador.abrir();
+        Object resultado;
+        try {
+            resultado = jp.proceed();
+        } finally {
+            contador.cerrar(medicion);
+        }
+
+        Class<?> objetivo = ClassUtils.getUserClass(jp.getTarget());
+        Method metodo = AopUtils.getMostSpecificMethod(((MethodSignature) jp.getSignature()).getMethod(), objetivo);
+        PresupuestoConsultas presupuesto = metodo.getAnnotation(PresupuestoConsultas.class);
+        int sentencias = medicion.sentencias();
+        if (sentencias <= presupuesto.value()) return resultado;
+
+        String clase = objetivo.getSimpleName();
+        String nombre = metodo.getName();
+        List<String> formas = medicion.formas(FORMAS);
+        log.warn("presupuesto excedido metodo={}.{} sentencias={} presupuesto={} formas={}",
+                clase, nombre, sentencias, presupuesto.value(), formas);
+        Counter.builder(EXCEDIDO).tag("clase", clase).tag("metodo", nombre).register(registro).increment();
+        if (estricto) {
+            throw new PresupuestoConsultasExcedidoException(clase + "." + nombre + ": " + sentencias
+                    + " sentencias, presupuesto " + presupuesto.value() + ", " + String.join("; ", formas));
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,88 @@
+package es.uvigo.dagss.recetas.servicios.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Tiempo de cada método público de los @Service (recetas.servicio) y de cada consulta de los DAO
+ * (recetas.dao), con histograma para los percentiles, por clase, método y excepción. Con
+ * recetas.metricas.activas=false no se crea y los beans quedan sin aspecto.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "recetas.metricas.activas", havingValue = "true", matchIfMissing = true)
+public class MedicionMetodos {
+
+    static final String SERVICIO = "recetas.servicio";
+    static final String DAO = "recetas.dao";
+    private static final String SIN_EXCEPCION = "none";
+
+    private final MeterRegistry registro;
+    /** Un Timer por método y resultado: el builder no se repite en cada llamada */
+    private final Map<Clave, Timer> timers = new ConcurrentHashMap<>();
+
+    public MedicionMetodos(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object servicio(ProceedingJoinPoint jp) throws Throwable {
+        return medir(SERVICIO, ClassUtils.getUserClass(jp.getTarget()).getSimpleName(), jp);
+    }
+
+    /** Las declaradas en cada DAO y las heredadas de JpaRepository (findById, save...) */
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object dao(ProceedingJoinPoint jp) throws Throwable {
+        return medir(DAO, dao(jp.getThis().getClass()), jp);
+    }
+
+    private Object medir(String nombre, String clase, ProceedingJoinPoint jp) throws Throwable {
+        Method metodo = ((MethodSignature) jp.getSignature()).getMethod();
+        long t0 = System.nanoTime();
+        String excepcion = SIN_EXCEPCION;
+        try {
+            return jp.proceed();
+        } catch (Throwable e) {
+            excepcion = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            timer(new Clave(nombre, clase, metodo.getName(), excepcion)).record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Clave c) {
+        Timer t = timers.get(c);
+        if (t != null) return t;
+        return timers.computeIfAbsent(c, k -> Timer.builder(k.nombre())
+                .tag("clase", k.clase())
+                .tag("metodo", k.metodo())
+                .tag("excepcion", k.excepcion())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registro));
+    }
+
+    /** El interfaz XxxDAO que implementa el proxy de Spring Data */
+    private static String dao(Class<?> proxy) {
+        for (Class<?> i : proxy.getInterfaces()) {
+            if (i.getPackageName().equals("es.uvigo.dagss.recetas.repositorios")) return i.getSimpleName();
+        }
+        return proxy.getSimpleName();
+    }
+
+    private record Clave(String nombre, String clase, String metodo, String excepcion) {
+    }
+}
@@ -0,0 +1,74 @@
+package es.uvigo.dagss.recetas.servicios.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Sentencias SQL de cada petición REST (recetas.peticion.sentencias, por método y ruta) y una
+ * línea clave=valor por petición en el log es.uvigo.dagss.recetas.peticiones; en WARN si pasa de
+ * recetas.metricas.umbral-sentencias, que suele ser un N+1, con las formas de consulta más repetidas.
+ */
+@Component
+@ConditionalOnProperty(name = "recetas.metricas.activas", havingValue = "true", matchIfMissing = true)
+public class MedicionPeticiones extends OncePerRequestFilter {
+
+    static final String SENTENCIAS = "recetas.peticion.sentencias";
+    private static final Logger log = LoggerFactory.getLogger("es.uvigo.dagss.recetas.peticiones");
+    private static final int FORMAS = 3;
+
+    private final ContadorSentencias contador;
+    private final MeterRegistry registro;
+    private final int umbral;
+
+    public MedicionPeticiones(ContadorSentencias contador,
+                              MeterRegistry registro,
+                              @Value("${recetas.metricas.umbral-sentencias:25}") int umbral) {
+        this.contador = contador;
+        this.registro = registro;
+        this.umbral = umbral;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long t0 = System.nanoTime();
+        ContadorSentencias.Medicion medicion = contador.abrir();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            contador.cerrar(medicion);
+            int sentencias = medicion.sentencias();
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String ruta = patron == null ? "desconocida" : patron.toString();
+
+            DistributionSummary.builder(SENTENCIAS)
+                    .tag("metodo", request.getMethod())
+                    .tag("ruta", ruta)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(1000.0)
+                    .register(registro)
+                    .record(sentencias);
+
+            if (sentencias > umbral) {
+                log.warn("peticion metodo={} ruta={} estado={} ms={} sentencias={} umbral={} formas={}",
+                        request.getMethod(), ruta, response.getStatus(), ms, sentencias, umbral, medicion.formas(FORMAS));
+            } else if (log.isInfoEnabled()) {
+                log.info("peticion metodo={} ruta={} estado={} ms={} sentencias={}",
+                        request.getMethod(), ruta, response.getStatus(), ms, sentencias);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package es.uvigo.dagss.recetas.servicios.metricas;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de sentencias SQL de una llamada al método, contando las de los que llame y el flush del
+ * commit. Debe ser independiente del número de filas: si crece con ellas es un N+1. Lo comprueba
+ * ControlPresupuestos. Dentro de la transacción de otro método también cuentan los cambios
+ * pendientes de este que se vacíen durante la llamada: no vale para los que solo se llaman así.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface PresupuestoConsultas {
+
+    int value();
+}
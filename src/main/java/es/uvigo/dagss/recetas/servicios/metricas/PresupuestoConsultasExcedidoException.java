@@ -0,0 +1,9 @@
+package es.uvigo.dagss.recetas.servicios.metricas;
+
+/** Un método con @PresupuestoConsultas lanzó más sentencias de las previstas (modo estricto) */
+public class PresupuestoConsultasExcedidoException extends IllegalStateException {
+
+    public PresupuestoConsultasExcedidoException(String mensaje) {
+        super(mensaje);
+    }
+}
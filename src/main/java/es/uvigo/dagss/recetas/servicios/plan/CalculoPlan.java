@@ -0,0 +1,97 @@
+package es.uvigo.dagss.recetas.servicios.plan;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * HU-M5: aritmética del plan de recetas con enteros.
+ *
+ * Mismos resultados que el cálculo con BigDecimal: la dosis diaria es el decimal de
+ * BigDecimal.valueOf(dosis) ({@code unidades / 10^escala}), las cajas se redondean con CEILING,
+ * los días por caja con HALF_UP a 8 decimales (se guardan en cienmillonésimas de día) y el
+ * desplazamiento de cada caja con FLOOR. Si algún producto no cabe en un long, las constantes
+ * del plan se calculan con BigDecimal; el recorrido de las cajas es siempre con enteros.
+ */
+public final class CalculoPlan {
+
+    private static final int DECIMALES = 8;
+    private static final long ESCALA = 100_000_000L; // 10^DECIMALES
+    private static final long[] POTENCIAS = new long[DECIMALES + 1];
+
+    static {
+        POTENCIAS[0] = 1;
+        for (int i = 1; i < POTENCIAS.length; i++) POTENCIAS[i] = POTENCIAS[i - 1] * 10;
+    }
+
+    private final int cajas;
+    private final long diasPorCaja;
+
+    private CalculoPlan(int cajas, long diasPorCaja) {
+        this.cajas = cajas;
+        this.diasPorCaja = diasPorCaja;
+    }
+
+    /**
+     * @param dias         días del tratamiento, inclusivo (&gt; 0)
+     * @param dosisDiaria  &gt; 0
+     * @param dosisEnvase  &gt; 0
+     * @throws ArithmeticException si el número de cajas no cabe en un int
+     */
+    public static CalculoPlan de(long dias, double dosisDiaria, int dosisEnvase) {
+        // dosisDiaria = unidades / 10^escala con la escala más pequeña que la representa
+        for (int escala = 0; escala <= DECIMALES; escala++) {
+            double x = dosisDiaria * POTENCIAS[escala];
+            if (x >= 0x1p53) break;
+            long unidades = (long) Math.rint(x);
+            if (unidades > 0 && unidades / (double) POTENCIAS[escala] == dosisDiaria) {
+                CalculoPlan c = conEnteros(dias, unidades, escala, dosisEnvase);
+                if (c != null) return c;
+                break;
+            }
+        }
+        return conBigDecimal(dias, dosisDiaria, dosisEnvase);
+    }
+
+    /** null si algún producto se sale de un long */
+    private static CalculoPlan conEnteros(long dias, long unidades, int escala, int dosisEnvase) {
+        try {
+            // cajas = ceil(dias * dosis / envase)
+            long total = Math.multiplyExact(dias, unidades);
+            long porCaja = Math.multiplyExact((long) dosisEnvase, POTENCIAS[escala]);
+            long cajas = total / porCaja + (total % porCaja == 0 ? 0 : 1);
+
+            // diasPorCaja = envase / dosis a 8 decimales, HALF_UP
+            long num = Math.multiplyExact(Math.multiplyExact((long) dosisEnvase, POTENCIAS[escala]), ESCALA);
+            long q = num / unidades;
+            long r = num % unidades;
+            if (r >= unidades - r) q++;
+
+            return new CalculoPlan(Math.max(1, Math.toIntExact(cajas)), q);
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static CalculoPlan conBigDecimal(long dias, double dosisDiaria, int dosisEnvase) {
+        BigDecimal dosis = BigDecimal.valueOf(dosisDiaria);
+        BigDecimal envase = BigDecimal.valueOf(dosisEnvase);
+        int cajas = BigDecimal.valueOf(dias).multiply(dosis).divide(envase, 0, RoundingMode.CEILING).intValueExact();
+        if (cajas <= 1) return new CalculoPlan(1, 0); // solo la caja 0, desplazamiento 0
+        long diasPorCaja = envase.divide(dosis, DECIMALES, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        return new CalculoPlan(cajas, diasPorCaja);
+    }
+
+    public int cajas() {
+        return cajas;
+    }
+
+    /** Días desde el inicio del tratamiento hasta la caja {@code i} (desde 0), redondeando hacia abajo */
+    public long desplazamiento(int i) {
+        long producto = diasPorCaja * i;
+        if (Math.multiplyHigh(diasPorCaja, i) == 0 && producto >= 0) {
+            return producto / ESCALA;
+        }
+        return BigDecimal.valueOf(diasPorCaja).multiply(BigDecimal.valueOf(i))
+                .divide(BigDecimal.valueOf(ESCALA), 0, RoundingMode.FLOOR).longValue();
+    }
+}
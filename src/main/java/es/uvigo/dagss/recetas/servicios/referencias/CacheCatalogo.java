@@ -0,0 +1,45 @@
+package es.uvigo.dagss.recetas.servicios.referencias;
+
+import es.uvigo.dagss.recetas.servicios.dto.EstadisticasRegion;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Regiones de la caché de segundo nivel (ehcache.xml): Medicamento, CentroSalud, Farmacia y los
+ * listados de activos. Hibernate las mantiene al escribir por la sesión; aquí solo se leen sus
+ * contadores (hibernate.generate_statistics).
+ */
+@Component
+public class CacheCatalogo {
+
+    /** Regiones de entidades, las de @Cache */
+    public static final List<String> ENTIDADES = List.of("catalogo.medicamento", "catalogo.centro-salud", "catalogo.farmacia");
+    /** Región de la caché de consultas de los DAO */
+    public static final String LISTADOS = "catalogo.listados";
+
+    private final Statistics estadisticas;
+
+    public CacheCatalogo(EntityManagerFactory emf) {
+        this.estadisticas = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<EstadisticasRegion> regiones() {
+        List<EstadisticasRegion> res = new ArrayList<>();
+        for (String region : ENTIDADES) {
+            res.add(de(region, estadisticas.getDomainDataRegionStatistics(region)));
+        }
+        res.add(de(LISTADOS, estadisticas.getQueryRegionStatistics(LISTADOS)));
+        return res;
+    }
+
+    private static EstadisticasRegion de(String region, CacheRegionStatistics s) {
+        return s == null
+                ? new EstadisticasRegion(region, 0, 0, 0)
+                : new EstadisticasRegion(region, s.getHitCount(), s.getMissCount(), s.getPutCount());
+    }
+}
@@ -0,0 +1,227 @@
+package es.uvigo.dagss.recetas.servicios.referencias;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.InvalidacionReferencia;
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.entidades.TipoReferencia;
+import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
+import es.uvigo.dagss.recetas.repositorios.InvalidacionReferenciaDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.servicios.dto.CentroSaludReferencia;
+import es.uvigo.dagss.recetas.servicios.dto.EstadisticasCache;
+import es.uvigo.dagss.recetas.servicios.dto.MedicamentoReferencia;
+import es.uvigo.dagss.recetas.servicios.dto.MedicoReferencia;
+import es.uvigo.dagss.recetas.servicios.eventos.MedicamentoModificado;
+import es.uvigo.dagss.recetas.servicios.eventos.ReferenciaModificada;
+import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Centros de salud, médicos y medicamentos que se leen en cada alta de paciente o de médico y en
+ * cada prescripción. Se guardan como instantáneas inmutables en una caché LRU acotada con
+ * caducidad, como HuecosAgenda: el servicio valida con la instantánea y enlaza la entidad con
+ * getReferenceById, sin SELECT.
+ *
+ * Cada edición o baja confirmada saca su entrada. Con varios nodos
+ * (recetas.referencias.invalidacion-compartida) deja además una fila en InvalidacionReferencia
+ * dentro de su transacción, y cada nodo lee en cada sondeo las de los últimos minutos. Las de
+ * medicamentos se vuelven a publicar como MedicamentoModificado, con el medicamento recién leído,
+ * para que IndiceMedicamentos y SugerenciasMedicamentos de ese nodo también se pongan al día. Antes
+ * se sacan medicamentos y centros de la caché de segundo nivel del nodo, que no ve los cambios de
+ * los demás hasta que caduca.
+ */
+@Component
+public class CacheReferencias {
+
+    /** Ventana de cada sondeo: cubre lo que tarde en confirmarse la transacción y el desfase de relojes */
+    private static final Duration VENTANA = Duration.ofMinutes(1);
+    private static final Duration RETENCION = Duration.ofHours(1);
+
+    private final CentroSaludDAO centroSaludDAO;
+    private final MedicoDAO medicoDAO;
+    private final MedicamentoDAO medicamentoDAO;
+    private final InvalidacionReferenciaDAO invalidacionDAO;
+    private final ApplicationEventPublisher eventos;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate transaccion;
+    private final int tamanoMaximo;
+    private final long ttlNanos;
+    private final boolean compartida;
+    private final Map<Clave, Entrada> entradas;
+
+    /** Cambia con cada invalidación: una carga que lo ve cambiar no se guarda (puede ser vieja) */
+    private long generacion;
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+    private long invalidaciones;
+
+    /** Invalidaciones de otros nodos ya aplicadas, hasta que salen de la ventana */
+    private final Map<Long, LocalDateTime> aplicadas = new ConcurrentHashMap<>();
+    private volatile LocalDateTime siguientePurga = LocalDateTime.MIN;
+
+    public CacheReferencias(CentroSaludDAO centroSaludDAO,
+                            MedicoDAO medicoDAO,
+                            MedicamentoDAO medicamentoDAO,
+                            InvalidacionReferenciaDAO invalidacionDAO,
+                            ApplicationEventPublisher eventos,
+                            EntityManagerFactory emf,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${recetas.referencias.cache-tamano:10000}") int tamanoMaximo,
+                            @Value("${recetas.referencias.cache-ttl:PT10M}") Duration ttl,
+                            @Value("${recetas.referencias.invalidacion-compartida:false}") boolean compartida) {
+        this.centroSaludDAO = centroSaludDAO;
+        this.medicoDAO = medicoDAO;
+        this.medicamentoDAO = medicamentoDAO;
+        this.invalidacionDAO = invalidacionDAO;
+        this.eventos = eventos;
+        this.emf = emf;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoMaximo = tamanoMaximo;
+        this.ttlNanos = ttl.toNanos();
+        this.compartida = compartida;
+        this.entradas = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                if (size() <= CacheReferencias.this.tamanoMaximo) return false;
+                expulsiones++;
+                return true;
+            }
+        };
+    }
+
+    public CentroSaludReferencia centroSalud(Long id) {
+        return obtener(TipoReferencia.CENTRO_SALUD, id, () -> centroSaludDAO.findReferencia(id),
+                "Centro de salud no encontrado: ");
+    }
+
+    public MedicoReferencia medico(Long id) {
+        return obtener(TipoReferencia.MEDICO, id, () -> medicoDAO.findReferencia(id), "Médico no encontrado: ");
+    }
+
+    public MedicamentoReferencia medicamento(Long id) {
+        return obtener(TipoReferencia.MEDICAMENTO, id, () -> medicamentoDAO.findReferencia(id),
+                "Medicamento no encontrado: ");
+    }
+
+    public synchronized EstadisticasCache estadisticas() {
+        return new EstadisticasCache(aciertos, fallos, expulsiones, invalidaciones, entradas.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T obtener(TipoReferencia tipo, Long id, Supplier<Optional<T>> carga, String noEncontrado) {
+        Clave clave = new Clave(tipo, id);
+        long ahora = System.nanoTime();
+        long generacionLeida;
+        synchronized (this) {
+            Entrada e = entradas.get(clave);
+            if (e != null && ahora - e.cargada < ttlNanos) {
+                aciertos++;
+                return (T) e.valor;
+            }
+            fallos++;
+            generacionLeida = generacion;
+        }
+
+        T valor = carga.get().orElseThrow(() -> new RecursoNoEncontradoException(noEncontrado + id));
+        synchronized (this) {
+            if (generacion == generacionLeida) {
+                entradas.put(clave, new Entrada(valor, ahora));
+            }
+        }
+        return valor;
+    }
+
+    private synchronized void invalidar(TipoReferencia tipo, Long id) {
+        generacion++;
+        if (entradas.remove(new Clave(tipo, id)) != null) {
+            invalidaciones++;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificar(ReferenciaModificada evento) {
+        invalidar(evento.tipo(), evento.id());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificar(MedicamentoModificado evento) {
+        invalidar(TipoReferencia.MEDICAMENTO, evento.medicamento().getId());
+    }
+
+    /** Con varios nodos, la fila que leerán los demás se confirma con el cambio */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void registrar(ReferenciaModificada evento) {
+        if (compartida) {
+            invalidacionDAO.save(new InvalidacionReferencia(evento.tipo(), evento.id(), LocalDateTime.now()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void registrar(MedicamentoModificado evento) {
+        registrar(new ReferenciaModificada(TipoReferencia.MEDICAMENTO, evento.medicamento().getId()));
+    }
+
+    /** Aplica los cambios de los demás nodos; devuelve cuántas invalidaciones nuevas ha leído */
+    @Scheduled(fixedDelayString = "${recetas.referencias.sondeo:PT5S}")
+    public int sondear() {
+        if (!compartida) return 0;
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime desde = ahora.minus(VENTANA);
+        int nuevas = 0;
+        for (InvalidacionReferencia i : invalidacionDAO.findByCreadaGreaterThanEqualOrderById(desde)) {
+            if (aplicadas.putIfAbsent(i.getId(), i.getCreada()) == null) {
+                invalidar(i.getTipo(), i.getEntidadId());
+                desalojar(i.getTipo(), i.getEntidadId());
+                if (i.getTipo() == TipoReferencia.MEDICAMENTO) {
+                    // fuera de transacción: los índices lo aplican ya y no se escribe otra fila
+                    medicamentoDAO.findById(i.getEntidadId())
+                            .ifPresent(m -> eventos.publishEvent(new MedicamentoModificado(m)));
+                }
+                nuevas++;
+            }
+        }
+        aplicadas.values().removeIf(creada -> creada.isBefore(desde));
+
+        if (ahora.isAfter(siguientePurga)) {
+            transaccion.executeWithoutResult(tx -> invalidacionDAO.borrarAnteriores(ahora.minus(RETENCION)));
+            siguientePurga = ahora.plus(VENTANA.multipliedBy(10));
+        }
+        return nuevas;
+    }
+
+    /** Saca la entidad de la caché de segundo nivel, y los listados de activos que pueden incluirla */
+    private void desalojar(TipoReferencia tipo, Long id) {
+        switch (tipo) {
+            case CENTRO_SALUD -> emf.getCache().evict(CentroSalud.class, id);
+            case MEDICAMENTO -> emf.getCache().evict(Medicamento.class, id);
+            default -> {
+                return; // los médicos no están en la caché de segundo nivel
+            }
+        }
+        emf.unwrap(SessionFactory.class).getCache().evictQueryRegion("catalogo.listados");
+    }
+
+    private record Clave(TipoReferencia tipo, Long id) {
+    }
+
+    private record Entrada(Object valor, long cargada) {
+    }
+}
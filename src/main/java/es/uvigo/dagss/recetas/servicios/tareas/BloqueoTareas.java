@@ -0,0 +1,77 @@
+package es.uvigo.dagss.recetas.servicios.tareas;
+
+import es.uvigo.dagss.recetas.repositorios.BloqueoTareaDAO;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tareas programadas que con varios nodos debe ejecutar solo uno. El bloqueo es una fila de
+ * BloqueoTarea que se toma con un UPDATE condicional, sin bloqueos pesimistas, y caduca a los
+ * {@code maximo} de tomarlo por si el nodo cae a mitad.
+ */
+@Component
+public class BloqueoTareas {
+
+    private static final Logger log = LoggerFactory.getLogger(BloqueoTareas.class);
+
+    private final BloqueoTareaDAO bloqueoTareaDAO;
+    private final TransactionTemplate transaccion;
+    private final String nodo;
+
+    public BloqueoTareas(BloqueoTareaDAO bloqueoTareaDAO,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${recetas.tareas.nodo:}") String nodo) {
+        this.bloqueoTareaDAO = bloqueoTareaDAO;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodo = nodo.isBlank() ? nombreNodo() : nodo;
+    }
+
+    /** Ejecuta la tarea si no la tiene otro nodo; devuelve false si la tenía */
+    public boolean ejecutar(String tarea, Duration maximo, Runnable trabajo) {
+        if (!adquirir(tarea, maximo)) {
+            log.info("La tarea {} se está ejecutando en otro nodo", tarea);
+            return false;
+        }
+        try {
+            trabajo.run();
+            return true;
+        } finally {
+            transaccion.executeWithoutResult(tx -> bloqueoTareaDAO.liberar(tarea, nodo, LocalDateTime.now()));
+        }
+    }
+
+    private boolean adquirir(String tarea, Duration maximo) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Integer n = transaccion.execute(tx -> bloqueoTareaDAO.adquirir(tarea, nodo, ahora, ahora.plus(maximo)));
+        if (n == 1) return true;
+        if (bloqueoTareaDAO.existsById(tarea)) return false;
+        try {
+            // primera vez que se ejecuta la tarea: si otro nodo crea la fila a la vez, la tiene él
+            transaccion.executeWithoutResult(tx -> bloqueoTareaDAO.crear(tarea, nodo, ahora.plus(maximo)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private static String nombreNodo() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "nodo";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,29 @@
+-- Índices compuestos de las consultas frecuentes de los DAO. El orden de las columnas sigue
+-- el de los filtros: primero las igualdades, después el rango o el ORDER BY, para que el
+-- listado salga del índice sin ordenar. IndicesConsultasTest comprueba con EXPLAIN que
+-- ninguna consulta de los DAO recorre una tabla entera.
+
+-- Agenda del médico: citas de un día por estado y hora; huecos ocupados de un rango de días
+create index IDX_CITA_MEDICO_FECHA on Cita (medico_id, fecha, estado, horaInicio);
+-- Próximas citas del paciente
+create index IDX_CITA_PACIENTE_ESTADO on Cita (paciente_id, estado, fecha, horaInicio);
+-- Citas de un día (administración), con médico y paciente opcionales
+create index IDX_CITA_FECHA on Cita (fecha, horaInicio);
+
+-- Recetas pendientes de una prescripción y anulaciones por prescripción
+create index IDX_RECETA_PRESCRIPCION on Receta (prescripcion_id, estado, fechaValidezFinal);
+
+-- Prescripciones en vigor del paciente; bajas de paciente y de médico
+create index IDX_PRESCRIPCION_PACIENTE on Prescripcion (paciente_id, activa, fechaFin);
+create index IDX_PRESCRIPCION_MEDICO on Prescripcion (medico_id, activa);
+-- Tarea diaria del plan por ventana
+create index IDX_PRESCRIPCION_PLAN on Prescripcion (activa, fechaSiguienteReceta);
+
+-- Listados de activos en el orden de la paginación por clave
+create index IDX_PACIENTE_LISTADO on Paciente (activo, apellidos, nombre, id);
+create index IDX_MEDICO_LISTADO on Medico (activo, apellidos, nombre, id);
+create index IDX_MEDICO_CENTRO on Medico (centro_salud_id, activo, apellidos, nombre);
+create index IDX_FARMACIA_LISTADO on Farmacia (activo, nombreEstablecimiento, id);
+create index IDX_ADMINISTRADOR_LISTADO on Administrador (activo, login, id);
+create index IDX_MEDICAMENTO_LISTADO on Medicamento (activo, nombreComercial);
+create index IDX_CENTRO_LISTADO on CentroSalud (activo, nombre);
@@ -0,0 +1,12 @@
+-- Cambios de centros, médicos y medicamentos para las cachés de referencia de los demás nodos
+-- (CacheReferencias, recetas.referencias.invalidacion-compartida)
+
+create table InvalidacionReferencia (
+    creada datetime(6) not null,
+    entidadId bigint not null,
+    id bigint not null auto_increment,
+    tipo enum ('CENTRO_SALUD','MEDICAMENTO','MEDICO') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index IDX_INVALIDACION_CREADA on InvalidacionReferencia (creada);
@@ -0,0 +1,217 @@
+-- Esquema de partida, tal como lo dejaba ddl-auto=update (MariaDB) antes de las migraciones.
+-- Las BD que ya existían no ejecutan este script: Flyway las marca en la versión 1
+-- (spring.flyway.baseline-on-migrate) y continúa desde V2. Cada cambio posterior del esquema,
+-- con la migración de los datos que ya hubiera, va en su propia versión.
+
+create table Administrador (
+    activo bit,
+    fechaAlta datetime(6),
+    id bigint not null,
+    ultimoAcceso datetime(6),
+    email varchar(255),
+    login varchar(255),
+    nombre varchar(255),
+    password varchar(255),
+    TIPO_USUARIO enum ('ADMINISTRADOR','FARMACIA','MEDICO','PACIENTE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table CentroSalud (
+    activo bit,
+    id bigint not null auto_increment,
+    codigoPostal varchar(255),
+    domicilio varchar(255),
+    email varchar(255),
+    localidad varchar(255),
+    nombre varchar(255),
+    provincia varchar(255),
+    telefono varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table Cita (
+    duracion integer,
+    fecha date,
+    horaInicio time(6),
+    id bigint not null auto_increment,
+    medico_id bigint not null,
+    paciente_id bigint not null,
+    estado enum ('ANULADA','AUSENTE','COMPLETADA','PLANIFICADA'),
+    primary key (id)
+) engine=InnoDB;
+
+create table Farmacia (
+    activo bit,
+    fechaAlta datetime(6),
+    id bigint not null,
+    ultimoAcceso datetime(6),
+    apellidosFarmaceutico varchar(255),
+    codigoPostal varchar(255),
+    domicilio varchar(255),
+    email varchar(255),
+    localidad varchar(255),
+    login varchar(255),
+    nif varchar(255),
+    nombreEstablecimiento varchar(255),
+    nombreFarmaceutico varchar(255),
+    numeroColegiadoFarmaceutico varchar(255),
+    password varchar(255),
+    provincia varchar(255),
+    telefono varchar(255),
+    TIPO_USUARIO enum ('ADMINISTRADOR','FARMACIA','MEDICO','PACIENTE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table Medicamento (
+    activo bit,
+    numeroDosis integer,
+    id bigint not null auto_increment,
+    fabricante varchar(255),
+    familia varchar(255),
+    nombreComercial varchar(255),
+    principioActivo varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table Medico (
+    activo bit,
+    centro_salud_id bigint,
+    fechaAlta datetime(6),
+    id bigint not null,
+    ultimoAcceso datetime(6),
+    apellidos varchar(255),
+    dni varchar(255),
+    email varchar(255),
+    login varchar(255),
+    nombre varchar(255),
+    numeroColegiado varchar(255),
+    password varchar(255),
+    telefono varchar(255),
+    TIPO_USUARIO enum ('ADMINISTRADOR','FARMACIA','MEDICO','PACIENTE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table Paciente (
+    activo bit,
+    fechaNacimiento date,
+    centro_salud_id bigint,
+    fechaAlta datetime(6),
+    id bigint not null,
+    medico_id bigint,
+    ultimoAcceso datetime(6),
+    apellidos varchar(255),
+    codigoPostal varchar(255),
+    dni varchar(255),
+    domicilio varchar(255),
+    email varchar(255),
+    localidad varchar(255),
+    login varchar(255),
+    nombre varchar(255),
+    numeroSeguridadSocial varchar(255),
+    numeroTarjetaSanitaria varchar(255),
+    password varchar(255),
+    provincia varchar(255),
+    telefono varchar(255),
+    TIPO_USUARIO enum ('ADMINISTRADOR','FARMACIA','MEDICO','PACIENTE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table Prescripcion (
+    activa bit,
+    dosisDiaria float(53),
+    fechaFin date,
+    fechaInicio date,
+    id bigint not null auto_increment,
+    medicamento_id bigint not null,
+    medico_id bigint not null,
+    paciente_id bigint not null,
+    indicaciones varchar(1000),
+    primary key (id)
+) engine=InnoDB;
+
+create table Receta (
+    fechaValidezFinal date,
+    fechaValidezInicial date,
+    numeroUnidades integer,
+    farmacia_id bigint,
+    id bigint not null auto_increment,
+    prescripcion_id bigint not null,
+    estado enum ('ANULADA','PLANIFICADA','SERVIDA'),
+    primary key (id)
+) engine=InnoDB;
+
+create table USUARIO_GEN (
+    GEN_VAL bigint,
+    GEN_NAME varchar(255) not null,
+    primary key (GEN_NAME)
+) engine=InnoDB;
+
+insert into USUARIO_GEN(GEN_NAME, GEN_VAL) values ('Usuario',0);
+
+alter table if exists Farmacia
+   add constraint UK6bx7i0a5uc09tci8mktimcvte unique (numeroColegiadoFarmaceutico);
+
+alter table if exists Medico
+   add constraint UKlwr0uvdufj2is3e2i09657368 unique (dni);
+
+alter table if exists Medico
+   add constraint UKdx0fpbk6pelav5amgo0f0eddw unique (numeroColegiado);
+
+alter table if exists Paciente
+   add constraint UKkxbxfk1yx0tp4ke48of8fthf5 unique (dni);
+
+alter table if exists Paciente
+   add constraint UKfudxvicksj5x1jldn5jg8c2cm unique (numeroSeguridadSocial);
+
+alter table if exists Paciente
+   add constraint UKd6g0m59l56rx9w72d8m2nkrcs unique (numeroTarjetaSanitaria);
+
+alter table if exists Cita
+   add constraint FKbvtwa1bvf634woksjodstaj49
+   foreign key (medico_id)
+   references Medico (id);
+
+alter table if exists Cita
+   add constraint FKr9yagv0goq4mxnonolfwny5hm
+   foreign key (paciente_id)
+   references Paciente (id);
+
+alter table if exists Medico
+   add constraint FKpxjghijnbm9x5lkewk3ews5b7
+   foreign key (centro_salud_id)
+   references CentroSalud (id);
+
+alter table if exists Paciente
+   add constraint FKmjfifh3fu9ry7oc004xjmvh6d
+   foreign key (centro_salud_id)
+   references CentroSalud (id);
+
+alter table if exists Paciente
+   add constraint FKemevb802p6qxilp2j7vcww5me
+   foreign key (medico_id)
+   references Medico (id);
+
+alter table if exists Prescripcion
+   add constraint FK4mtojum93ohoj91b031tkqslb
+   foreign key (medicamento_id)
+   references Medicamento (id);
+
+alter table if exists Prescripcion
+   add constraint FK6scssqbqd5qniet8cgex8dnir
+   foreign key (medico_id)
+   references Medico (id);
+
+alter table if exists Prescripcion
+   add constraint FKt9twch3x6awkgalbk6ghvvegu
+   foreign key (paciente_id)
+   references Paciente (id);
+
+alter table if exists Receta
+   add constraint FKhxe9pdivtq69d8n2lpkw5aq21
+   foreign key (farmacia_id)
+   references Farmacia (id);
+
+alter table if exists Receta
+   add constraint FK4sc6anv3wtgeqnbyp6jvw0hm4
+   foreign key (prescripcion_id)
+   references Prescripcion (id);
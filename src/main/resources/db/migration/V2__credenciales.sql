@@ -0,0 +1,42 @@
+-- Credencial: login, tipo y contraseña de cada usuario en una sola tabla con el login como clave,
+-- para resolver el login sin consultar las cuatro tablas de usuario
+
+create table Credencial (
+    activo bit,
+    usuarioId bigint not null,
+    login varchar(255) not null,
+    password varchar(255),
+    TIPO_USUARIO enum ('ADMINISTRADOR','FARMACIA','MEDICO','PACIENTE') not null,
+    primary key (login)
+) engine=InnoDB;
+
+-- credenciales de los usuarios que ya había; si un login se repite se queda el primero que se
+-- encuentra (administradores, farmacias, médicos y pacientes, por id)
+
+insert into Credencial (login, usuarioId, TIPO_USUARIO, password, activo)
+select u.login, u.id, 'ADMINISTRADOR', u.password, u.activo
+from Administrador u
+where u.login is not null
+  and u.id = (select min(o.id) from Administrador o where o.login = u.login)
+  and not exists (select 1 from Credencial c where c.login = u.login);
+
+insert into Credencial (login, usuarioId, TIPO_USUARIO, password, activo)
+select u.login, u.id, 'FARMACIA', u.password, u.activo
+from Farmacia u
+where u.login is not null
+  and u.id = (select min(o.id) from Farmacia o where o.login = u.login)
+  and not exists (select 1 from Credencial c where c.login = u.login);
+
+insert into Credencial (login, usuarioId, TIPO_USUARIO, password, activo)
+select u.login, u.id, 'MEDICO', u.password, u.activo
+from Medico u
+where u.login is not null
+  and u.id = (select min(o.id) from Medico o where o.login = u.login)
+  and not exists (select 1 from Credencial c where c.login = u.login);
+
+insert into Credencial (login, usuarioId, TIPO_USUARIO, password, activo)
+select u.login, u.id, 'PACIENTE', u.password, u.activo
+from Paciente u
+where u.login is not null
+  and u.id = (select min(o.id) from Paciente o where o.login = u.login)
+  and not exists (select 1 from Credencial c where c.login = u.login);
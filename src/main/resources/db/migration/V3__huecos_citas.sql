@@ -0,0 +1,19 @@
+-- Un hueco (médico, día y hora) solo lo puede ocupar una cita PLANIFICADA: ocupaHueco es true en
+-- las planificadas y null en las demás, que así no chocan en UK_CITA_HUECO. version, para el
+-- control optimista de los cambios de estado
+
+alter table Cita add column ocupaHueco bit;
+alter table Cita add column version bigint;
+
+update Cita set version = 0;
+
+-- De las planificadas que ya compartían hueco, solo la primera lo reserva; las demás quedan
+-- planificadas sin ocuparlo
+update Cita set ocupaHueco = true
+where estado = 'PLANIFICADA'
+  and id in (select primera from (select min(id) as primera from Cita
+                                  where estado = 'PLANIFICADA'
+                                  group by medico_id, fecha, horaInicio) primeras);
+
+alter table Cita
+   add constraint UK_CITA_HUECO unique (medico_id, fecha, horaInicio, ocupaHueco);
@@ -0,0 +1,14 @@
+-- Ids de receta por bloques desde RECETA_GEN en vez de IDENTITY, para insertar el plan de
+-- recetas en lotes JDBC (GeneradorIdPorBloques). El contador empieza detrás de la última receta
+-- que numeró IDENTITY; Flyway lo deja listo antes de que arranque Hibernate
+
+create table RECETA_GEN (
+    GEN_VAL bigint,
+    GEN_NAME varchar(255) not null,
+    primary key (GEN_NAME)
+) engine=InnoDB;
+
+insert into RECETA_GEN(GEN_NAME, GEN_VAL)
+select 'Receta', coalesce(max(id) + 1, 0) from Receta;
+
+alter table Receta modify column id bigint not null;
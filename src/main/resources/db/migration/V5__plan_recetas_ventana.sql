@@ -0,0 +1,5 @@
+-- Plan de recetas por ventana: número y fecha de la siguiente receta por generar. Null en las
+-- prescripciones anteriores, que ya tienen todas sus recetas
+
+alter table Prescripcion add column siguienteReceta integer;
+alter table Prescripcion add column fechaSiguienteReceta date;
@@ -0,0 +1,52 @@
+-- Modelo de lectura de la dispensación: una fila por receta PLANIFICADA de prescripción activa,
+-- con los datos del paciente, medicamento y médico que muestra la farmacia
+
+create table RecetaDispensable (
+    dosisDiaria float(53),
+    fechaValidezFinal date,
+    fechaValidezInicial date,
+    numeroDosis integer,
+    numeroUnidades integer,
+    medicamentoId bigint,
+    medicoId bigint,
+    pacienteId bigint,
+    prescripcionId bigint,
+    recetaId bigint not null,
+    indicaciones varchar(1000),
+    apellidosMedico varchar(255),
+    nombreComercial varchar(255),
+    nombreMedico varchar(255),
+    numeroTarjetaSanitaria varchar(255),
+    principioActivo varchar(255),
+    primary key (recetaId)
+) engine=InnoDB;
+
+create index IDX_DISPENSABLE_TARJETA
+   on RecetaDispensable (numeroTarjetaSanitaria, fechaValidezFinal, fechaValidezInicial);
+
+create index IDX_DISPENSABLE_PRESCRIPCION
+   on RecetaDispensable (prescripcionId);
+
+create index IDX_DISPENSABLE_PACIENTE
+   on RecetaDispensable (pacienteId);
+
+create index IDX_DISPENSABLE_MEDICO
+   on RecetaDispensable (medicoId);
+
+create index IDX_DISPENSABLE_MEDICAMENTO
+   on RecetaDispensable (medicamentoId);
+
+-- Recetas que ya había
+insert into RecetaDispensable (recetaId, prescripcionId, pacienteId, medicoId, medicamentoId,
+    numeroTarjetaSanitaria, fechaValidezInicial, fechaValidezFinal, numeroUnidades,
+    nombreComercial, principioActivo, numeroDosis, dosisDiaria, indicaciones, nombreMedico, apellidosMedico)
+select r.id, p.id, pa.id, md.id, m.id,
+    pa.numeroTarjetaSanitaria, r.fechaValidezInicial, r.fechaValidezFinal, r.numeroUnidades,
+    m.nombreComercial, m.principioActivo, m.numeroDosis, p.dosisDiaria, p.indicaciones, md.nombre, md.apellidos
+from Receta r
+  join Prescripcion p on p.id = r.prescripcion_id
+  join Paciente pa on pa.id = p.paciente_id
+  join Medico md on md.id = p.medico_id
+  join Medicamento m on m.id = p.medicamento_id
+where p.activa = true
+  and r.estado = 'PLANIFICADA';
@@ -0,0 +1,5 @@
+-- Control optimista al servir: cada receta se sirve una sola vez aunque dos farmacias lo intenten a la vez
+
+alter table Receta add column version bigint;
+
+update Receta set version = 0;
@@ -0,0 +1,6 @@
+-- Caducidad de recetas: estado CADUCADA y el índice de la tarea diaria que busca las PLANIFICADAS vencidas
+
+alter table Receta modify column estado enum ('ANULADA','CADUCADA','PLANIFICADA','SERVIDA');
+
+create index IDX_RECETA_ESTADO_VALIDEZ
+   on Receta (estado, fechaValidezFinal);
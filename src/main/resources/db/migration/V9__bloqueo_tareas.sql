@@ -0,0 +1,12 @@
+-- Tareas programadas en un solo nodo: cada una la ejecuta el que toma su fila de BloqueoTarea.
+-- Índice de la tarea nocturna de ausencias (citas PLANIFICADAS de días pasados)
+
+create table BloqueoTarea (
+    hasta datetime(6),
+    nombre varchar(100) not null,
+    propietario varchar(255),
+    primary key (nombre)
+) engine=InnoDB;
+
+create index IDX_CITA_ESTADO_FECHA
+   on Cita (estado, fecha);
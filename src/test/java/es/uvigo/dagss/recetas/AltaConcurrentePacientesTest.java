@@ -0,0 +1,85 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AltaConcurrentePacientesTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired PacienteService pacienteService;
+  @Autowired JdbcTemplate jdbc;
+
+  CentroSalud centro;
+  Medico medico;
+
+  @BeforeEach void datos() {
+    centro = datos.centro();
+    medico = datos.medico(centro.getId());
+  }
+
+  @Test void ids_unicos_con_altas_concurrentes() throws Exception {
+    Set<Long> ids = altasConcurrentes(8, 400);
+
+    assertThat(ids).hasSize(400);
+    Long maxId = jdbc.queryForObject("select max(id) from Paciente", Long.class);
+    Long siguiente = jdbc.queryForObject("select GEN_VAL from USUARIO_GEN", Long.class);
+    assertThat(siguiente).isGreaterThan(maxId);
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_altas_concurrentes() throws Exception {
+    altasConcurrentes(8, 500); // calentamiento
+
+    // el generador reserva cada bloque con una conexión aparte: hilos < tamaño del pool (10)
+    for (int hilos : List.of(1, 2, 4, 8)) {
+      int n = 4000;
+      long t0 = System.nanoTime();
+      Set<Long> ids = altasConcurrentes(hilos, n);
+      double seg = (System.nanoTime() - t0) / 1e9;
+      assertThat(ids).hasSize(n);
+      System.out.printf("altas pacientes: hilos=%d n=%d %.0f altas/s%n", hilos, n, n / seg);
+    }
+  }
+
+  private Set<Long> altasConcurrentes(int hilos, int n) throws Exception {
+    String lote = DatosPrueba.clave();
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    try {
+      List<Future<?>> tareas = IntStream.range(0, n)
+          .<Future<?>>mapToObj(i -> pool.submit(() -> {
+            String k = lote + "-" + i;
+            Paciente p = pacienteService.crear("pac" + k, "Nombre", "Apellidos " + k, "DNI" + k, "TS" + k, "SS" + k,
+                null, "Vigo", null, null, null, null, null, centro.getId(), medico.getId());
+            ids.add(p.getId());
+          }))
+          .toList();
+      for (Future<?> t : tareas) t.get();
+    } finally {
+      pool.shutdown();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    return ids;
+  }
+}
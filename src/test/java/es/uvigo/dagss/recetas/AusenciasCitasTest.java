@@ -0,0 +1,128 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.repositorios.BloqueoTareaDAO;
+import es.uvigo.dagss.recetas.repositorios.CitaDAO;
+import es.uvigo.dagss.recetas.servicios.AusenciasCitasService;
+import es.uvigo.dagss.recetas.servicios.CitaService;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoAusencias;
+import es.uvigo.dagss.recetas.servicios.tareas.BloqueoTareas;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AusenciasCitasTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired CitaService citaService;
+  @Autowired CitaDAO citaDAO;
+  @Autowired BloqueoTareaDAO bloqueoTareaDAO;
+  @Autowired BloqueoTareas bloqueoTareas;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired JdbcTemplate jdbc;
+
+  @Test void marca_ausentes_por_lotes_las_planificadas_de_dias_pasados() {
+    LocalDate hoy = LocalDate.now();
+    List<Medico> medicos = new ArrayList<>();
+    for (int m = 0; m < 2; m++) {
+      CentroSalud centro = datos.centro();
+      Medico medico = datos.medico(centro.getId());
+      medicos.add(medico);
+      Long paciente = datos.paciente(centro.getId(), medico.getId()).getId();
+      // 4 + m citas de días pasados, una ya completada, y una de hoy que aún no es ausencia
+      for (int i = 0; i < 5 + m; i++) {
+        citaService.crearCitaPaciente(paciente, hoy.minusDays(1 + i), LocalTime.of(9, 0));
+      }
+      Long completada = citaService.crearCitaPaciente(paciente, hoy.minusDays(20), LocalTime.of(9, 0)).getId();
+      citaService.marcarCompletada(completada, medico.getId());
+      citaService.crearCitaPaciente(paciente, hoy, LocalTime.of(9, 0));
+    }
+
+    AusenciasCitasService ausencias = new AusenciasCitasService(citaDAO, bloqueoTareas, transactionManager, 2, Duration.ZERO);
+    ResultadoAusencias resultado = ausencias.marcarAusencias(hoy);
+
+    for (int m = 0; m < 2; m++) {
+      Medico medico = medicos.get(m);
+      assertThat(resultado.porMedico()).containsEntry(medico.getId(), 5L + m);
+      assertThat(resultado.porCentro()).containsEntry(medico.getCentroSalud().getId(), 5L + m);
+      assertThat(estados(medico.getId())).containsEntry("AUSENTE", 5 + m).containsEntry("COMPLETADA", 1)
+          .containsEntry("PLANIFICADA", 1);
+    }
+    assertThat(resultado.ausentes()).isGreaterThanOrEqualTo(11);
+    assertThat(resultado.lotes()).isGreaterThan(5);
+    // el hueco de una ausencia ya no cuenta como ocupado
+    assertThat(jdbc.queryForObject("select count(*) from Cita where medico_id = ? and estado = 'AUSENTE' and ocupaHueco is null",
+        Integer.class, medicos.get(0).getId())).isEqualTo(5);
+
+    assertThat(ausencias.marcarAusencias(hoy).ausentes()).isZero();
+  }
+
+  @Test void la_tarea_la_ejecuta_un_solo_nodo_y_el_bloqueo_vence() throws Exception {
+    String tarea = "prueba-" + DatosPrueba.clave();
+    List<BloqueoTareas> nodos = new ArrayList<>();
+    for (int n = 0; n < 4; n++) {
+      nodos.add(new BloqueoTareas(bloqueoTareaDAO, transactionManager, "nodo" + n));
+    }
+
+    // todos a la vez, la primera vez que se ejecuta la tarea: solo uno la hace
+    AtomicInteger ejecuciones = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(nodos.size());
+    try {
+      List<Future<Boolean>> tareas = new ArrayList<>();
+      for (BloqueoTareas nodo : nodos) {
+        tareas.add(pool.submit(() -> nodo.ejecutar(tarea, Duration.ofMinutes(5), () -> {
+          ejecuciones.incrementAndGet();
+          try {
+            Thread.sleep(300);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        })));
+      }
+      int ejecutadas = 0;
+      for (Future<Boolean> t : tareas) if (t.get()) ejecutadas++;
+      assertThat(ejecutadas).isEqualTo(1);
+      assertThat(ejecuciones.get()).isEqualTo(1);
+    } finally {
+      pool.shutdown();
+    }
+
+    // liberado al terminar: el siguiente la puede ejecutar
+    assertThat(nodos.get(1).ejecutar(tarea, Duration.ofMinutes(5), () -> {
+      // mientras la tiene nodo1, nodo2 no entra
+      assertThat(nodos.get(2).ejecutar(tarea, Duration.ofMinutes(5), ejecuciones::incrementAndGet)).isFalse();
+    })).isTrue();
+
+    // un nodo que cae sin liberar: cuando vence, otro la toma
+    jdbc.update("update BloqueoTarea set propietario = 'caido', hasta = ? where nombre = ?",
+        LocalDateTime.now().minusSeconds(1), tarea);
+    assertThat(nodos.get(3).ejecutar(tarea, Duration.ofMinutes(5), ejecuciones::incrementAndGet)).isTrue();
+  }
+
+  private Map<String, Integer> estados(Long medicoId) {
+    Map<String, Integer> res = new HashMap<>();
+    jdbc.query("select estado, count(*) from Cita where medico_id = ? group by estado",
+        rs -> { res.put(rs.getString(1), rs.getInt(2)); }, medicoId);
+    return res;
+  }
+}
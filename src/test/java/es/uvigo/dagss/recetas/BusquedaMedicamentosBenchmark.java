@@ -0,0 +1,120 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.servicios.busqueda.IndiceMedicamentos;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * HU-M4: buscador de medicamentos, LIKE sobre cuatro columnas frente al índice en memoria,
+ * con un catálogo de 50.000 medicamentos. Se lanza con mvn -Pbenchmark test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusquedaMedicamentosBenchmark {
+
+  static final int CATALOGO = 50_000;
+  static final String[] CONSULTAS = {"amox", "paracetamol 1g", "ibupro", "omeprazol cinfa", "ácido", "sertra", "ator 40"};
+
+  static final String[] PRINCIPIOS = {"Amoxicilina", "Paracetamol", "Ibuprofeno", "Omeprazol", "Ácido acetilsalicílico",
+      "Sertralina", "Atorvastatina", "Metformina", "Enalapril", "Lorazepam", "Simvastatina", "Salbutamol",
+      "Levotiroxina", "Amlodipino", "Diazepam", "Furosemida", "Pantoprazol", "Tramadol", "Ácido fólico", "Losartán"};
+  static final String[] FABRICANTES = {"Cinfa", "Normon", "Kern", "Teva", "Sandoz", "Mylan", "Stada", "Pensa"};
+  static final String[] FAMILIAS = {"Antibióticos", "Analgésicos", "Antiinflamatorios", "Antiulcerosos",
+      "Antidepresivos", "Hipolipemiantes", "Antidiabéticos", "Antihipertensivos", "Ansiolíticos"};
+  static final String[] DOSIS = {"10 mg", "20 mg", "40 mg", "500 mg", "1g", "100 mcg"};
+  static final String[] SILABAS = {"ra", "to", "mi", "xa", "lo", "ne", "vi", "qu", "sor", "tel", "dan", "pri"};
+
+  ConfigurableApplicationContext ctx;
+  MedicamentoDAO medicamentoDAO;
+  IndiceMedicamentos indice;
+  int siguiente;
+
+  @Setup(Level.Trial)
+  public void arrancar() {
+    ctx = new SpringApplicationBuilder(RecetasApplication.class)
+        .web(WebApplicationType.NONE)
+        .profiles("test")
+        .run();
+    medicamentoDAO = ctx.getBean(MedicamentoDAO.class);
+    indice = ctx.getBean(IndiceMedicamentos.class);
+
+    Random r = new Random(42);
+    List<Medicamento> lote = new ArrayList<>(1000);
+    for (int i = 0; i < CATALOGO; i++) {
+      String principio = PRINCIPIOS[r.nextInt(PRINCIPIOS.length)];
+      String fabricante = FABRICANTES[r.nextInt(FABRICANTES.length)];
+      String nombre = r.nextInt(3) == 0
+          ? principio + " " + fabricante + " " + DOSIS[r.nextInt(DOSIS.length)]
+          : marca(r) + " " + DOSIS[r.nextInt(DOSIS.length)];
+      lote.add(new Medicamento(nombre, principio, fabricante, FAMILIAS[r.nextInt(FAMILIAS.length)], 10 + r.nextInt(50)));
+      if (lote.size() == 1000) {
+        medicamentoDAO.saveAll(lote);
+        lote.clear();
+      }
+    }
+    medicamentoDAO.saveAll(lote);
+    indice.recargar();
+  }
+
+  @TearDown(Level.Trial)
+  public void parar() {
+    ctx.close();
+  }
+
+  @Benchmark
+  public List<Medicamento> like() {
+    String q = CONSULTAS[siguiente++ % CONSULTAS.length];
+    return medicamentoDAO.buscarActivosLike(q);
+  }
+
+  @Benchmark
+  public List<Medicamento> indice() {
+    return indice.buscar(CONSULTAS[siguiente++ % CONSULTAS.length]);
+  }
+
+  private static String marca(Random r) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0, n = 2 + r.nextInt(3); i < n; i++) {
+      sb.append(SILABAS[r.nextInt(SILABAS.length)]);
+    }
+    sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+    return sb.toString();
+  }
+
+  @Tag("benchmark")
+  @Test void ejecutar() throws Exception {
+    var resultados = new Runner(new OptionsBuilder()
+        .include(BusquedaMedicamentosBenchmark.class.getSimpleName())
+        .build()).run();
+    assertThat(resultados).hasSize(2);
+  }
+}
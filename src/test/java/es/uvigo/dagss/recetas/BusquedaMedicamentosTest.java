@@ -0,0 +1,105 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.dto.SugerenciaMedicamento;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BusquedaMedicamentosTest {
+
+  @Autowired MedicamentoService medicamentoService;
+
+  @Test void busca_sin_tildes_con_todos_los_terminos_y_por_relevancia() {
+    String k = DatosPrueba.clave();
+    Medicamento enFamilia = medicamentoService.crear(new Medicamento("Zeta" + k, "Otro", "Normon", "Xolpidem" + k, 10));
+    Medicamento enNombre = medicamentoService.crear(new Medicamento("Xólpidem" + k + " 10 mg", "Zolpidem", "Cinfa", "Hipnóticos", 30));
+    Medicamento enPrincipio = medicamentoService.crear(new Medicamento("Marca" + k, "xolpidem" + k, "Cinfa", "Hipnóticos", 20));
+
+    assertThat(medicamentoService.buscarActivos("XOLPIDEM" + k))
+        .extracting(Medicamento::getId)
+        .containsExactly(enNombre.getId(), enPrincipio.getId(), enFamilia.getId());
+    assertThat(medicamentoService.buscarActivos("lpidem" + k.substring(0, 2) + " cinfa"))
+        .extracting(Medicamento::getId)
+        .containsExactly(enNombre.getId(), enPrincipio.getId());
+  }
+
+  @Test void el_indice_sigue_las_altas_ediciones_y_bajas() {
+    String k = DatosPrueba.clave();
+    Medicamento m = medicamentoService.crear(new Medicamento("Quimerol" + k, "Quimerina", "Kern", "Varios", 10));
+    assertThat(medicamentoService.buscarActivos("quimerol" + k)).extracting(Medicamento::getId).containsExactly(m.getId());
+
+    medicamentoService.actualizar(m.getId(), new Medicamento("Nuevonombre" + k, "Quimerina", "Kern", "Varios", 10));
+    assertThat(medicamentoService.buscarActivos("quimerol" + k)).isEmpty();
+    assertThat(medicamentoService.buscarActivos("nuevonombre" + k)).extracting(Medicamento::getNombreComercial)
+        .containsExactly("Nuevonombre" + k);
+
+    medicamentoService.baja(m.getId());
+    assertThat(medicamentoService.buscarActivos("nuevonombre" + k)).isEmpty();
+  }
+
+  @Test void sugerencias_por_prefijo_de_nombre_o_principio_sin_repetir() {
+    String k = DatosPrueba.clave();
+    Medicamento a = medicamentoService.crear(new Medicamento("Árnica" + k + " gel", "Árnica" + k, "Boiron", "Varios", 1));
+    Medicamento b = medicamentoService.crear(new Medicamento("Marca" + k, "arnica" + k + " montana", "Kern", "Varios", 2));
+    medicamentoService.crear(new Medicamento("Otro" + k, "Otro", "Kern", "Varios", 3));
+
+    assertThat(medicamentoService.sugerir("ARNICA" + k, 10))
+        .extracting(SugerenciaMedicamento::id)
+        .containsExactlyInAnyOrder(a.getId(), b.getId());
+    assertThat(medicamentoService.sugerir("arnica" + k, 1)).hasSize(1);
+
+    medicamentoService.baja(a.getId());
+    assertThat(medicamentoService.sugerir("arnica" + k, 10))
+        .extracting(SugerenciaMedicamento::id)
+        .containsExactly(b.getId());
+  }
+
+  @Tag("benchmark")
+  @Test void latencia_sugerencias_concurrentes() throws Exception {
+    for (int i = 0; i < 20_000; i++) {
+      medicamentoService.crear(new Medicamento("Med" + Integer.toString(i * 7919, 36), "Principio " + (i % 300), "Kern", "Varios", 10));
+    }
+    String[] prefijos = {"m", "me", "med1", "med2a", "pri", "principio 1", "principio 29"};
+
+    int hilos = 16, porHilo = 50_000;
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    try {
+      List<Future<long[]>> tareas = new ArrayList<>();
+      for (int h = 0; h < hilos; h++) {
+        tareas.add(pool.submit(() -> {
+          long[] t = new long[porHilo];
+          for (int i = 0; i < porHilo; i++) {
+            long t0 = System.nanoTime();
+            medicamentoService.sugerir(prefijos[i % prefijos.length], 10);
+            t[i] = System.nanoTime() - t0;
+          }
+          return t;
+        }));
+      }
+      long[] todos = new long[hilos * porHilo];
+      for (int h = 0; h < hilos; h++) {
+        System.arraycopy(tareas.get(h).get(), 0, todos, h * porHilo, porHilo);
+      }
+      Arrays.sort(todos);
+      long p50 = todos[todos.length / 2], p99 = todos[(int) (todos.length * 0.99)];
+      System.out.printf("sugerencias: hilos=%d p50=%d us p99=%d us%n", hilos, p50 / 1000, p99 / 1000);
+      assertThat(p99).isLessThan(1_000_000);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Farmacia;
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
+import es.uvigo.dagss.recetas.repositorios.FarmaciaDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.servicios.CentroSaludService;
+import es.uvigo.dagss.recetas.servicios.FarmaciaService;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.dto.EstadisticasRegion;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheCatalogo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.function.IntSupplier;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheCatalogoTest {
+
+  @Autowired MedicamentoService medicamentoService;
+  @Autowired CentroSaludService centroSaludService;
+  @Autowired FarmaciaService farmaciaService;
+  @Autowired DatosPrueba datos;
+  @Autowired MedicamentoDAO medicamentoDAO;
+  @Autowired CentroSaludDAO centroSaludDAO;
+  @Autowired FarmaciaDAO farmaciaDAO;
+  @Autowired CacheCatalogo cacheCatalogo;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired EntityManager em;
+  @Autowired EntityManagerFactory emf;
+
+  @Test void los_listados_de_activos_salen_de_la_cache_hasta_que_se_escribe_su_tabla() {
+    String k = DatosPrueba.clave();
+    Long medicamento = datos.medicamento("Cat" + k, 7).getId();
+    Long centro = datos.centro().getId();
+    Long farmacia = datos.farmacia().getId();
+    leerListados();
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    leerListados();
+    assertThat(medicamentoDAO.findById(medicamento)).isPresent();
+    assertThat(centroSaludDAO.findById(centro)).isPresent();
+    assertThat(farmaciaDAO.findById(farmacia)).isPresent();
+    assertThat(stats.getPrepareStatementCount()).isZero();
+    assertThat(stats.getQueryCacheHitCount()).isEqualTo(3);
+    List<EstadisticasRegion> regiones = cacheCatalogo.regiones();
+    assertThat(regiones).extracting(EstadisticasRegion::region)
+        .containsExactly("catalogo.medicamento", "catalogo.centro-salud", "catalogo.farmacia", CacheCatalogo.LISTADOS);
+    assertThat(regiones).allSatisfy(r -> assertThat(r.aciertos()).isPositive());
+
+    // una edición solo descarta los listados de su tabla
+    medicamentoService.actualizar(medicamento, new Medicamento("Editado" + k, "Principio", "Kern", "Varios", 7));
+    stats.clear();
+    assertThat(medicamentoService.listarActivos()).extracting(Medicamento::getNombreComercial).contains("Editado" + k);
+    assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    stats.clear();
+    centroSaludService.listarActivos();
+    farmaciaService.listarActivas();
+    assertThat(stats.getPrepareStatementCount()).isZero();
+
+    centroSaludService.baja(centro);
+    farmaciaService.baja(farmacia);
+    assertThat(centroSaludService.listarActivos()).extracting(CentroSalud::getId).doesNotContain(centro);
+    assertThat(farmaciaService.listarActivas()).extracting(Farmacia::getId).doesNotContain(farmacia);
+    assertThat(centroSaludDAO.findById(centro)).get().extracting(CentroSalud::getActivo).isEqualTo(false);
+    stats.setStatisticsEnabled(false);
+
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_listados_de_administracion_con_y_sin_cache() {
+    String k = DatosPrueba.clave();
+    for (int i = 0; i < 500; i++) {
+      datos.medicamento("Bench" + k + i, 7);
+    }
+    for (int i = 0; i < 100; i++) {
+      datos.centro();
+      datos.farmacia();
+    }
+    Long editado = medicamentoService.listarActivos().get(0).getId();
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    // mismo recorrido de lecturas, la sesión sin leer ni escribir en la caché
+    medir("sin caché", stats, editado, () -> tx.execute(e -> {
+      em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+      return leerListados();
+    }));
+    medir("con caché", stats, editado, this::leerListados);
+    stats.setStatisticsEnabled(false);
+  }
+
+  /** Las tres pantallas de catálogo del administrador; devuelve las filas */
+  private int leerListados() {
+    return medicamentoService.listarActivos().size()
+        + centroSaludService.listarActivos().size()
+        + farmaciaService.listarActivas().size();
+  }
+
+  /** 50 lecturas por cada edición de un medicamento */
+  private void medir(String nombre, Statistics stats, Long editado, IntSupplier lectura) {
+    for (int i = 0; i < 20; i++) lectura.getAsInt(); // calentamiento
+
+    int n = 500;
+    stats.clear();
+    long t0 = System.nanoTime();
+    for (int i = 0; i < n; i++) {
+      if (i % 50 == 0) {
+        medicamentoService.actualizar(editado, new Medicamento("Bench editado " + i, "Principio", "Kern", "Varios", 7));
+      }
+      lectura.getAsInt();
+    }
+    long ms = (System.nanoTime() - t0) / 1_000_000;
+    System.out.printf("listados de catálogo (%s, 1 edición cada 50): %.2f sentencias/lectura, %.2f ms/lectura%n",
+        nombre, (double) stats.getPrepareStatementCount() / n, (double) ms / n);
+  }
+}
@@ -0,0 +1,216 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.InvalidacionReferencia;
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.TipoReferencia;
+import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
+import es.uvigo.dagss.recetas.repositorios.InvalidacionReferenciaDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.servicios.CentroSaludService;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.MedicoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import es.uvigo.dagss.recetas.servicios.busqueda.IndiceMedicamentos;
+import es.uvigo.dagss.recetas.servicios.busqueda.SugerenciasMedicamentos;
+import es.uvigo.dagss.recetas.servicios.dto.EstadisticasCache;
+import es.uvigo.dagss.recetas.servicios.dto.SugerenciaMedicamento;
+import es.uvigo.dagss.recetas.servicios.eventos.MedicamentoModificado;
+import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
+import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheReferencias;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// sondeo de una hora: el de este nodo no se cruza con las cuentas de los tests
+@SpringBootTest(properties = {"recetas.referencias.invalidacion-compartida=true", "recetas.referencias.sondeo=PT1H"})
+@ActiveProfiles("test")
+class CacheReferenciasTest {
+
+  @Autowired CentroSaludService centroSaludService;
+  @Autowired MedicoService medicoService;
+  @Autowired PacienteService pacienteService;
+  @Autowired MedicamentoService medicamentoService;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired DatosPrueba datos;
+  @Autowired CacheReferencias cacheReferencias;
+  @Autowired CentroSaludDAO centroSaludDAO;
+  @Autowired MedicoDAO medicoDAO;
+  @Autowired MedicamentoDAO medicamentoDAO;
+  @Autowired InvalidacionReferenciaDAO invalidacionDAO;
+  @Autowired ApplicationEventPublisher eventos;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired EntityManagerFactory emf;
+  @Autowired JdbcTemplate jdbc;
+
+  @Test void los_aciertos_no_consultan_la_bd_y_cada_cambio_saca_solo_su_entrada() {
+    String k = DatosPrueba.clave();
+    CentroSalud centro = datos.centro("CS " + k);
+    CentroSalud otro = datos.centro("Otro " + k);
+    Medico medico = datos.medico(centro.getId());
+    Long medicamento = datos.medicamento("Ref" + k, 7).getId();
+
+    cacheReferencias.centroSalud(centro.getId());
+    cacheReferencias.centroSalud(otro.getId());
+    cacheReferencias.medico(medico.getId());
+    cacheReferencias.medicamento(medicamento);
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    EstadisticasCache antes = cacheReferencias.estadisticas();
+    assertThat(cacheReferencias.centroSalud(centro.getId()).nombre()).isEqualTo("CS " + k);
+    assertThat(cacheReferencias.medico(medico.getId()).centroSaludId()).isEqualTo(centro.getId());
+    assertThat(cacheReferencias.medicamento(medicamento).numeroDosis()).isEqualTo(7);
+    assertThat(stats.getPrepareStatementCount()).isZero();
+    stats.setStatisticsEnabled(false);
+    assertThat(cacheReferencias.estadisticas().aciertos()).isEqualTo(antes.aciertos() + 3);
+    assertThat(cacheReferencias.estadisticas().fallos()).isEqualTo(antes.fallos());
+
+    centroSaludService.actualizar(centro.getId(), DatosPrueba.datosCentro("Nuevo " + k));
+    medicoService.actualizarPorAdmin(medico.getId(), "Ana", "Pérez", medico.getDni(), medico.getNumeroColegiado(), "1",
+        "m@a.com", otro.getId(), null);
+    medicamentoService.actualizar(medicamento, new Medicamento("Ref" + k, "Principio", "Kern", "Varios", 14));
+    assertThat(cacheReferencias.estadisticas().invalidaciones()).isEqualTo(antes.invalidaciones() + 3);
+
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    assertThat(cacheReferencias.centroSalud(otro.getId()).nombre()).isEqualTo("Otro " + k);
+    assertThat(stats.getPrepareStatementCount()).isZero();
+    stats.setStatisticsEnabled(false);
+    assertThat(cacheReferencias.centroSalud(centro.getId()).nombre()).isEqualTo("Nuevo " + k);
+    assertThat(cacheReferencias.medico(medico.getId()).centroSaludId()).isEqualTo(otro.getId());
+    assertThat(cacheReferencias.medicamento(medicamento).numeroDosis()).isEqualTo(14);
+
+    // las altas validan con lo que hay en la caché, ya actualizado
+    assertThatThrownBy(() -> pacienteService.crear("pacc" + k, "Nombre", "Apellidos", "DNIC" + k, null, null,
+        null, "Vigo", null, null, null, null, null, centro.getId(), medico.getId()))
+        .isInstanceOf(OperacionNoPermitidaException.class);
+    Long paciente = pacienteService.crear("pacc" + k, "Nombre", "Apellidos", "DNIC" + k, "TSC" + k, null,
+        null, "Vigo", null, null, null, null, null, otro.getId(), medico.getId()).getId();
+    assertThat(prescripcionService.crearPrescripcion(medico.getId(), paciente, medicamento, 14.0, null,
+        LocalDate.now().plusWeeks(2)).getRecetas()).hasSize(15);
+    assertThatThrownBy(() -> cacheReferencias.medicamento(-1L)).isInstanceOf(RecursoNoEncontradoException.class);
+  }
+
+  @Test void expulsa_las_menos_usadas_al_llenarse() {
+    Long a = datos.centro().getId();
+    Long b = datos.centro().getId();
+    Long c = datos.centro().getId();
+    CacheReferencias cache = nodo(2);
+
+    cache.centroSalud(a);
+    cache.centroSalud(b);
+    cache.centroSalud(a);
+    cache.centroSalud(c); // fuera b
+    cache.centroSalud(a);
+    cache.centroSalud(b);
+
+    assertThat(cache.estadisticas()).isEqualTo(new EstadisticasCache(2, 4, 2, 0, 2));
+  }
+
+  @Test void otro_nodo_invalida_al_sondear_los_cambios_confirmados() {
+    String k = DatosPrueba.clave();
+    CentroSalud centro = datos.centro("CS " + k);
+    Medico medico = datos.medico(centro.getId());
+    CacheReferencias otroNodo = nodo(100);
+    otroNodo.sondear(); // lo anterior a este test
+
+    assertThat(otroNodo.centroSalud(centro.getId()).nombre()).isEqualTo("CS " + k);
+    assertThat(otroNodo.medico(medico.getId()).apellidos()).isEqualTo("Pérez");
+
+    centroSaludService.actualizar(centro.getId(), DatosPrueba.datosCentro("Nuevo " + k));
+    medicoService.baja(medico.getId());
+    assertThat(otroNodo.centroSalud(centro.getId()).nombre()).isEqualTo("CS " + k);
+
+    assertThat(otroNodo.sondear()).isEqualTo(2);
+    assertThat(otroNodo.centroSalud(centro.getId()).nombre()).isEqualTo("Nuevo " + k);
+    assertThat(otroNodo.estadisticas().invalidaciones()).isEqualTo(2);
+    // cada fila se aplica una sola vez
+    assertThat(otroNodo.sondear()).isZero();
+  }
+
+  @Test void otro_nodo_actualiza_la_busqueda_de_medicamentos_al_sondear() {
+    String k = DatosPrueba.clave();
+    Long medicamento = datos.medicamento("Ref" + k, 7).getId();
+    Long retirado = datos.medicamento("Ret" + k, 7).getId();
+    IndiceMedicamentos indice = new IndiceMedicamentos(medicamentoDAO);
+    SugerenciasMedicamentos sugerencias = new SugerenciasMedicamentos(medicamentoDAO);
+    indice.recargar();
+    sugerencias.recargar();
+    CacheReferencias otroNodo = nodo(100, evento -> {
+      if (evento instanceof MedicamentoModificado m) {
+        indice.alModificar(m);
+        sugerencias.alModificar(m);
+      }
+    });
+    otroNodo.sondear(); // lo anterior a este test
+
+    medicamentoService.actualizar(medicamento, new Medicamento("Nuevo" + k, "Principio", "Kern", "Varios", 14));
+    medicamentoService.baja(retirado);
+    assertThat(indice.buscar("Ref" + k)).extracting(Medicamento::getId).containsExactly(medicamento);
+
+    assertThat(otroNodo.sondear()).isEqualTo(2);
+    assertThat(indice.buscar("Ref" + k)).isEmpty();
+    assertThat(indice.buscar("Ret" + k)).isEmpty();
+    assertThat(indice.buscar("Nuevo" + k)).singleElement()
+        .satisfies(m -> assertThat(m.getNumeroDosis()).isEqualTo(14));
+    assertThat(sugerencias.sugerir("Ref" + k, 5)).isEmpty();
+    assertThat(sugerencias.sugerir("Ret" + k, 5)).isEmpty();
+    assertThat(sugerencias.sugerir("Nuevo" + k, 5)).extracting(SugerenciaMedicamento::id).containsExactly(medicamento);
+  }
+
+  @Test void al_sondear_no_se_relee_la_caché_de_segundo_nivel_del_nodo() {
+    String k = DatosPrueba.clave();
+    Long medicamento = datos.medicamento("Ref" + k, 7).getId();
+    Long centro = datos.centro("CS " + k).getId();
+    IndiceMedicamentos indice = new IndiceMedicamentos(medicamentoDAO);
+    indice.recargar();
+    CacheReferencias nodo = nodo(100, evento -> {
+      if (evento instanceof MedicamentoModificado m) indice.alModificar(m);
+    });
+    nodo.sondear(); // lo anterior a este test
+
+    // este nodo los tiene en su caché de segundo nivel; otro nodo los cambia sin pasar por ella
+    assertThat(medicamentoDAO.findById(medicamento)).isPresent();
+    assertThat(centroSaludDAO.findById(centro)).isPresent();
+    assertThat(emf.getCache().contains(Medicamento.class, medicamento)).isTrue();
+    assertThat(emf.getCache().contains(CentroSalud.class, centro)).isTrue();
+    jdbc.update("update Medicamento set nombreComercial = ? where id = ?", "Nuevo" + k, medicamento);
+    jdbc.update("update CentroSalud set nombre = ? where id = ?", "Nuevo " + k, centro);
+    invalidacionDAO.save(new InvalidacionReferencia(TipoReferencia.MEDICAMENTO, medicamento, LocalDateTime.now()));
+    invalidacionDAO.save(new InvalidacionReferencia(TipoReferencia.CENTRO_SALUD, centro, LocalDateTime.now()));
+
+    assertThat(nodo.sondear()).isEqualTo(2);
+    assertThat(indice.buscar("Ref" + k)).isEmpty();
+    assertThat(indice.buscar("Nuevo" + k)).extracting(Medicamento::getId).containsExactly(medicamento);
+    assertThat(centroSaludDAO.findById(centro).orElseThrow().getNombre()).isEqualTo("Nuevo " + k);
+  }
+
+  /** Un segundo nodo sobre la misma BD */
+  private CacheReferencias nodo(int tamano) {
+    return nodo(tamano, eventos);
+  }
+
+  private CacheReferencias nodo(int tamano, ApplicationEventPublisher eventosNodo) {
+    return new CacheReferencias(centroSaludDAO, medicoDAO, medicamentoDAO, invalidacionDAO, eventosNodo, emf,
+        transactionManager, tamano, Duration.ofMinutes(10), true);
+  }
+}
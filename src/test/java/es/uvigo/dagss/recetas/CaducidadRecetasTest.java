@@ -0,0 +1,128 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.uvigo.dagss.recetas.DatosPrueba.Escenario;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Prescripcion;
+import es.uvigo.dagss.recetas.repositorios.BloqueoTareaDAO;
+import es.uvigo.dagss.recetas.repositorios.RecetaDAO;
+import es.uvigo.dagss.recetas.servicios.CaducidadRecetasService;
+import es.uvigo.dagss.recetas.servicios.DispensacionService;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import es.uvigo.dagss.recetas.servicios.RecetaService;
+import es.uvigo.dagss.recetas.servicios.dto.ProgresoCaducidad;
+import es.uvigo.dagss.recetas.servicios.excepciones.ConflictoException;
+import es.uvigo.dagss.recetas.servicios.tareas.BloqueoTareas;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CaducidadRecetasTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired RecetaService recetaService;
+  @Autowired DispensacionService dispensacionService;
+  @Autowired BloqueoTareas bloqueoTareas;
+  @Autowired BloqueoTareaDAO bloqueoTareaDAO;
+  @Autowired RecetaDAO recetaDAO;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired JdbcTemplate jdbc;
+
+  @Test void caduca_por_lotes_las_planificadas_vencidas_y_no_toca_el_resto() {
+    Escenario e = datos.escenario();
+    Medico medico = e.medico();
+    Long paciente = e.paciente().getId();
+    Long medicamento = e.medicamento().getId();
+    Long farmacia = e.farmacia().getId();
+    LocalDate hoy = LocalDate.now();
+    // una caja al día durante un mes
+    Prescripcion p = prescripcionService.crearPrescripcion(medico.getId(), paciente, medicamento, 7.0, null, hoy.plusMonths(1));
+    Long servida = jdbc.queryForObject("select min(id) from Receta where prescripcion_id = ?", Long.class, p.getId());
+    recetaService.servirReceta(servida, farmacia, hoy);
+
+    LocalDate dentroDeTres = hoy.plusWeeks(3);
+    Integer vencidas = jdbc.queryForObject(
+        "select count(*) from Receta where prescripcion_id = ? and estado = 'PLANIFICADA' and fechaValidezFinal < ?",
+        Integer.class, p.getId(), dentroDeTres);
+    assertThat(vencidas).isGreaterThan(6);
+
+    CaducidadRecetasService caducidad = new CaducidadRecetasService(recetaDAO, dispensacionService, bloqueoTareas,
+        Runnable::run, new SimpleMeterRegistry(), transactionManager, 3, Duration.ZERO);
+    long caducadas = caducidad.caducarRecetas(dentroDeTres);
+
+    Map<String, Integer> estados = estados(p.getId());
+    assertThat(estados).containsEntry("CADUCADA", vencidas).containsEntry("SERVIDA", 1);
+    assertThat(jdbc.queryForObject(
+        "select count(*) from Receta where prescripcion_id = ? and estado = 'PLANIFICADA' and fechaValidezFinal < ?",
+        Integer.class, p.getId(), dentroDeTres)).isZero();
+    assertThat(recetaService.recetasDispensables(e.paciente().getNumeroTarjetaSanitaria(), hoy))
+        .allMatch(d -> !d.getFechaValidezFinal().isBefore(dentroDeTres))
+        .hasSize(estados.get("PLANIFICADA"));
+
+    ProgresoCaducidad progreso = caducidad.progreso();
+    assertThat(progreso.enCurso()).isFalse();
+    assertThat(progreso.caducadas()).isEqualTo(caducadas).isEqualTo(progreso.pendientes()).isGreaterThanOrEqualTo(vencidas);
+    assertThat(progreso.lotes()).isGreaterThan(vencidas / 3);
+    assertThat(progreso.fin()).isNotNull();
+
+    // otra ejecución no encuentra nada y acumula el total
+    assertThat(caducidad.caducarRecetas(dentroDeTres)).isZero();
+    assertThat(caducidad.progreso().caducadasTotal()).isEqualTo(caducadas);
+  }
+
+  @Test void la_lanzada_a_mano_va_en_segundo_plano_con_el_bloqueo_de_la_tarea() {
+    Escenario e = datos.escenario();
+    LocalDate hoy = LocalDate.now();
+    Prescripcion p = prescripcionService.crearPrescripcion(e.medico().getId(), e.paciente().getId(),
+        e.medicamento().getId(), 7.0, null, hoy.plusWeeks(2));
+    int vencidas = jdbc.update("update Receta set fechaValidezFinal = ? where prescripcion_id = ?",
+        hoy.minusDays(1), p.getId());
+
+    List<Runnable> cola = new ArrayList<>();
+    SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    CaducidadRecetasService caducidad = new CaducidadRecetasService(recetaDAO, dispensacionService,
+        new BloqueoTareas(bloqueoTareaDAO, transactionManager, "nodoA"), cola::add, registro, transactionManager, 3,
+        Duration.ZERO);
+    BloqueoTareas otroNodo = new BloqueoTareas(bloqueoTareaDAO, transactionManager, "nodoB");
+
+    // responde sin caducar nada; hasta que acabe no se puede lanzar otra
+    assertThat(caducidad.lanzarCaducidad()).isEqualTo(ProgresoCaducidad.NINGUNO);
+    assertThat(cola).hasSize(1);
+    assertThatThrownBy(caducidad::lanzarCaducidad).isInstanceOf(ConflictoException.class);
+
+    // si la tiene otro nodo, no hace nada
+    assertThat(otroNodo.ejecutar("caducidad-recetas", Duration.ofMinutes(5), () -> cola.remove(0).run())).isTrue();
+    assertThat(estados(p.getId())).containsOnlyKeys("PLANIFICADA");
+
+    caducidad.lanzarCaducidad();
+    cola.remove(0).run();
+    assertThat(estados(p.getId())).containsExactly(Map.entry("CADUCADA", vencidas));
+    ProgresoCaducidad progreso = caducidad.progreso();
+    assertThat(progreso.caducadas()).isGreaterThanOrEqualTo(vencidas);
+    assertThat(registro.get("recetas.caducidad.caducadas").functionCounter().count())
+        .isEqualTo(progreso.caducadasTotal());
+    assertThat(registro.get("recetas.caducidad.pendientes").gauge().value()).isZero();
+  }
+
+  private Map<String, Integer> estados(Long prescripcionId) {
+    Map<String, Integer> res = new HashMap<>();
+    jdbc.query("select estado, count(*) from Receta where prescripcion_id = ? group by estado",
+        rs -> { res.put(rs.getString(1), rs.getInt(2)); }, prescripcionId);
+    return res;
+  }
+}
@@ -0,0 +1,78 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.servicios.plan.CalculoPlan;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * HU-M5: cálculo de las fechas del plan de recetas, BigDecimal frente a CalculoPlan.
+ * Con el perfilador de GC para ver la memoria asignada por plan. Se lanza con mvn -Pbenchmark test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CalculoPlanBenchmark {
+
+  @Param({"365", "1825"})
+  long dias;
+
+  @Param({"1", "3", "8"})
+  double dosis;
+
+  int envase = 7;
+
+  @Benchmark
+  public long bigDecimal() {
+    BigDecimal bdDosis = BigDecimal.valueOf(dosis);
+    BigDecimal bdDosisEnvase = BigDecimal.valueOf(envase);
+    int cajas = new BigDecimal(dias).multiply(bdDosis).divide(bdDosisEnvase, 0, RoundingMode.CEILING).intValueExact();
+    if (cajas < 1) cajas = 1;
+    BigDecimal diasPorCaja = bdDosisEnvase.divide(bdDosis, 8, RoundingMode.HALF_UP);
+
+    long suma = 0;
+    for (int i = 0; i < cajas; i++) {
+      suma += diasPorCaja.multiply(BigDecimal.valueOf(i)).setScale(0, RoundingMode.FLOOR).longValue();
+    }
+    return suma;
+  }
+
+  @Benchmark
+  public long enteros() {
+    CalculoPlan c = CalculoPlan.de(dias, dosis, envase);
+    long suma = 0;
+    for (int i = 0; i < c.cajas(); i++) {
+      suma += c.desplazamiento(i);
+    }
+    return suma;
+  }
+
+  @Tag("benchmark")
+  @Test void ejecutar() throws Exception {
+    var resultados = new Runner(new OptionsBuilder()
+        .include(CalculoPlanBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+    assertThat(resultados).hasSize(12);
+  }
+}
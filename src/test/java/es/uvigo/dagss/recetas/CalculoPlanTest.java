@@ -0,0 +1,88 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.uvigo.dagss.recetas.servicios.plan.CalculoPlan;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.constraints.IntRange;
+import net.jqwik.api.constraints.LongRange;
+
+/** CalculoPlan frente al cálculo con BigDecimal que sustituye (HU-M5) */
+class CalculoPlanTest {
+
+  @Property(tries = 5000)
+  void mismas_cajas_y_fechas_que_con_bigdecimal(@ForAll @LongRange(min = 1, max = 3650) long dias,
+                                                @ForAll("dosis") double dosis,
+                                                @ForAll @IntRange(min = 1, max = 500) int envase) {
+    comprobar(dias, dosis, envase);
+  }
+
+  @Property(tries = 2000)
+  void tambien_con_dosis_sin_decimal_corto(@ForAll @LongRange(min = 1, max = 2000) long dias,
+                                           @ForAll("dosisCualquiera") double dosis,
+                                           @ForAll @IntRange(min = 1, max = 100_000) int envase) {
+    comprobar(dias, dosis, envase);
+  }
+
+  @Example
+  void casos_limite() {
+    comprobar(1, 0.5, 1);
+    comprobar(365, 1.0 / 3, 30);
+    comprobar(365, 0.1 + 0.2, 7);
+    comprobar(3650, 1e-8, Integer.MAX_VALUE);
+    comprobar(2, 1e5, 3);
+    assertThatThrownBy(() -> CalculoPlan.de(3_000_000_000L, 1000, 1)).isInstanceOf(ArithmeticException.class);
+  }
+
+  @Provide
+  Arbitrary<Double> dosis() {
+    // las de una prescripción: pocos decimales
+    return Arbitraries.oneOf(
+        Arbitraries.integers().between(1, 40).map(n -> n / 2.0),
+        Arbitraries.bigDecimals().between(new BigDecimal("0.001"), new BigDecimal("20")).ofScale(3).map(BigDecimal::doubleValue),
+        Arbitraries.of(0.25, 0.33, 0.5, 0.75, 1.0, 1.5, 2.0, 3.0, 8.0, 12.5));
+  }
+
+  @Provide
+  Arbitrary<Double> dosisCualquiera() {
+    return Arbitraries.doubles().between(1e-6, 50).ofScale(15);
+  }
+
+  private static void comprobar(long dias, double dosis, int envase) {
+    long[] esperados = conBigDecimal(dias, dosis, envase);
+    CalculoPlan c = CalculoPlan.de(dias, dosis, envase);
+    assertThat(c.cajas()).as("cajas de %d días, dosis %s, envase %d", dias, dosis, envase).isEqualTo(esperados.length);
+    for (int i = 0; i < esperados.length; i++) {
+      assertThat(c.desplazamiento(i)).as("caja %d de %d días, dosis %s, envase %d", i, dias, dosis, envase)
+          .isEqualTo(esperados[i]);
+    }
+  }
+
+  /** El cálculo anterior de PrescripcionService.generarPlanRecetas */
+  static long[] conBigDecimal(long dias, double dosisDiaria, int numeroDosis) {
+    BigDecimal bdDias = new BigDecimal(dias);
+    BigDecimal bdDosis = BigDecimal.valueOf(dosisDiaria);
+    BigDecimal bdDosisEnvase = BigDecimal.valueOf(numeroDosis);
+
+    BigDecimal totalUnidades = bdDias.multiply(bdDosis);
+    int cajas = totalUnidades.divide(bdDosisEnvase, 0, RoundingMode.CEILING).intValueExact();
+    if (cajas < 1) cajas = 1;
+
+    BigDecimal diasPorCaja = bdDosisEnvase.divide(bdDosis, 8, RoundingMode.HALF_UP);
+
+    long[] offsets = new long[cajas];
+    for (int i = 0; i < cajas; i++) {
+      BigDecimal offset = diasPorCaja.multiply(BigDecimal.valueOf(i));
+      offsets[i] = offset.setScale(0, RoundingMode.FLOOR).longValue();
+    }
+    return offsets;
+  }
+}
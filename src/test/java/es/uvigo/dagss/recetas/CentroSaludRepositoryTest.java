@@ -9,7 +9,12 @@ import es.uvigo.dagss.recetas.entidades.CentroSalud;
 import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+// BD propia: la compartida tiene los centros de Vigo de los otros tests. Sin caché de segundo
+// nivel, cuyas regiones (ehcache.xml) comparten todos los contextos de la JVM
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:centros;MODE=MariaDB;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
 @ActiveProfiles("test")
 class CentroSaludRepositoryTest {
 
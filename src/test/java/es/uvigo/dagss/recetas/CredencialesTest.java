@@ -0,0 +1,131 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.uvigo.dagss.recetas.entidades.Administrador;
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Credencial;
+import es.uvigo.dagss.recetas.entidades.Farmacia;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.entidades.TipoUsuario;
+import es.uvigo.dagss.recetas.entidades.Usuario;
+import es.uvigo.dagss.recetas.repositorios.CredencialDAO;
+import es.uvigo.dagss.recetas.servicios.AdministradorService;
+import es.uvigo.dagss.recetas.servicios.AutenticacionService;
+import es.uvigo.dagss.recetas.servicios.FarmaciaService;
+import es.uvigo.dagss.recetas.servicios.MedicoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.excepciones.CredencialesInvalidasException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * HU-C1 contra la tabla Credencial: el login se resuelve por ella y las altas, ediciones y bajas
+ * de los cuatro tipos de usuario la mantienen al día.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CredencialesTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired AutenticacionService autenticacionService;
+  @Autowired AdministradorService administradorService;
+  @Autowired MedicoService medicoService;
+  @Autowired PacienteService pacienteService;
+  @Autowired FarmaciaService farmaciaService;
+  @Autowired CredencialDAO credencialDAO;
+
+  @Test void el_login_carga_el_usuario_del_tipo_de_su_credencial() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    Paciente paciente = datos.paciente(centro.getId(), medico.getId());
+    Farmacia farmacia = datos.farmacia();
+    Administrador admin = administradorService.crear("adm" + DatosPrueba.clave(), "clave", "Admin", "a@a.com");
+
+    assertLogin(admin.getLogin(), "clave", Administrador.class, admin.getId());
+    assertLogin(medico.getLogin(), medico.getNumeroColegiado(), Medico.class, medico.getId());
+    assertLogin(paciente.getLogin(), paciente.getDni(), Paciente.class, paciente.getId());
+    assertLogin(farmacia.getLogin(), farmacia.getNumeroColegiadoFarmaceutico(), Farmacia.class, farmacia.getId());
+
+    assertThatThrownBy(() -> autenticacionService.login(medico.getLogin(), "otra"))
+        .isInstanceOf(CredencialesInvalidasException.class);
+    assertThatThrownBy(() -> autenticacionService.login("nadie" + DatosPrueba.clave(), "clave"))
+        .isInstanceOf(CredencialesInvalidasException.class);
+  }
+
+  @Test void la_credencial_sigue_altas_ediciones_y_bajas_de_administradores() {
+    Administrador a = administradorService.crear("adm" + DatosPrueba.clave(), "clave", "Admin", "a@a.com");
+    assertCredencial(a, TipoUsuario.ADMINISTRADOR, "clave", true);
+
+    administradorService.actualizar(a.getId(), "Otro", "b@a.com", false);
+    assertCredencial(a, TipoUsuario.ADMINISTRADOR, "clave", false);
+    assertThatThrownBy(() -> autenticacionService.login(a.getLogin(), "clave"))
+        .isInstanceOf(CredencialesInvalidasException.class);
+
+    administradorService.actualizar(a.getId(), "Otro", "b@a.com", true);
+    assertLogin(a.getLogin(), "clave", Administrador.class, a.getId());
+    administradorService.baja(a.getId());
+    assertCredencial(a, TipoUsuario.ADMINISTRADOR, "clave", false);
+  }
+
+  @Test void la_credencial_sigue_altas_ediciones_y_bajas_de_medicos() {
+    Medico m = datos.medico(datos.centro().getId());
+    assertCredencial(m, TipoUsuario.MEDICO, m.getNumeroColegiado(), true);
+
+    medicoService.actualizarPerfil(m.getId(), "nueva", null, null, null, null);
+    assertCredencial(m, TipoUsuario.MEDICO, "nueva", true);
+    assertLogin(m.getLogin(), "nueva", Medico.class, m.getId());
+
+    medicoService.baja(m.getId());
+    assertCredencial(m, TipoUsuario.MEDICO, "nueva", false);
+    assertThatThrownBy(() -> autenticacionService.login(m.getLogin(), "nueva"))
+        .isInstanceOf(CredencialesInvalidasException.class);
+  }
+
+  @Test void la_credencial_sigue_altas_ediciones_y_bajas_de_pacientes() {
+    CentroSalud centro = datos.centro();
+    Paciente p = datos.paciente(centro.getId(), datos.medico(centro.getId()).getId());
+    assertCredencial(p, TipoUsuario.PACIENTE, p.getDni(), true);
+
+    pacienteService.actualizarPerfil(p.getId(), "nueva", null, null, null, null, null, null, null, null);
+    assertCredencial(p, TipoUsuario.PACIENTE, "nueva", true);
+    assertLogin(p.getLogin(), "nueva", Paciente.class, p.getId());
+
+    pacienteService.baja(p.getId());
+    assertCredencial(p, TipoUsuario.PACIENTE, "nueva", false);
+    assertThatThrownBy(() -> autenticacionService.login(p.getLogin(), "nueva"))
+        .isInstanceOf(CredencialesInvalidasException.class);
+  }
+
+  @Test void la_credencial_sigue_altas_ediciones_y_bajas_de_farmacias() {
+    Farmacia f = datos.farmacia();
+    assertCredencial(f, TipoUsuario.FARMACIA, f.getNumeroColegiadoFarmaceutico(), true);
+
+    farmaciaService.actualizarPerfil(f.getId(), "nueva", null, null, null, null, null, null, null);
+    assertCredencial(f, TipoUsuario.FARMACIA, "nueva", true);
+    assertLogin(f.getLogin(), "nueva", Farmacia.class, f.getId());
+
+    farmaciaService.baja(f.getId());
+    assertCredencial(f, TipoUsuario.FARMACIA, "nueva", false);
+    assertThatThrownBy(() -> autenticacionService.login(f.getLogin(), "nueva"))
+        .isInstanceOf(CredencialesInvalidasException.class);
+  }
+
+  private void assertLogin(String login, String password, Class<? extends Usuario> tipo, Long id) {
+    Usuario u = autenticacionService.login(login, password);
+    assertThat(u).isInstanceOf(tipo);
+    assertThat(u.getId()).isEqualTo(id);
+  }
+
+  private void assertCredencial(Usuario u, TipoUsuario tipo, String password, boolean activo) {
+    Credencial c = credencialDAO.findById(u.getLogin()).orElseThrow();
+    assertThat(c.getTipo()).isEqualTo(tipo);
+    assertThat(c.getUsuarioId()).isEqualTo(u.getId());
+    assertThat(c.getPassword()).isEqualTo(password);
+    assertThat(c.getActivo()).isEqualTo(activo);
+  }
+}
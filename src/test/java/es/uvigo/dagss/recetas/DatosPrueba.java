@@ -0,0 +1,105 @@
+package es.uvigo.dagss.recetas;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Farmacia;
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.servicios.CentroSaludService;
+import es.uvigo.dagss.recetas.servicios.FarmaciaService;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.MedicoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Altas de prueba por los servicios, con login, DNI, tarjeta, nº de colegiado y nombre únicos en
+ * cada llamada: los tests comparten la BD en memoria y no se pisan entre ellos.
+ */
+@Component
+public class DatosPrueba {
+
+  private final CentroSaludService centroSaludService;
+  private final MedicoService medicoService;
+  private final PacienteService pacienteService;
+  private final MedicamentoService medicamentoService;
+  private final FarmaciaService farmaciaService;
+
+  public DatosPrueba(CentroSaludService centroSaludService, MedicoService medicoService,
+      PacienteService pacienteService, MedicamentoService medicamentoService, FarmaciaService farmaciaService) {
+    this.centroSaludService = centroSaludService;
+    this.medicoService = medicoService;
+    this.pacienteService = pacienteService;
+    this.medicamentoService = medicamentoService;
+    this.farmaciaService = farmaciaService;
+  }
+
+  /** Sufijo único para los campos que no se pueden repetir */
+  public static String clave() {
+    return Long.toString(System.nanoTime(), 36);
+  }
+
+  /** Centro, un médico suyo, un paciente de ese médico, un medicamento en cajas de 7 y una farmacia */
+  public Escenario escenario() {
+    return escenario(7);
+  }
+
+  public Escenario escenario(int dosisEnvase) {
+    CentroSalud centro = centro();
+    Medico medico = medico(centro.getId());
+    return new Escenario(centro, medico, paciente(centro.getId(), medico.getId()), medicamento(dosisEnvase),
+        farmacia());
+  }
+
+  public CentroSalud centro() {
+    return centro("CS " + clave());
+  }
+
+  public CentroSalud centro(String nombre) {
+    return centroSaludService.crear(datosCentro(nombre));
+  }
+
+  /** Un centro sin guardar, para altas y ediciones */
+  public static CentroSalud datosCentro(String nombre) {
+    return new CentroSalud(nombre, "Calle 1", "Vigo", "36201", "Pontevedra", "1", "cs@a.com");
+  }
+
+  public Medico medico(Long centroId) {
+    return medico(centroId, "Ana", "Pérez");
+  }
+
+  public Medico medico(Long centroId, String nombre, String apellidos) {
+    String k = clave();
+    return medicoService.crear("med" + k, nombre, apellidos, "D" + k, "C" + k, "1", "m@a.com", centroId);
+  }
+
+  /** Con tarjeta sanitaria "TS" + clave; su password inicial es el DNI */
+  public Paciente paciente(Long centroId, Long medicoId) {
+    return paciente(centroId, medicoId, "Nombre", "Apellidos");
+  }
+
+  public Paciente paciente(Long centroId, Long medicoId, String nombre, String apellidos) {
+    String k = clave();
+    return pacienteService.crear("pac" + k, nombre, apellidos, "DNI" + k, "TS" + k, null, null, "Vigo", null,
+        null, null, null, null, centroId, medicoId);
+  }
+
+  public Medicamento medicamento(int dosisEnvase) {
+    return medicamento("Med " + clave(), dosisEnvase);
+  }
+
+  public Medicamento medicamento(String nombreComercial, int dosisEnvase) {
+    return medicamentoService.crear(new Medicamento(nombreComercial, "Principio", "Kern", "Varios", dosisEnvase));
+  }
+
+  /** Su password inicial es el nº de colegiado */
+  public Farmacia farmacia() {
+    String k = clave();
+    return farmaciaService.crear("far" + k, "Farmacia " + k, "Eva", "López", "NIF" + k, "F" + k, "Calle 2", "Vigo",
+        "36201", "Pontevedra", "1", "f@a.com");
+  }
+
+  public record Escenario(CentroSalud centro, Medico medico, Paciente paciente, Medicamento medicamento,
+      Farmacia farmacia) {
+  }
+}
@@ -0,0 +1,181 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.DatosPrueba.Escenario;
+import es.uvigo.dagss.recetas.entidades.Prescripcion;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import es.uvigo.dagss.recetas.servicios.RecetaService;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoDispensacion;
+import es.uvigo.dagss.recetas.servicios.excepciones.ConflictoException;
+import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DispensacionConcurrenteTest {
+
+  static final int FARMACIAS = 8;
+
+  @Autowired DatosPrueba datos;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired RecetaService recetaService;
+  @Autowired JdbcTemplate jdbc;
+
+  @Test void cada_receta_se_sirve_una_sola_vez_con_farmacias_concurrentes() throws Exception {
+    Datos d = recetasDeHoy(1);
+    Dispensacion r = servirUnaAUna(d, FARMACIAS);
+
+    assertThat(r.servidas()).hasSize(d.recetas.size()).allSatisfy((id, n) -> assertThat(n.get()).isEqualTo(1));
+    assertThat(d.recetas.size() + r.conflictos().get() + r.rechazadas().get())
+        .isEqualTo(FARMACIAS * d.recetas.size());
+    comprobarServidasUnaVez(d);
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_dispensacion_con_farmacias_concurrentes() throws Exception {
+    servirUnaAUna(recetasDeHoy(20), FARMACIAS); // calentamiento
+
+    // cada ronda con recetas nuevas, todas las farmacias a por las mismas
+    for (int farmacias : List.of(1, 2, 4, 8)) {
+      Datos d = recetasDeHoy(100);
+      long t0 = System.nanoTime();
+      Dispensacion r = servirUnaAUna(d, farmacias);
+      double seg = (System.nanoTime() - t0) / 1e9;
+      assertThat(r.servidas()).hasSize(d.recetas.size()).allSatisfy((id, n) -> assertThat(n.get()).isEqualTo(1));
+      comprobarServidasUnaVez(d);
+      System.out.printf("dispensación concurrente: farmacias=%d %d recetas, %d conflictos en BD, "
+          + "%d rechazadas antes, %.0f servidas/s%n",
+          farmacias, d.recetas.size(), r.conflictos().get(), r.rechazadas().get(), d.recetas.size() / seg);
+    }
+  }
+
+  @Test void un_lote_en_conflicto_no_sirve_ninguna_y_al_reintentar_sirve_las_que_quedan() throws Exception {
+    Datos d = recetasDeHoy(1);
+    Map<Long, AtomicInteger> servidas = new ConcurrentHashMap<>();
+
+    concurrentes(d, FARMACIAS, (farmacia, orden) -> {
+      for (int i = 0; i < orden.size(); i += 5) {
+        List<Long> lote = orden.subList(i, Math.min(i + 5, orden.size()));
+        while (true) {
+          try {
+            for (ResultadoDispensacion r : recetaService.servirRecetas(lote, farmacia, LocalDate.now())) {
+              if (r.servida()) servidas.computeIfAbsent(r.recetaId(), x -> new AtomicInteger()).incrementAndGet();
+            }
+            break;
+          } catch (ConflictoException e) {
+            // otra farmacia sirvió alguna del lote: se reintenta entero
+          }
+        }
+      }
+    });
+
+    assertThat(servidas).hasSize(d.recetas.size()).allSatisfy((id, n) -> assertThat(n.get()).isEqualTo(1));
+    comprobarServidasUnaVez(d);
+  }
+
+  /** Cada farmacia intenta servir una a una todas las recetas */
+  private Dispensacion servirUnaAUna(Datos d, int farmacias) throws Exception {
+    Dispensacion r = new Dispensacion(new ConcurrentHashMap<>(), new AtomicInteger(), new AtomicInteger());
+    concurrentes(d, farmacias, (farmacia, orden) -> {
+      for (Long id : orden) {
+        try {
+          recetaService.servirReceta(id, farmacia, LocalDate.now());
+          r.servidas().computeIfAbsent(id, x -> new AtomicInteger()).incrementAndGet();
+        } catch (ConflictoException e) {
+          r.conflictos().incrementAndGet();
+        } catch (OperacionNoPermitidaException e) {
+          r.rechazadas().incrementAndGet(); // ya la había servido otra al leerla
+        }
+      }
+    });
+    return r;
+  }
+
+  private void comprobarServidasUnaVez(Datos d) {
+    int servidas = 0;
+    for (Long p : d.prescripciones) {
+      servidas += jdbc.queryForObject(
+          "select count(*) from Receta where prescripcion_id = ? and estado = 'SERVIDA' and version = 1",
+          Integer.class, p);
+    }
+    assertThat(servidas).isEqualTo(d.recetas.size());
+  }
+
+  interface Farmacia {
+    void servir(Long farmaciaId, List<Long> orden) throws Exception;
+  }
+
+  /** Cada farmacia intenta servir todas las recetas, en su propio orden */
+  private void concurrentes(Datos d, int farmacias, Farmacia farmacia) throws Exception {
+    CountDownLatch salida = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(farmacias);
+    try {
+      List<Future<?>> tareas = new ArrayList<>();
+      for (int f = 0; f < farmacias; f++) {
+        Long farmaciaId = d.farmacias.get(f);
+        List<Long> orden = new ArrayList<>(d.recetas);
+        Collections.shuffle(orden, new Random(f));
+        tareas.add(pool.submit(() -> {
+          salida.await();
+          farmacia.servir(farmaciaId, orden);
+          return null;
+        }));
+      }
+      salida.countDown();
+      for (Future<?> t : tareas) t.get();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /** Recetas que se pueden servir hoy, de tantas prescripciones (cada una de un paciente) como se pidan */
+  private Datos recetasDeHoy(int prescripciones) {
+    Escenario e = datos.escenario();
+    List<Long> farmacias = new ArrayList<>(List.of(e.farmacia().getId()));
+    while (farmacias.size() < FARMACIAS) {
+      farmacias.add(datos.farmacia().getId());
+    }
+    // una caja al día: todas las recetas de las dos primeras semanas se pueden servir hoy
+    LocalDate hoy = LocalDate.now();
+    List<Long> ids = new ArrayList<>();
+    List<Long> recetas = new ArrayList<>();
+    for (int i = 0; i < prescripciones; i++) {
+      Long paciente = i == 0 ? e.paciente().getId()
+          : datos.paciente(e.centro().getId(), e.medico().getId()).getId();
+      Prescripcion p = prescripcionService.crearPrescripcion(e.medico().getId(), paciente,
+          e.medicamento().getId(), 7.0, null, hoy.plusWeeks(1));
+      List<Long> suyas = jdbc.queryForList(
+          "select id from Receta where prescripcion_id = ? and fechaValidezInicial <= ? order by id",
+          Long.class, p.getId(), hoy);
+      assertThat(suyas).hasSizeGreaterThan(5);
+      ids.add(p.getId());
+      recetas.addAll(suyas);
+    }
+    return new Datos(ids, farmacias, recetas);
+  }
+
+  private record Datos(List<Long> prescripciones, List<Long> farmacias, List<Long> recetas) {
+  }
+
+  private record Dispensacion(Map<Long, AtomicInteger> servidas, AtomicInteger conflictos,
+      AtomicInteger rechazadas) {
+  }
+}
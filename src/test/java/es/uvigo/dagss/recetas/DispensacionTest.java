@@ -0,0 +1,205 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.DatosPrueba.Escenario;
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medicamento;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.entidades.Prescripcion;
+import es.uvigo.dagss.recetas.entidades.Receta;
+import es.uvigo.dagss.recetas.entidades.RecetaDispensable;
+import es.uvigo.dagss.recetas.servicios.DispensacionService;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.MedicoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import es.uvigo.dagss.recetas.servicios.RecetaService;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoDispensacion;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DispensacionTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired PacienteService pacienteService;
+  @Autowired MedicamentoService medicamentoService;
+  @Autowired MedicoService medicoService;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired RecetaService recetaService;
+  @Autowired DispensacionService dispensacionService;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired EntityManagerFactory emf;
+
+  @Test void el_modelo_de_dispensacion_coincide_con_la_consulta_sobre_recetas() {
+    String k = DatosPrueba.clave();
+    Escenario e = datos.escenario();
+    CentroSalud centro = e.centro();
+    Medico medico = e.medico();
+    Paciente paciente = e.paciente();
+    Medicamento medicamento = e.medicamento();
+    Long farmacia = e.farmacia().getId();
+    LocalDate hoy = LocalDate.now();
+    String tarjeta = paciente.getNumeroTarjetaSanitaria();
+
+    Prescripcion larga = prescripcionService.crearPrescripcion(medico.getId(), paciente.getId(), medicamento.getId(),
+        2.0, "1-0-1", hoy.plusMonths(4));
+    Prescripcion corta = prescripcionService.crearPrescripcion(medico.getId(), paciente.getId(), medicamento.getId(),
+        1.0, null, hoy.plusWeeks(3));
+    assertThat(dispensables(tarjeta, hoy)).isNotEmpty().isEqualTo(enVigor(tarjeta, hoy));
+
+    Long primera = recetaService.recetasDispensables(tarjeta, hoy).get(0).getRecetaId();
+    recetaService.servirReceta(primera, farmacia, hoy);
+    assertThat(dispensables(tarjeta, hoy)).doesNotContain(primera).isEqualTo(enVigor(tarjeta, hoy));
+
+    prescripcionService.anularPrescripcion(corta.getId(), medico.getId());
+    assertThat(dispensables(tarjeta, hoy)).isEqualTo(enVigor(tarjeta, hoy));
+    for (LocalDate dia = hoy; dia.isBefore(hoy.plusMonths(5)); dia = dia.plusWeeks(1)) {
+      assertThat(dispensables(tarjeta, dia)).isEqualTo(enVigor(tarjeta, dia));
+    }
+
+    // los datos copiados siguen a su origen
+    pacienteService.actualizarPorAdmin(paciente.getId(), "Nombre", "Apellidos", paciente.getDni(), "TSN" + k, null, null,
+        "Vigo", null, null, null, null, null, centro.getId(), medico.getId(), null);
+    medicamentoService.actualizar(medicamento.getId(), new Medicamento("Nuevo" + k, "Otro principio", "Kern", "Varios", 7));
+    medicoService.actualizarPerfil(medico.getId(), null, "Eva", "Gómez", null, null);
+    assertThat(dispensables(tarjeta, hoy)).isEmpty();
+    List<RecetaDispensable> nuevas = dispensacionService.recetasEnVigor("TSN" + k, hoy);
+    assertThat(nuevas).hasSize(enVigor("TSN" + k, hoy).size())
+        .allMatch(d -> d.getNombreComercial().equals("Nuevo" + k) && d.getPrincipioActivo().equals("Otro principio"))
+        .allMatch(d -> d.getNombreMedico().equals("Eva") && d.getApellidosMedico().equals("Gómez"))
+        .allMatch(d -> d.getPrescripcionId().equals(larga.getId()));
+
+    pacienteService.baja(paciente.getId());
+    assertThat(dispensables("TSN" + k, hoy)).isEmpty();
+  }
+
+  @Test void servir_varias_recetas_en_una_transaccion_con_resultado_por_receta() {
+    Escenario e = datos.escenario();
+    Medico medico = e.medico();
+    Paciente paciente = e.paciente();
+    Medicamento medicamento = e.medicamento();
+    Long farmacia = e.farmacia().getId();
+    String tarjeta = paciente.getNumeroTarjetaSanitaria();
+    LocalDate hoy = LocalDate.now();
+    // una caja al día: varias recetas en vigor hoy y otras que aún no
+    prescripcionService.crearPrescripcion(medico.getId(), paciente.getId(), medicamento.getId(), 7.0, null, hoy.plusMonths(1));
+    List<Long> enVigor = recetaService.recetasDispensables(tarjeta, hoy).stream()
+        .filter(d -> !d.getFechaValidezInicial().isAfter(hoy)).map(RecetaDispensable::getRecetaId).toList();
+    Long futura = recetaService.recetasDispensables(tarjeta, hoy).stream()
+        .filter(d -> d.getFechaValidezInicial().isAfter(hoy)).findFirst().orElseThrow().getRecetaId();
+    assertThat(enVigor).hasSizeGreaterThan(5);
+
+    List<Long> lote = new ArrayList<>(enVigor);
+    lote.add(futura);
+    lote.add(-1L);
+    lote.add(enVigor.get(0));
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    List<ResultadoDispensacion> resultados = recetaService.servirRecetas(lote, farmacia, hoy);
+    long sentencias = stats.getPrepareStatementCount();
+    stats.setStatisticsEnabled(false);
+
+    assertThat(resultados).extracting(ResultadoDispensacion::recetaId).containsExactlyElementsOf(lote);
+    assertThat(resultados.subList(0, enVigor.size())).allMatch(ResultadoDispensacion::servida);
+    assertThat(resultados.subList(enVigor.size(), lote.size())).noneMatch(ResultadoDispensacion::servida)
+        .extracting(ResultadoDispensacion::motivo)
+        .containsExactly("No se puede servir la receta fuera de su periodo de validez",
+            "Receta no encontrada: -1", "Solo se pueden servir recetas PLANIFICADAS");
+    Integer servidas = jdbc.queryForObject("select count(*) from Receta where estado = 'SERVIDA' and farmacia_id = ?",
+        Integer.class, farmacia);
+    assertThat(servidas).isEqualTo(enVigor.size());
+    assertThat(dispensables(tarjeta, hoy)).doesNotContainAnyElementsOf(enVigor).contains(futura);
+    // no depende del número de recetas: farmacia, recetas y sus datos, UPDATE en lote y DELETE del modelo
+    assertThat(sentencias).isLessThan(enVigor.size());
+  }
+
+  private List<Long> dispensables(String tarjeta, LocalDate hoy) {
+    return recetaService.recetasDispensables(tarjeta, hoy).stream().map(RecetaDispensable::getRecetaId).sorted().toList();
+  }
+
+  private List<Long> enVigor(String tarjeta, LocalDate hoy) {
+    return recetaService.recetasEnVigorPorTarjetaSanitaria(tarjeta, hoy).stream().map(Receta::getId).sorted().toList();
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_farmacias_concurrentes() throws Exception {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    Long[] medicamentos = new Long[20];
+    for (int i = 0; i < medicamentos.length; i++) {
+      medicamentos[i] = datos.medicamento(7 * (1 + i % 4)).getId();
+    }
+    int pacientes = 2000;
+    String[] tarjetas = new String[pacientes];
+    for (int i = 0; i < pacientes; i++) {
+      Paciente p = datos.paciente(centro.getId(), medico.getId());
+      tarjetas[i] = p.getNumeroTarjetaSanitaria();
+      Long paciente = p.getId();
+      for (int j = 0; j < 3; j++) {
+        prescripcionService.crearPrescripcion(medico.getId(), paciente, medicamentos[(i + j) % medicamentos.length],
+            1.0 + j, null, LocalDate.now().plusMonths(6));
+      }
+    }
+    Integer recetas = jdbc.queryForObject("select count(*) from Receta", Integer.class);
+    System.out.printf("dispensación: %d pacientes, %d recetas en total%n", pacientes, recetas);
+
+    LocalDate hoy = LocalDate.now();
+    medir("consulta con joins", tarjetas, nts -> recetaService.recetasEnVigorPorTarjetaSanitaria(nts, hoy));
+    medir("modelo de lectura", tarjetas, nts -> recetaService.recetasDispensables(nts, hoy));
+  }
+
+  /** Farmacias leyendo tarjetas a la vez; menos hilos que conexiones del pool */
+  private void medir(String nombre, String[] tarjetas, Consumer<String> lectura) throws Exception {
+    int hilos = 8, porHilo = 5_000;
+    for (int i = 0; i < 2_000; i++) lectura.accept(tarjetas[i % tarjetas.length]); // calentamiento
+
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    try {
+      List<Future<long[]>> tareas = new ArrayList<>();
+      long t0 = System.nanoTime();
+      for (int h = 0; h < hilos; h++) {
+        int semilla = h;
+        tareas.add(pool.submit(() -> {
+          long[] t = new long[porHilo];
+          for (int i = 0; i < porHilo; i++) {
+            long t1 = System.nanoTime();
+            lectura.accept(tarjetas[(semilla * 7919 + i * 31) % tarjetas.length]);
+            t[i] = System.nanoTime() - t1;
+          }
+          return t;
+        }));
+      }
+      long[] todos = new long[hilos * porHilo];
+      for (int h = 0; h < hilos; h++) {
+        System.arraycopy(tareas.get(h).get(), 0, todos, h * porHilo, porHilo);
+      }
+      double seg = (System.nanoTime() - t0) / 1e9;
+      Arrays.sort(todos);
+      long p50 = todos[todos.length / 2], p99 = todos[(int) (todos.length * 0.99)];
+      System.out.printf("dispensación (%s): hilos=%d %.0f lecturas/s p50=%d us p99=%d us%n",
+          nombre, hilos, todos.length / seg, p50 / 1000, p99 / 1000);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
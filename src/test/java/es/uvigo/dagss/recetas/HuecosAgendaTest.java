@@ -0,0 +1,139 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Cita;
+import es.uvigo.dagss.recetas.entidades.EstadoCita;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.repositorios.CitaDAO;
+import es.uvigo.dagss.recetas.servicios.CitaService;
+import es.uvigo.dagss.recetas.servicios.agenda.HuecosAgenda;
+import es.uvigo.dagss.recetas.servicios.dto.Hueco;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HuecosAgendaTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired CitaService citaService;
+  @Autowired CitaDAO citaDAO;
+  @Autowired EntityManagerFactory emf;
+
+  @Test void la_cache_sigue_reservas_anulaciones_y_ausencias_sin_consultar_la_bd() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    List<Long> pacientes = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      pacientes.add(datos.paciente(centro.getId(), medico.getId()).getId());
+    }
+    LocalDate fecha = LocalDate.now().plusDays(5);
+
+    assertThat(citaService.huecosDisponibles(medico.getId(), fecha))
+        .hasSize(HuecosAgenda.HUECOS)
+        .startsWith(LocalTime.of(8, 30))
+        .endsWith(LocalTime.of(15, 15));
+
+    Cita a = citaService.crearCitaPaciente(pacientes.get(0), fecha, LocalTime.of(8, 30));
+    Cita b = citaService.crearCitaPaciente(pacientes.get(1), fecha, LocalTime.of(12, 0));
+    Cita c = citaService.crearCitaPaciente(pacientes.get(2), fecha, LocalTime.of(15, 15));
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    assertThat(citaService.huecosDisponibles(medico.getId(), fecha))
+        .hasSize(HuecosAgenda.HUECOS - 3)
+        .doesNotContain(LocalTime.of(8, 30), LocalTime.of(12, 0), LocalTime.of(15, 15));
+    assertThat(stats.getPrepareStatementCount()).isZero();
+
+    citaService.anularComoPaciente(a.getId(), pacientes.get(0));
+    citaService.anularComoAdmin(b.getId());
+    citaService.marcarAusente(c.getId(), medico.getId());
+    stats.clear();
+    assertThat(citaService.huecosDisponibles(medico.getId(), fecha)).hasSize(HuecosAgenda.HUECOS);
+    assertThat(stats.getPrepareStatementCount()).isZero();
+    stats.setStatisticsEnabled(false);
+
+    assertThat(citaService.huecosDisponibles(medico.getId(), fecha))
+        .isEqualTo(huecosLibresEnBd(medico.getId(), fecha));
+  }
+
+  @Test void busqueda_en_rango_con_una_sola_consulta() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    LocalDate desde = LocalDate.now().plusDays(20);
+    // el primer día lleno y el segundo con todo ocupado salvo 14:00 y 15:15
+    for (int i = 0; i < 2 * HuecosAgenda.HUECOS; i++) {
+      LocalTime hora = HuecosAgenda.hora(i % HuecosAgenda.HUECOS);
+      if (i >= HuecosAgenda.HUECOS && (hora.equals(LocalTime.of(14, 0)) || hora.equals(LocalTime.of(15, 15)))) continue;
+      Long p = datos.paciente(centro.getId(), medico.getId()).getId();
+      citaService.crearCitaPaciente(p, desde.plusDays(i / HuecosAgenda.HUECOS), hora);
+    }
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    List<Hueco> huecos = citaService.primerosHuecosLibres(medico.getId(), desde, desde.plusDays(30), 4);
+    long sentencias = stats.getPrepareStatementCount();
+    stats.setStatisticsEnabled(false);
+
+    assertThat(sentencias).isEqualTo(1);
+    assertThat(huecos).containsExactly(
+        new Hueco(desde.plusDays(1), LocalTime.of(14, 0)),
+        new Hueco(desde.plusDays(1), LocalTime.of(15, 15)),
+        new Hueco(desde.plusDays(2), LocalTime.of(8, 30)),
+        new Hueco(desde.plusDays(2), LocalTime.of(8, 45)));
+    assertThat(citaService.huecosDisponibles(medico.getId(), desde.plusDays(1)))
+        .containsExactly(LocalTime.of(14, 0), LocalTime.of(15, 15));
+
+    List<Hueco> todos = citaService.primerosHuecosLibres(medico.getId(), desde, desde.plusYears(1), CitaService.MAX_HUECOS_BUSQUEDA * 100);
+    assertThat(todos).hasSize(CitaService.MAX_HUECOS_BUSQUEDA);
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_huecos_disponibles() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    LocalDate fecha = LocalDate.now().plusDays(5);
+    for (int i = 0; i < 14; i++) {
+      Long p = datos.paciente(centro.getId(), medico.getId()).getId();
+      citaService.crearCitaPaciente(p, fecha, LocalTime.of(8, 30).plusMinutes(30L * i));
+    }
+
+    medir("consulta de entidades", () -> huecosLibresEnBd(medico.getId(), fecha));
+    medir("caché de bits", () -> citaService.huecosDisponibles(medico.getId(), fecha));
+  }
+
+  /** El cálculo anterior: todas las citas planificadas del día y un recorrido de 15 en 15 min */
+  private List<LocalTime> huecosLibresEnBd(Long medicoId, LocalDate fecha) {
+    List<LocalTime> ocupadas = new ArrayList<>();
+    for (Cita c : citaDAO.findByMedicoIdAndFechaAndEstadoOrderByHoraInicio(medicoId, fecha, EstadoCita.PLANIFICADA)) {
+      ocupadas.add(c.getHoraInicio());
+    }
+    List<LocalTime> libres = new ArrayList<>();
+    for (LocalTime t = LocalTime.of(8, 30); t.isBefore(LocalTime.of(15, 30)); t = t.plusMinutes(15)) {
+      if (!ocupadas.contains(t)) libres.add(t);
+    }
+    return libres;
+  }
+
+  private void medir(String nombre, java.util.function.Supplier<List<LocalTime>> consulta) {
+    for (int i = 0; i < 2_000; i++) consulta.get(); // calentamiento
+    int n = 20_000;
+    long t0 = System.nanoTime();
+    for (int i = 0; i < n; i++) assertThat(consulta.get()).hasSize(14);
+    System.out.printf("huecos disponibles (%s): %.2f us/consulta%n", nombre, (System.nanoTime() - t0) / 1e3 / n);
+  }
+}
@@ -0,0 +1,99 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.repositorios.CredencialDAO;
+import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
+import es.uvigo.dagss.recetas.servicios.dto.FilaPaciente;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoImportacion;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoImportacion.ErrorImportacion;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/** HU-A5: los errores se informan por línea y no impiden importar el resto del fichero */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ImportacionPacientesTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired MockMvc mvc;
+  @Autowired ObjectMapper objectMapper;
+  @Autowired PacienteDAO pacienteDAO;
+  @Autowired CredencialDAO credencialDAO;
+
+  @Test void importa_las_filas_validas_y_rechaza_el_resto_con_su_motivo() throws Exception {
+    String k = DatosPrueba.clave();
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    Medico deOtroCentro = datos.medico(datos.centro().getId());
+    Paciente existente = datos.paciente(centro.getId(), medico.getId());
+    Long c = centro.getId();
+    Long m = medico.getId();
+
+    List<String> lineas = new ArrayList<>();
+    lineas.add(fila("imp1" + k, "I1" + k, "IT1" + k, "IS1" + k, null, c, m));
+    lineas.add(fila("imp1" + k, "I2" + k, null, null, null, c, m));
+    lineas.add(fila("imp3" + k, existente.getDni(), null, null, null, c, m));
+    // el login de la fila rechazada queda libre
+    lineas.add(fila("imp3" + k, "I4" + k, null, null, null, c, m));
+    lineas.add(fila("imp5" + k, "I5" + k, existente.getNumeroTarjetaSanitaria(), null, null, c, m));
+    lineas.add(fila("imp6" + k, "I6" + k, null, "IS1" + k, null, c, m));
+    lineas.add(fila("imp7" + k, "I7" + k, null, null, null, -1L, m));
+    lineas.add(fila("imp8" + k, "I8" + k, null, null, null, c, deOtroCentro.getId()));
+    lineas.add(fila(existente.getLogin(), "I9" + k, null, null, null, c, m));
+    lineas.add("{");
+    // pasa las comprobaciones pero la BD no la admite: el lote se repite fila a fila
+    lineas.add(fila("imp11" + k, "I11" + k, null, null, "x".repeat(300), c, m));
+    lineas.add(fila("imp12" + k, "I12" + k, null, null, null, c, m));
+    lineas.add(fila("imp11" + k, "I11" + k, null, null, "Calle 1", c, m));
+    lineas.add("null");
+
+    String cuerpo = mvc.perform(post("/api/admin/pacientes/importacion")
+            .contentType("application/x-ndjson")
+            .content(String.join("\n", lineas)))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    ResultadoImportacion r = objectMapper.readValue(cuerpo, ResultadoImportacion.class);
+
+    assertThat(r.leidas()).isEqualTo(14);
+    assertThat(r.importadas()).isEqualTo(4);
+    assertThat(r.errores()).extracting(ErrorImportacion::linea).containsExactly(2L, 3L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 14L);
+    assertThat(r.errores()).extracting(ErrorImportacion::mensaje).satisfiesExactly(
+        e -> assertThat(e).isEqualTo("Ya existe un usuario con ese login"),
+        e -> assertThat(e).isEqualTo("Ya existe un paciente con ese dni"),
+        e -> assertThat(e).isEqualTo("Ya existe un paciente con esa tarjeta sanitaria"),
+        e -> assertThat(e).isEqualTo("Ya existe un paciente con ese nº de seguridad social"),
+        e -> assertThat(e).isEqualTo("Centro de salud no encontrado: -1"),
+        e -> assertThat(e).isEqualTo("El médico asignado debe pertenecer al centro de salud del paciente"),
+        e -> assertThat(e).isEqualTo("Ya existe un usuario con ese login"),
+        e -> assertThat(e).startsWith("JSON inválido"),
+        e -> assertThat(e).startsWith("Rechazado por la BD"),
+        e -> assertThat(e).isEqualTo("línea vacía o no es un objeto"));
+
+    for (String login : List.of("imp1" + k, "imp3" + k, "imp12" + k, "imp11" + k)) {
+      assertThat(credencialDAO.findById(login)).isPresent();
+    }
+    assertThat(pacienteDAO.findDnisExistentes(List.of("I1" + k, "I2" + k, "I4" + k, "I11" + k, "I12" + k)))
+        .containsExactlyInAnyOrder("I1" + k, "I4" + k, "I11" + k, "I12" + k);
+  }
+
+  private String fila(String login, String dni, String tarjeta, String numeroSS, String domicilio, Long centro,
+      Long medico) throws Exception {
+    return objectMapper.writeValueAsString(new FilaPaciente(login, "Nombre", "Apellidos", dni, tarjeta, numeroSS,
+        domicilio, "Vigo", null, null, null, null, null, centro, medico));
+  }
+}
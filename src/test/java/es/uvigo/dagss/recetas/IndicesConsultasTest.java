@@ -0,0 +1,348 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.entidades.EstadoCita;
+import es.uvigo.dagss.recetas.entidades.EstadoReceta;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.repositorios.AdministradorDAO;
+import es.uvigo.dagss.recetas.repositorios.BloqueoTareaDAO;
+import es.uvigo.dagss.recetas.repositorios.CentroSaludDAO;
+import es.uvigo.dagss.recetas.repositorios.CitaDAO;
+import es.uvigo.dagss.recetas.repositorios.CredencialDAO;
+import es.uvigo.dagss.recetas.repositorios.FarmaciaDAO;
+import es.uvigo.dagss.recetas.repositorios.InvalidacionReferenciaDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
+import es.uvigo.dagss.recetas.repositorios.PrescripcionDAO;
+import es.uvigo.dagss.recetas.repositorios.RecetaDAO;
+import es.uvigo.dagss.recetas.repositorios.RecetaDispensableDAO;
+import es.uvigo.dagss.recetas.repositorios.UsuarioDAO;
+import es.uvigo.dagss.recetas.servicios.AdministradorService;
+import es.uvigo.dagss.recetas.servicios.CitaService;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Plan de H2 (EXPLAIN) de cada consulta de los DAO sobre el esquema de las migraciones y un
+ * conjunto de datos sembrado: falla si alguna recorre una tabla entera, o un índice sin
+ * condición sobre su primera columna, que para el caso es lo mismo.
+ */
+// sin caché de consultas: cada llamada tiene que llegar a la BD para ver su plan
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=es.uvigo.dagss.recetas.IndicesConsultasTest$Sentencias",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+@ActiveProfiles("test")
+class IndicesConsultasTest {
+
+  /** Consultas que pueden recorrer la tabla entera, con el motivo */
+  static final Map<String, String> EXENTAS = Map.ofEntries(
+      Map.entry("AdministradorDAO.findByLogin", "sin uso: el login se resuelve por la clave de Credencial"),
+      Map.entry("FarmaciaDAO.findByLogin", "sin uso: el login se resuelve por la clave de Credencial"),
+      Map.entry("MedicoDAO.findByLogin", "sin uso: el login se resuelve por la clave de Credencial"),
+      Map.entry("PacienteDAO.findByLogin", "sin uso: el login se resuelve por la clave de Credencial"),
+      Map.entry("UsuarioDAO.findByLogin", "sin uso: el login se resuelve por la clave de Credencial"),
+      Map.entry("UsuarioDAO.findActivoByLogin", "sin uso: el login se resuelve por la clave de Credencial"),
+      Map.entry("UsuarioDAO.existsByLogin", "sin uso: el login se resuelve por la clave de Credencial"));
+
+  static final List<Class<?>> DAOS = List.of(AdministradorDAO.class, BloqueoTareaDAO.class, CentroSaludDAO.class,
+      CitaDAO.class, CredencialDAO.class, FarmaciaDAO.class, InvalidacionReferenciaDAO.class, MedicamentoDAO.class,
+      MedicoDAO.class, PacienteDAO.class, PrescripcionDAO.class, RecetaDAO.class, RecetaDispensableDAO.class, UsuarioDAO.class);
+
+  // índice usado y condición de cada acceso a tabla: /* PUBLIC.IDX_X: COL = ?1 */
+  static final Pattern ACCESO = Pattern.compile("/\\* (PUBLIC\\.[\\w.]+)(?:: (.*?))?\\s*\\*/", Pattern.DOTALL);
+
+  /** SQL que genera Hibernate en el hilo del test mientras se captura */
+  public static class Sentencias implements StatementInspector {
+    static final ThreadLocal<List<String>> capturadas = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+      List<String> lista = capturadas.get();
+      if (lista != null) lista.add(sql);
+      return sql;
+    }
+  }
+
+  @Autowired DatosPrueba datos;
+  @Autowired PacienteService pacienteService;
+  @Autowired MedicamentoService medicamentoService;
+  @Autowired AdministradorService administradorService;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired CitaService citaService;
+  @Autowired AdministradorDAO administradorDAO;
+  @Autowired BloqueoTareaDAO bloqueoTareaDAO;
+  @Autowired CentroSaludDAO centroSaludDAO;
+  @Autowired CitaDAO citaDAO;
+  @Autowired CredencialDAO credencialDAO;
+  @Autowired FarmaciaDAO farmaciaDAO;
+  @Autowired InvalidacionReferenciaDAO invalidacionReferenciaDAO;
+  @Autowired MedicamentoDAO medicamentoDAO;
+  @Autowired MedicoDAO medicoDAO;
+  @Autowired PacienteDAO pacienteDAO;
+  @Autowired PrescripcionDAO prescripcionDAO;
+  @Autowired RecetaDAO recetaDAO;
+  @Autowired RecetaDispensableDAO recetaDispensableDAO;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @TestFactory Stream<DynamicTest> ninguna_consulta_de_los_daos_recorre_una_tabla_entera() {
+    Datos d = datos();
+    jdbc.execute("analyze");
+
+    return consultas(d).entrySet().stream().map(c -> DynamicTest.dynamicTest(c.getKey(), () -> {
+      List<String> sentencias = capturar(c.getValue());
+      assertThat(sentencias).isNotEmpty();
+      for (String sql : sentencias) {
+        assertThat(recorridosCompletos(sql)).as(sql).isEmpty();
+      }
+    }));
+  }
+
+  @Test void todas_las_consultas_de_los_daos_se_comprueban_o_estan_exentas() {
+    Set<String> declaradas = new TreeSet<>();
+    for (Class<?> dao : DAOS) {
+      for (Method m : dao.getDeclaredMethods()) {
+        if (!m.isDefault() && !Modifier.isStatic(m.getModifiers())) {
+          declaradas.add(dao.getSimpleName() + "." + m.getName());
+        }
+      }
+    }
+    Set<String> comprobadas = new TreeSet<>(consultas(null).keySet());
+    comprobadas.addAll(EXENTAS.keySet());
+    assertThat(comprobadas).isEqualTo(declaradas);
+  }
+
+  /** Una llamada por consulta; las de modificación se deshacen al terminar */
+  private Map<String, Runnable> consultas(Datos d) {
+    Map<String, Runnable> c = new LinkedHashMap<>();
+    LocalDate hoy = LocalDate.now();
+    Limit diez = Limit.of(10);
+
+    c.put("AdministradorDAO.findByActivoTrueOrderByLoginAsc", () -> administradorDAO.findByActivoTrueOrderByLoginAsc());
+    c.put("AdministradorDAO.findResumenesActivos", () -> administradorDAO.findResumenesActivos(diez));
+    c.put("AdministradorDAO.findResumenesActivosDespues", () -> administradorDAO.findResumenesActivosDespues("adm", 1L, diez));
+    c.put("AdministradorDAO.streamResumenesActivos", () -> consumir(administradorDAO.streamResumenesActivos()));
+
+    c.put("BloqueoTareaDAO.adquirir", () -> bloqueoTareaDAO.adquirir("explain", "nodo", LocalDateTime.now(), LocalDateTime.now()));
+    c.put("BloqueoTareaDAO.crear", () -> bloqueoTareaDAO.crear("explain", "nodo", LocalDateTime.now()));
+    c.put("BloqueoTareaDAO.liberar", () -> bloqueoTareaDAO.liberar("explain", "nodo", LocalDateTime.now()));
+
+    c.put("CentroSaludDAO.findByActivoTrueOrderByNombreAsc", () -> centroSaludDAO.findByActivoTrueOrderByNombreAsc());
+    c.put("CentroSaludDAO.findByActivoTrueAndProvinciaIgnoreCaseOrderByLocalidadAscNombreAsc",
+        () -> centroSaludDAO.findByActivoTrueAndProvinciaIgnoreCaseOrderByLocalidadAscNombreAsc("pontevedra"));
+    c.put("CentroSaludDAO.buscarActivosPorNombreOLocalidadLike", () -> centroSaludDAO.buscarActivosPorNombreOLocalidadLike("vigo"));
+    c.put("CentroSaludDAO.buscarResumenesActivos", () -> centroSaludDAO.buscarResumenesActivos(null));
+    c.put("CentroSaludDAO.findReferencia", () -> centroSaludDAO.findReferencia(d.centro()));
+
+    c.put("CitaDAO.buscarPorFechaConFiltros", () -> citaDAO.buscarPorFechaConFiltros(d.fecha(), d.medico(), null));
+    c.put("CitaDAO.findByMedicoIdAndFechaOrderByHoraInicio", () -> citaDAO.findByMedicoIdAndFechaOrderByHoraInicio(d.medico(), d.fecha()));
+    c.put("CitaDAO.findByMedicoIdAndFechaAndEstadoOrderByHoraInicio",
+        () -> citaDAO.findByMedicoIdAndFechaAndEstadoOrderByHoraInicio(d.medico(), d.fecha(), EstadoCita.PLANIFICADA));
+    c.put("CitaDAO.findFuturasPlanificadasDePaciente", () -> citaDAO.findFuturasPlanificadasDePaciente(d.paciente(), hoy, LocalTime.NOON));
+    c.put("CitaDAO.findByMedicoIdAndFechaAndHoraInicioAndEstado",
+        () -> citaDAO.findByMedicoIdAndFechaAndHoraInicioAndEstado(d.medico(), d.fecha(), LocalTime.of(9, 0), EstadoCita.PLANIFICADA));
+    c.put("CitaDAO.huecosOcupadosEntre", () -> citaDAO.huecosOcupadosEntre(d.medico(), hoy, hoy.plusDays(7)));
+    c.put("CitaDAO.findVencidas", () -> citaDAO.findVencidas(hoy, diez));
+    c.put("CitaDAO.marcarAusentes", () -> citaDAO.marcarAusentes(d.citas()));
+
+    c.put("CredencialDAO.findLoginsExistentes", () -> credencialDAO.findLoginsExistentes(List.of("a", "b")));
+
+    c.put("FarmaciaDAO.findByNumeroColegiadoFarmaceutico", () -> farmaciaDAO.findByNumeroColegiadoFarmaceutico("F1"));
+    c.put("FarmaciaDAO.findByActivoTrueOrderByNombreEstablecimientoAsc", () -> farmaciaDAO.findByActivoTrueOrderByNombreEstablecimientoAsc());
+    c.put("FarmaciaDAO.findResumenesActivas", () -> farmaciaDAO.findResumenesActivas(diez));
+    c.put("FarmaciaDAO.findResumenesActivasDespues", () -> farmaciaDAO.findResumenesActivasDespues("Farmacia", 1L, diez));
+    c.put("FarmaciaDAO.streamResumenesActivas", () -> consumir(farmaciaDAO.streamResumenesActivas()));
+    c.put("FarmaciaDAO.buscarActivasPorNombreEstablecimientoOLocalidadLike",
+        () -> farmaciaDAO.buscarActivasPorNombreEstablecimientoOLocalidadLike("vigo"));
+
+    c.put("InvalidacionReferenciaDAO.findByCreadaGreaterThanEqualOrderById",
+        () -> invalidacionReferenciaDAO.findByCreadaGreaterThanEqualOrderById(LocalDateTime.now().minusMinutes(1)));
+    c.put("InvalidacionReferenciaDAO.borrarAnteriores", () -> invalidacionReferenciaDAO.borrarAnteriores(LocalDateTime.now().minusHours(1)));
+
+    c.put("MedicamentoDAO.findByActivoTrueOrderByNombreComercialAsc", () -> medicamentoDAO.findByActivoTrueOrderByNombreComercialAsc());
+    c.put("MedicamentoDAO.buscarActivosLike", () -> medicamentoDAO.buscarActivosLike("ibu"));
+    c.put("MedicamentoDAO.findReferencia", () -> medicamentoDAO.findReferencia(d.medicamento()));
+
+    c.put("MedicoDAO.findByNumeroColegiado", () -> medicoDAO.findByNumeroColegiado("C1"));
+    c.put("MedicoDAO.findActivosConCentro", () -> medicoDAO.findActivosConCentro());
+    c.put("MedicoDAO.findResumenesActivos", () -> medicoDAO.findResumenesActivos(diez));
+    c.put("MedicoDAO.findResumenesActivosDespues", () -> medicoDAO.findResumenesActivosDespues("Pérez", "Ana", 1L, diez));
+    c.put("MedicoDAO.streamResumenesActivos", () -> consumir(medicoDAO.streamResumenesActivos()));
+    c.put("MedicoDAO.findConCentroByIdIn", () -> medicoDAO.findConCentroByIdIn(List.of(d.medico())));
+    c.put("MedicoDAO.buscarActivos", () -> medicoDAO.buscarActivos("ana", null, d.centro()));
+    c.put("MedicoDAO.findActivosByCentro", () -> medicoDAO.findActivosByCentro(d.centro()));
+    c.put("MedicoDAO.findReferencia", () -> medicoDAO.findReferencia(d.medico()));
+
+    c.put("PacienteDAO.findByNumeroTarjetaSanitaria", () -> pacienteDAO.findByNumeroTarjetaSanitaria(d.tarjeta()));
+    c.put("PacienteDAO.findActivosConCentroYMedico", () -> pacienteDAO.findActivosConCentroYMedico());
+    c.put("PacienteDAO.findResumenesActivos", () -> pacienteDAO.findResumenesActivos(diez));
+    c.put("PacienteDAO.findResumenesActivosDespues", () -> pacienteDAO.findResumenesActivosDespues("García", "Ana", 1L, diez));
+    c.put("PacienteDAO.streamResumenesActivos", () -> consumir(pacienteDAO.streamResumenesActivos()));
+    c.put("PacienteDAO.findDnisExistentes", () -> pacienteDAO.findDnisExistentes(List.of("1", "2")));
+    c.put("PacienteDAO.findTarjetasExistentes", () -> pacienteDAO.findTarjetasExistentes(List.of("1", "2")));
+    c.put("PacienteDAO.findSeguridadSocialExistentes", () -> pacienteDAO.findSeguridadSocialExistentes(List.of("1", "2")));
+    c.put("PacienteDAO.buscarActivos", () -> pacienteDAO.buscarActivos("ana", null, null, d.medico()));
+
+    c.put("PrescripcionDAO.findEnVigorDePaciente", () -> prescripcionDAO.findEnVigorDePaciente(d.paciente(), hoy));
+    c.put("PrescripcionDAO.findConPlanPendienteDePaciente", () -> prescripcionDAO.findConPlanPendienteDePaciente(d.paciente()));
+    c.put("PrescripcionDAO.findPlanesPorAmpliar", () -> prescripcionDAO.findPlanesPorAmpliar(hoy, diez));
+    c.put("PrescripcionDAO.desactivarDeMedico", () -> prescripcionDAO.desactivarDeMedico(d.medico()));
+    c.put("PrescripcionDAO.desactivarDePaciente", () -> prescripcionDAO.desactivarDePaciente(d.paciente()));
+
+    c.put("RecetaDAO.findPendientesDePaciente", () -> recetaDAO.findPendientesDePaciente(d.paciente(), hoy));
+    c.put("RecetaDAO.findPlanificadasEnVigorPorTarjetaSanitaria",
+        () -> recetaDAO.findPlanificadasEnVigorPorTarjetaSanitaria(d.tarjeta(), hoy));
+    c.put("RecetaDAO.anularPlanificadasDePrescripcion", () -> recetaDAO.anularPlanificadasDePrescripcion(d.prescripcion()));
+    c.put("RecetaDAO.anularPlanificadasDeMedico", () -> recetaDAO.anularPlanificadasDeMedico(d.medico()));
+    c.put("RecetaDAO.anularPlanificadasDePaciente", () -> recetaDAO.anularPlanificadasDePaciente(d.paciente()));
+    c.put("RecetaDAO.findByPrescripcionIdAndEstado", () -> recetaDAO.findByPrescripcionIdAndEstado(d.prescripcion(), EstadoReceta.PLANIFICADA));
+    c.put("RecetaDAO.countByEstadoAndFechaValidezFinalBefore",
+        () -> recetaDAO.countByEstadoAndFechaValidezFinalBefore(EstadoReceta.PLANIFICADA, hoy));
+    c.put("RecetaDAO.findIdsVencidas", () -> recetaDAO.findIdsVencidas(hoy, diez));
+    c.put("RecetaDAO.caducar", () -> recetaDAO.caducar(d.recetas()));
+
+    c.put("RecetaDispensableDAO.findEnVigorPorTarjetaSanitaria",
+        () -> recetaDispensableDAO.findEnVigorPorTarjetaSanitaria(d.tarjeta(), hoy));
+    c.put("RecetaDispensableDAO.rellenarDePrescripciones", () -> recetaDispensableDAO.rellenarDePrescripciones(List.of(d.prescripcion())));
+    c.put("RecetaDispensableDAO.borrarReceta", () -> recetaDispensableDAO.borrarReceta(d.recetas().get(0)));
+    c.put("RecetaDispensableDAO.borrarRecetas", () -> recetaDispensableDAO.borrarRecetas(d.recetas()));
+    c.put("RecetaDispensableDAO.borrarDePrescripcion", () -> recetaDispensableDAO.borrarDePrescripcion(d.prescripcion()));
+    c.put("RecetaDispensableDAO.borrarDeMedico", () -> recetaDispensableDAO.borrarDeMedico(d.medico()));
+    c.put("RecetaDispensableDAO.borrarDePaciente", () -> recetaDispensableDAO.borrarDePaciente(d.paciente()));
+    c.put("RecetaDispensableDAO.actualizarTarjeta", () -> recetaDispensableDAO.actualizarTarjeta(d.paciente(), d.tarjeta()));
+    c.put("RecetaDispensableDAO.actualizarMedico", () -> recetaDispensableDAO.actualizarMedico(d.medico(), "Ana", "Pérez"));
+    c.put("RecetaDispensableDAO.actualizarMedicamento",
+        () -> recetaDispensableDAO.actualizarMedicamento(d.medicamento(), "Ibuprofeno", "Ibuprofeno", 20));
+    return c;
+  }
+
+  /** Ejecuta la consulta en una transacción que se deshace y devuelve el SQL que generó */
+  private List<String> capturar(Runnable consulta) {
+    List<String> sentencias = new ArrayList<>();
+    Sentencias.capturadas.set(sentencias);
+    try {
+      new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+        consulta.run();
+        tx.setRollbackOnly();
+      });
+    } finally {
+      Sentencias.capturadas.remove();
+    }
+    return sentencias;
+  }
+
+  private static void consumir(Stream<?> filas) {
+    try (filas) {
+      filas.count();
+    }
+  }
+
+  /** Accesos del plan sin índice, o con un índice cuya primera columna no se filtra */
+  private List<String> recorridosCompletos(String sql) {
+    String plan = jdbc.query(con -> con.prepareStatement("explain " + sql),
+        rs -> rs.next() ? rs.getString(1) : "");
+    List<String> completos = new ArrayList<>();
+    Matcher m = ACCESO.matcher(plan);
+    while (m.find()) {
+      String indice = m.group(1);
+      String condicion = m.group(2) == null ? "" : m.group(2);
+      if (indice.endsWith(".tableScan")) {
+        completos.add(indice);
+        continue;
+      }
+      String primera = jdbc.queryForObject("""
+          select column_name from information_schema.index_columns
+          where index_schema = ? and index_name = ? and ordinal_position = 1
+          """, String.class, indice.substring(0, indice.indexOf('.')), indice.substring(indice.indexOf('.') + 1));
+      Pattern filtro = Pattern.compile("(^|[\\s(])" + primera + "\\s*(=|<|>|IN\\b|IS\\b|BETWEEN\\b)");
+      if (!filtro.matcher(condicion).find()) {
+        completos.add(indice + " sin condición sobre " + primera);
+      }
+    }
+    return completos;
+  }
+
+  /**
+   * Varios centros, médicos y pacientes (algunos de baja), prescripciones con su plan de
+   * recetas y citas pasadas y futuras, para que H2 tenga dónde elegir índice.
+   */
+  private Datos datos() {
+    String k = DatosPrueba.clave();
+    List<Long> centros = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      centros.add(datos.centro().getId());
+    }
+    List<Medico> medicos = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      medicos.add(datos.medico(centros.get(i % 3), "Ana " + i, "Pérez " + i));
+    }
+    List<Paciente> pacientes = new ArrayList<>();
+    for (int i = 0; i < 240; i++) {
+      pacientes.add(datos.paciente(centros.get(i % 3), medicos.get(i % 6).getId(), "Nombre " + i,
+          "Apellidos " + (i % 37)));
+    }
+    List<Long> medicamentos = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      medicamentos.add(datos.medicamento(10).getId());
+    }
+    for (int i = 0; i < 10; i++) {
+      datos.farmacia();
+      administradorService.crear("admx" + k + i, "clave", "Admin " + i, "a@a.com");
+    }
+
+    LocalDate hoy = LocalDate.now();
+    List<Long> prescripciones = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      prescripciones.add(prescripcionService.crearPrescripcion(medicos.get(i % 6).getId(), pacientes.get(i).getId(),
+          medicamentos.get(i % 12), 1.0, null, hoy.plusMonths(2)).getId());
+    }
+    // una cita por paciente: diez días alrededor de hoy y una hora distinta cada diez pacientes
+    List<Long> citas = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      citas.add(citaService.crearCitaPaciente(pacientes.get(i).getId(), hoy.plusDays(i % 10 - 3),
+          LocalTime.of(8, 30).plusMinutes(15L * (i / 10))).getId());
+    }
+    for (int i = 200; i < 220; i++) {
+      pacienteService.baja(pacientes.get(i).getId());
+    }
+    medicamentoService.baja(medicamentos.get(11));
+
+    List<Long> recetas = jdbc.queryForList("select id from Receta where prescripcion_id = ? order by id",
+        Long.class, prescripciones.get(0));
+    return new Datos(centros.get(0), medicos.get(0).getId(), pacientes.get(0).getId(), pacientes.get(0).getNumeroTarjetaSanitaria(), medicamentos.get(0),
+        prescripciones.get(0), recetas, citas.subList(0, 20), hoy.plusDays(-3));
+  }
+
+  private record Datos(Long centro, Long medico, Long paciente, String tarjeta, Long medicamento,
+                       Long prescripcion, List<Long> recetas, List<Long> citas, LocalDate fecha) {
+  }
+}
@@ -0,0 +1,146 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.dto.PacienteResumen;
+import es.uvigo.dagss.recetas.servicios.dto.Pagina;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
+import jakarta.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListadosPaginadosTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired PacienteService pacienteService;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired MockMvc mvc;
+  @Autowired PacienteDAO pacienteDAO;
+  @Autowired ObjectMapper objectMapper;
+  @Autowired EntityManagerFactory emf;
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Test void las_paginas_recorren_todos_los_pacientes_una_vez_en_orden() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    // apellidos y nombres repetidos o null para comprobar los desempates de la clave
+    String[] apellidos = {null, "García", "García", "López", null, "García", "Álvarez"};
+    String[] nombres = {"Luis", null, "Ana", "Ana", null, "Ana", "Eva"};
+    for (int i = 0; i < 21; i++) {
+      datos.paciente(centro.getId(), medico.getId(), nombres[i % nombres.length], apellidos[i % apellidos.length]);
+    }
+    pacienteService.baja(pacienteService.paginarActivos(null, 1).elementos().get(0).id());
+
+    List<PacienteResumen> vistos = new ArrayList<>();
+    Set<Long> ids = new HashSet<>();
+    String cursor = null;
+    do {
+      Pagina<PacienteResumen> pagina = pacienteService.paginarActivos(cursor, 4);
+      assertThat(pagina.elementos()).hasSizeLessThanOrEqualTo(4);
+      for (PacienteResumen p : pagina.elementos()) {
+        assertThat(ids.add(p.id())).isTrue();
+        vistos.add(p);
+      }
+      cursor = pagina.siguiente();
+    } while (cursor != null);
+
+    Integer activos = jdbc.queryForObject("select count(*) from Paciente where activo = true", Integer.class);
+    assertThat(vistos).hasSize(activos);
+    assertThat(vistos).isSortedAccordingTo(Comparator
+        .comparing(PacienteResumen::apellidos, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .thenComparing(PacienteResumen::nombre, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .thenComparing(PacienteResumen::id));
+  }
+
+  @Test void el_modo_ndjson_devuelve_un_paciente_por_linea() throws Exception {
+    MvcResult inicio = mvc.perform(get("/api/admin/pacientes").accept(MediaType.APPLICATION_NDJSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String cuerpo = mvc.perform(asyncDispatch(inicio))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    Integer activos = jdbc.queryForObject("select count(*) from Paciente where activo = true", Integer.class);
+    assertThat(cuerpo.lines().filter(l -> l.startsWith("{"))).hasSize(activos);
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_listado_entidades_frente_a_resumenes() throws Exception {
+    String k = DatosPrueba.clave();
+    List<Medico> medicos = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      medicos.add(datos.medico(datos.centro().getId()));
+    }
+    for (int i = 0; i < 2000; i++) {
+      Medico m = medicos.get(i % medicos.size());
+      pacienteService.crear("pacb" + k + i, "Nombre " + i, "Apellidos " + (i % 97), "DNIB" + k + i, "TSB" + k + i, null,
+          "Calle " + i, "Vigo", "36201", "Pontevedra", "986000000", "p" + i + "@a.com", null, m.getCentroSalud().getId(), m.getId());
+    }
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    // el listado anterior: entidades serializadas con la sesión abierta (open-in-view)
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    medir("entidades", stats, () -> tx.execute(e -> escribir(
+        pacienteDAO.findAll(PageRequest.of(0, 500, Sort.by("apellidos", "nombre", "id"))).getContent())));
+    medir("resumenes", stats, () -> escribir(pacienteService.paginarActivos(null, 500)));
+  }
+
+  private int escribir(Object valor) {
+    try {
+      return objectMapper.writeValueAsBytes(valor).length;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void medir(String nombre, Statistics stats, IntSupplier peticion) {
+    var mx = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long hilo = Thread.currentThread().getId();
+    for (int i = 0; i < 20; i++) peticion.getAsInt(); // calentamiento
+
+    int n = 100;
+    stats.clear();
+    long bytes = 0;
+    long memoria0 = mx.getThreadAllocatedBytes(hilo);
+    long t0 = System.nanoTime();
+    for (int i = 0; i < n; i++) bytes += peticion.getAsInt();
+    long ms = (System.nanoTime() - t0) / 1_000_000;
+    long memoria = mx.getThreadAllocatedBytes(hilo) - memoria0;
+    System.out.printf("listado pacientes (%s, 500 filas): %d sentencias/pet, %d bytes JSON/pet, %d KB asignados/pet, %.2f ms/pet%n",
+        nombre, stats.getPrepareStatementCount() / n, bytes / n, memoria / n / 1024, (double) ms / n);
+  }
+}
@@ -0,0 +1,83 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import es.uvigo.dagss.recetas.servicios.CentroSaludService;
+import es.uvigo.dagss.recetas.servicios.excepciones.RecursoNoEncontradoException;
+import es.uvigo.dagss.recetas.servicios.metricas.ContadorSentencias;
+import es.uvigo.dagss.recetas.servicios.metricas.ControlPresupuestos;
+import es.uvigo.dagss.recetas.servicios.metricas.MedicionMetodos;
+import es.uvigo.dagss.recetas.servicios.metricas.MedicionPeticiones;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricasTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired CentroSaludService centroSaludService;
+  @Autowired MeterRegistry registro;
+  @Autowired MockMvc mvc;
+
+  @Test void mide_servicios_consultas_y_sentencias_por_peticion() throws Exception {
+    datos.centro();
+    try {
+      centroSaludService.baja(-1L);
+    } catch (RecursoNoEncontradoException e) {
+      // se mide con su excepción
+    }
+
+    mvc.perform(get("/api/admin/centros")).andExpect(status().isOk());
+
+    assertThat(timer("recetas.servicio", "CentroSaludService", "crear", "none").count()).isPositive();
+    assertThat(timer("recetas.servicio", "CentroSaludService", "baja", "RecursoNoEncontradoException").count()).isPositive();
+    assertThat(timer("recetas.servicio", "CentroSaludService", "buscarResumenesActivos", "none").count()).isPositive();
+    // las heredadas de JpaRepository también, con el nombre del DAO
+    assertThat(timer("recetas.dao", "CentroSaludDAO", "save", "none").count()).isPositive();
+    assertThat(timer("recetas.dao", "CentroSaludDAO", "buscarResumenesActivos", "none").count()).isPositive();
+
+    DistributionSummary sentencias = registro.get("recetas.peticion.sentencias")
+        .tags("metodo", "GET", "ruta", "/api/admin/centros").summary();
+    assertThat(sentencias.count()).isEqualTo(1);
+    assertThat(sentencias.totalAmount()).isEqualTo(1);
+
+    String prometheus = mvc.perform(get("/actuator/prometheus")).andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    assertThat(prometheus)
+        .contains("recetas_servicio_seconds_bucket{clase=\"CentroSaludService\",excepcion=\"none\",metodo=\"crear\"")
+        .contains("recetas_dao_seconds_count{clase=\"CentroSaludDAO\"")
+        .contains("recetas_peticion_sentencias_bucket{metodo=\"GET\",ruta=\"/api/admin/centros\"");
+  }
+
+  @Test void desactivadas_no_queda_ningun_aspecto_ni_filtro() {
+    new ApplicationContextRunner()
+        .withPropertyValues("recetas.metricas.activas=false")
+        .withBean(SimpleMeterRegistry.class)
+        .withUserConfiguration(MedicionMetodos.class, ContadorSentencias.class, MedicionPeticiones.class,
+            ControlPresupuestos.class)
+        .run(ctx -> assertThat(ctx)
+            .doesNotHaveBean(MedicionMetodos.class)
+            .doesNotHaveBean(ControlPresupuestos.class)
+            .doesNotHaveBean(ContadorSentencias.class)
+            .doesNotHaveBean(MedicionPeticiones.class));
+  }
+
+  private Timer timer(String nombre, String clase, String metodo, String excepcion) {
+    return registro.get(nombre).tags("clase", clase, "metodo", metodo, "excepcion", excepcion).timer();
+  }
+}
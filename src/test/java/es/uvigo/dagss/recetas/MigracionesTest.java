@@ -0,0 +1,115 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Migraciones de Flyway sobre una BD con el esquema de partida (V1) y filas de antes de cada
+ * cambio: los datos que ya había quedan como los dejaría la aplicación.
+ */
+class MigracionesTest {
+
+  String url;
+  JdbcTemplate jdbc;
+
+  @BeforeEach void bdConElEsquemaDePartida() {
+    url = "jdbc:h2:mem:migraciones" + System.nanoTime() + ";MODE=MariaDB;DB_CLOSE_DELAY=-1";
+    jdbc = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    migrar("1");
+
+    jdbc.update("insert into CentroSalud (id, nombre, activo) values (1, 'CS Vigo', true)");
+    jdbc.update("insert into Medico (id, login, nombre, apellidos, activo, centro_salud_id, TIPO_USUARIO) "
+        + "values (1, 'medico', 'Ana', 'Pérez', true, 1, 'MEDICO')");
+    jdbc.update("insert into Paciente (id, login, nombre, numeroTarjetaSanitaria, activo, centro_salud_id, medico_id, "
+        + "TIPO_USUARIO) values (2, 'paciente', 'Luis', 'TS1', true, 1, 1, 'PACIENTE')");
+    jdbc.update("insert into Medicamento (id, nombreComercial, principioActivo, numeroDosis, activo) "
+        + "values (1, 'Kern', 'Principio', 7, true)");
+  }
+
+  @Test void cada_usuario_con_login_tiene_su_credencial() {
+    jdbc.update("insert into Administrador (id, login, password, activo, TIPO_USUARIO) "
+        + "values (3, 'admin', 'clave', true, 'ADMINISTRADOR')");
+    jdbc.update("insert into Farmacia (id, login, password, activo, TIPO_USUARIO) "
+        + "values (4, 'farmacia', 'F1', false, 'FARMACIA')");
+    jdbc.update("insert into Paciente (id, nombre, activo, centro_salud_id, medico_id, TIPO_USUARIO) "
+        + "values (5, 'Sin login', true, 1, 1, 'PACIENTE')");
+
+    migrar("latest");
+
+    assertThat(jdbc.queryForList("select concat(login, ' ', usuarioId, ' ', TIPO_USUARIO, ' ', coalesce(password, '-'), "
+        + "case when activo then '' else ' (baja)' end) from Credencial order by usuarioId", String.class))
+        .containsExactly("medico 1 MEDICO -", "paciente 2 PACIENTE -", "admin 3 ADMINISTRADOR clave",
+            "farmacia 4 FARMACIA F1 (baja)");
+  }
+
+  @Test void las_citas_planificadas_reservan_su_hueco_una_sola_vez() {
+    cita(1, "09:00:00", "PLANIFICADA");
+    cita(2, "09:00:00", "PLANIFICADA");
+    cita(3, "09:00:00", "ANULADA");
+    cita(4, "09:15:00", "PLANIFICADA");
+
+    migrar("latest");
+
+    assertThat(jdbc.queryForList("select ocupaHueco from Cita order by id", Boolean.class))
+        .containsExactly(true, null, null, true);
+    assertThat(jdbc.queryForList("select version from Cita", Long.class)).containsOnly(0L);
+  }
+
+  @Test void las_recetas_planificadas_pasan_al_modelo_de_dispensacion() {
+    prescripcion(1, true);
+    prescripcion(2, false);
+    receta(1, 1, "PLANIFICADA");
+    receta(2, 1, "SERVIDA");
+    receta(3, 1, "PLANIFICADA");
+    receta(4, 2, "PLANIFICADA");
+
+    migrar("latest");
+
+    assertThat(jdbc.queryForList("select recetaId from RecetaDispensable where numeroTarjetaSanitaria = 'TS1' "
+        + "and nombreComercial = 'Kern' and apellidosMedico = 'Pérez' order by recetaId", Long.class))
+        .containsExactly(1L, 3L);
+    assertThat(jdbc.queryForList("select version from Receta", Long.class)).containsOnly(0L);
+  }
+
+  @Test void el_contador_de_recetas_sigue_tras_las_numeradas_por_identity() {
+    prescripcion(1, true);
+    receta(1, 1, "SERVIDA");
+    receta(41, 1, "PLANIFICADA");
+
+    migrar("latest");
+
+    assertThat(jdbc.queryForObject("select GEN_VAL from RECETA_GEN where GEN_NAME = 'Receta'", Long.class))
+        .isEqualTo(42L);
+  }
+
+  @Test void sin_recetas_el_contador_empieza_en_cero() {
+    migrar("latest");
+
+    assertThat(jdbc.queryForObject("select GEN_VAL from RECETA_GEN where GEN_NAME = 'Receta'", Long.class))
+        .isZero();
+  }
+
+  private void migrar(String version) {
+    Flyway.configure().dataSource(url, "sa", "").target(version).load().migrate();
+  }
+
+  private void cita(long id, String hora, String estado) {
+    jdbc.update("insert into Cita (id, medico_id, paciente_id, fecha, horaInicio, duracion, estado) "
+        + "values (?, 1, 2, date '2030-01-07', cast(? as time), 15, ?)", id, hora, estado);
+  }
+
+  private void prescripcion(long id, boolean activa) {
+    jdbc.update("insert into Prescripcion (id, medico_id, paciente_id, medicamento_id, dosisDiaria, fechaInicio, "
+        + "fechaFin, activa) values (?, 1, 2, 1, 1.0, date '2030-01-01', date '2030-03-01', ?)", id, activa);
+  }
+
+  private void receta(long id, long prescripcion, String estado) {
+    jdbc.update("insert into Receta (id, prescripcion_id, fechaValidezInicial, fechaValidezFinal, numeroUnidades, "
+        + "estado) values (?, ?, date '2030-01-01', date '2030-01-15', 1, ?)", id, prescripcion, estado);
+  }
+}
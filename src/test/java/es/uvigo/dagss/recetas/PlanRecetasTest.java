@@ -0,0 +1,200 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.DatosPrueba.Escenario;
+import es.uvigo.dagss.recetas.entidades.Prescripcion;
+import es.uvigo.dagss.recetas.repositorios.MedicamentoDAO;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.repositorios.PacienteDAO;
+import es.uvigo.dagss.recetas.repositorios.PrescripcionDAO;
+import es.uvigo.dagss.recetas.repositorios.RecetaDAO;
+import es.uvigo.dagss.recetas.servicios.DispensacionService;
+import es.uvigo.dagss.recetas.servicios.MedicoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import es.uvigo.dagss.recetas.servicios.RecetaService;
+import es.uvigo.dagss.recetas.servicios.referencias.CacheReferencias;
+import es.uvigo.dagss.recetas.servicios.tareas.BloqueoTareas;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PlanRecetasTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired MedicoService medicoService;
+  @Autowired PacienteService pacienteService;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired RecetaService recetaService;
+  @Autowired PrescripcionDAO prescripcionDAO;
+  @Autowired MedicamentoDAO medicamentoDAO;
+  @Autowired PacienteDAO pacienteDAO;
+  @Autowired MedicoDAO medicoDAO;
+  @Autowired RecetaDAO recetaDAO;
+  @Autowired DispensacionService dispensacionService;
+  @Autowired CacheReferencias cacheReferencias;
+  @Autowired BloqueoTareas bloqueoTareas;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired EntityManagerFactory emf;
+
+  @Test void el_plan_de_recetas_se_inserta_por_lotes() {
+    Datos d = datos(1);
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    Prescripcion p = prescripcionService.crearPrescripcion(d.medico, d.paciente, d.medicamento, 2.0, "1-0-1",
+        LocalDate.now().plusYears(1));
+    long sentencias = stats.getPrepareStatementCount();
+    stats.setStatisticsEnabled(false);
+
+    Integer recetas = jdbc.queryForObject("select count(*) from Receta where prescripcion_id = ?", Integer.class, p.getId());
+    Integer distintas = jdbc.queryForObject("select count(distinct id) from Receta where prescripcion_id = ?", Integer.class, p.getId());
+    assertThat(recetas).isEqualTo(p.getRecetas().size()).isEqualTo(distintas).isGreaterThan(100);
+    // las recetas no van una por sentencia: cargas, prescripción y un INSERT por lote de 50
+    assertThat(sentencias).isLessThan(recetas / 4);
+  }
+
+  @Test void el_plan_por_ventana_genera_las_mismas_recetas_que_el_plan_entero() {
+    Datos d = datos(7);
+    LocalDate hoy = LocalDate.now();
+    LocalDate fin = hoy.plusYears(1);
+    Prescripcion ventana = prescripcionService.crearPrescripcion(d.medico, d.paciente, d.medicamento, 3.0, null, fin);
+    PrescripcionService sinVentana = new PrescripcionService(prescripcionDAO, medicamentoDAO, pacienteDAO, medicoDAO,
+        recetaDAO, dispensacionService, cacheReferencias, bloqueoTareas, transactionManager, 0);
+    Prescripcion entera = sinVentana.crearPrescripcion(d.medico, d.paciente, d.medicamento, 3.0, null, fin);
+
+    List<String> plan = fechas(entera.getId());
+    List<String> generadas = fechas(ventana.getId());
+    assertThat(plan).hasSize(157);
+    assertThat(generadas).hasSizeLessThan(30).isEqualTo(plan.subList(0, generadas.size()));
+    // el paciente ve todas sus recetas pendientes, también las que aún no se han generado
+    assertThat(pendientes(d, hoy, ventana)).isEqualTo(pendientes(d, hoy, entera)).hasSize(157);
+    // lo que puede servir una farmacia dentro de la ventana no cambia
+    for (LocalDate dia = hoy; dia.isBefore(hoy.plusWeeks(8)); dia = dia.plusDays(1)) {
+      assertThat(servibles(d, dia, ventana)).isEqualTo(servibles(d, dia, entera));
+    }
+
+    // la tarea diaria va ampliando la ventana hasta completar el plan
+    for (LocalDate dia = hoy; !dia.isAfter(fin); dia = dia.plusDays(1)) {
+      prescripcionService.ampliarPlanes(dia);
+    }
+    assertThat(fechas(ventana.getId())).isEqualTo(plan);
+    assertThat(prescripcionDAO.findById(ventana.getId()).orElseThrow().getFechaSiguienteReceta()).isNull();
+    prescripcionService.ampliarPlanes(fin.plusYears(5));
+    assertThat(prescripcionService.ampliarPlanes(fin.plusYears(5))).isZero();
+  }
+
+  @Test void anular_una_prescripcion_es_un_update_y_no_toca_las_servidas() {
+    Datos d = datos(1);
+    Prescripcion p = prescripcionService.crearPrescripcion(d.medico, d.paciente, d.medicamento, 2.0, null,
+        LocalDate.now().plusYears(1));
+    Long servida = jdbc.queryForObject("select min(id) from Receta where prescripcion_id = ?", Long.class, p.getId());
+    jdbc.update("update Receta set estado = 'SERVIDA' where id = ?", servida);
+
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    stats.clear();
+    prescripcionService.anularPrescripcion(p.getId(), d.medico);
+    long sentencias = stats.getPrepareStatementCount();
+    stats.setStatisticsEnabled(false);
+
+    // select de la prescripción, update de la prescripción y update de las recetas
+    assertThat(sentencias).isLessThanOrEqualTo(4);
+    assertThat(estados(p.getId())).containsOnlyKeys("ANULADA", "SERVIDA").containsEntry("SERVIDA", 1);
+    assertThat(prescripcionDAO.findById(p.getId()).orElseThrow().getActiva()).isFalse();
+  }
+
+  @Test void la_baja_del_medico_o_del_paciente_anula_sus_prescripciones() {
+    Datos d = datos(7);
+    Datos otro = datos(7);
+    LocalDate fin = LocalDate.now().plusMonths(6);
+    Prescripcion a = prescripcionService.crearPrescripcion(d.medico, d.paciente, d.medicamento, 1.0, null, fin);
+    Prescripcion b = prescripcionService.crearPrescripcion(d.medico, d.paciente, d.medicamento, 2.0, null, fin);
+    Prescripcion ajena = prescripcionService.crearPrescripcion(otro.medico, otro.paciente, otro.medicamento, 1.0, null, fin);
+
+    medicoService.baja(d.medico);
+    assertThat(estados(a.getId())).containsOnlyKeys("ANULADA");
+    assertThat(estados(b.getId())).containsOnlyKeys("ANULADA");
+    assertThat(prescripcionDAO.findById(a.getId()).orElseThrow().getFechaSiguienteReceta()).isNull();
+    assertThat(estados(ajena.getId())).containsOnlyKeys("PLANIFICADA");
+
+    pacienteService.baja(otro.paciente);
+    assertThat(estados(ajena.getId())).containsOnlyKeys("ANULADA");
+    assertThat(prescripcionDAO.findById(ajena.getId()).orElseThrow().getActiva()).isFalse();
+  }
+
+  private Map<String, Integer> estados(Long prescripcionId) {
+    Map<String, Integer> res = new HashMap<>();
+    jdbc.query("select estado, count(*) from Receta where prescripcion_id = ? group by estado",
+        rs -> { res.put(rs.getString(1), rs.getInt(2)); }, prescripcionId);
+    return res;
+  }
+
+  private List<String> fechas(Long prescripcionId) {
+    return jdbc.queryForList("select concat(fechaValidezInicial, '/', fechaValidezFinal) from Receta "
+        + "where prescripcion_id = ? order by fechaValidezInicial, fechaValidezFinal", String.class, prescripcionId);
+  }
+
+  private List<String> pendientes(Datos d, LocalDate dia, Prescripcion p) {
+    return recetaService.recetasPendientesPaciente(d.paciente, dia).stream()
+        .filter(r -> r.getPrescripcion().getId().equals(p.getId()))
+        .map(r -> r.getFechaValidezInicial() + "/" + r.getFechaValidezFinal())
+        .toList();
+  }
+
+  private List<String> servibles(Datos d, LocalDate dia, Prescripcion p) {
+    return recetaService.recetasPendientesPaciente(d.paciente, dia).stream()
+        .filter(r -> r.getPrescripcion().getId().equals(p.getId()) && recetaService.esServible(r, dia))
+        .map(r -> r.getFechaValidezInicial() + "/" + r.getFechaValidezFinal())
+        .toList();
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_creacion_de_prescripciones() {
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+    for (int anos : new int[] {1, 5}) {
+      for (double dosis : new double[] {1, 3, 8}) {
+        Datos d = datos(7);
+        for (int i = 0; i < 5; i++) crear(d, dosis, anos); // calentamiento
+        int n = 20;
+        stats.clear();
+        long t0 = System.nanoTime();
+        int recetas = 0;
+        for (int i = 0; i < n; i++) recetas = crear(d, dosis, anos);
+        double ms = (System.nanoTime() - t0) / 1e6 / n;
+        System.out.printf("prescripción de %d año(s), dosis %.0f/día: %d recetas, %d sentencias, %.2f ms%n",
+            anos, dosis, recetas, stats.getPrepareStatementCount() / n, ms);
+      }
+    }
+    stats.setStatisticsEnabled(false);
+  }
+
+  private int crear(Datos d, double dosis, int anos) {
+    return prescripcionService.crearPrescripcion(d.medico, d.paciente, d.medicamento, dosis, null,
+        LocalDate.now().plusYears(anos)).getRecetas().size();
+  }
+
+  private Datos datos(int dosisEnvase) {
+    Escenario e = datos.escenario(dosisEnvase);
+    return new Datos(e.medico().getId(), e.paciente().getId(), e.medicamento().getId());
+  }
+
+  private record Datos(Long medico, Long paciente, Long medicamento) {
+  }
+}
@@ -0,0 +1,185 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import es.uvigo.dagss.recetas.DatosPrueba.Escenario;
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Cita;
+import es.uvigo.dagss.recetas.entidades.EstadoReceta;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Prescripcion;
+import es.uvigo.dagss.recetas.entidades.Receta;
+import es.uvigo.dagss.recetas.servicios.CitaService;
+import es.uvigo.dagss.recetas.servicios.PrescripcionService;
+import es.uvigo.dagss.recetas.servicios.RecetaService;
+import es.uvigo.dagss.recetas.servicios.dto.ResultadoDispensacion;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Sentencias SQL y entidades cargadas de cada operación de CitaService, RecetaService y
+ * PrescripcionService, con las asociaciones a uno perezosas: cada una carga lo que usa su pantalla
+ * (agenda, dispensación, vista de prescripciones) y nada más.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PlanesCargaTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired CitaService citaService;
+  @Autowired RecetaService recetaService;
+  @Autowired PrescripcionService prescripcionService;
+  @Autowired EntityManagerFactory emf;
+
+  Statistics stats;
+  Carga carga;
+
+  @BeforeEach void activarEstadisticas() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+    stats.setStatisticsEnabled(true);
+  }
+
+  @AfterEach void desactivarEstadisticas() {
+    stats.setStatisticsEnabled(false);
+  }
+
+  @Test void citas() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    List<Long> pacientes = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      pacientes.add(datos.paciente(centro.getId(), medico.getId()).getId());
+    }
+    LocalDate dia = LocalDate.now().plusDays(3);
+
+    // el paciente, sin su centro ni su médico: del médico basta el id
+    List<Long> citas = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Long paciente = pacientes.get(i);
+      LocalTime hora = LocalTime.of(9, 0).plusMinutes(15L * i);
+      citas.add(medir(() -> citaService.crearCitaPaciente(paciente, dia, hora)).getId());
+      assertThat(carga).isEqualTo(new Carga(3, 1));
+    }
+
+    // listado del administrador: citas, pacientes y el médico
+    List<Cita> listado = medir(() -> citaService.listarPorDia(dia, medico.getId(), null));
+    assertThat(carga).isEqualTo(new Carga(1, 7));
+    assertThat(listado).hasSize(3).allSatisfy(c -> {
+      assertThat(Hibernate.isInitialized(c.getPaciente())).isTrue();
+      assertThat(Hibernate.isInitialized(c.getMedico())).isTrue();
+      assertThat(Hibernate.isInitialized(c.getPaciente().getCentroSalud())).isFalse();
+    });
+
+    // agenda: citas y sus pacientes
+    List<Cita> agenda = medir(() -> citaService.agendaMedico(medico.getId(), dia));
+    assertThat(carga).isEqualTo(new Carga(1, 6));
+    assertThat(agenda).extracting(c -> c.getPaciente().getId()).containsExactlyElementsOf(pacientes);
+    assertThat(agenda).allSatisfy(c -> assertThat(Hibernate.isInitialized(c.getMedico())).isFalse());
+
+    // citas del paciente: con su médico
+    List<Cita> futuras = medir(() -> citaService.citasFuturasPlanificadas(pacientes.get(0), LocalDate.now(), LocalTime.MIN));
+    assertThat(carga).isEqualTo(new Carga(1, 2));
+    assertThat(futuras).singleElement().satisfies(c -> assertThat(c.getMedico().getApellidos()).isEqualTo("Pérez"));
+
+    medir(() -> citaService.huecosDisponibles(medico.getId(), dia));
+    assertThat(carga).isEqualTo(new Carga(1, 0));
+    medir(() -> citaService.primerosHuecosLibres(medico.getId(), dia, dia.plusDays(6), 5));
+    assertThat(carga).isEqualTo(new Carga(1, 0));
+
+    // cambios de estado: solo la cita, y su UPDATE
+    ejecutar(() -> citaService.marcarAusente(citas.get(0), medico.getId()));
+    assertThat(carga).isEqualTo(new Carga(2, 1));
+    ejecutar(() -> citaService.marcarCompletada(citas.get(1), medico.getId()));
+    assertThat(carga).isEqualTo(new Carga(2, 1));
+    ejecutar(() -> citaService.anularComoPaciente(citas.get(2), pacientes.get(2)));
+    assertThat(carga).isEqualTo(new Carga(2, 1));
+    Long otra = citaService.crearCitaPaciente(pacientes.get(0), dia, LocalTime.of(10, 0)).getId();
+    ejecutar(() -> citaService.anularComoAdmin(otra));
+    assertThat(carga).isEqualTo(new Carga(2, 1));
+  }
+
+  @Test void recetas_y_prescripciones() {
+    LocalDate hoy = LocalDate.now();
+    Escenario e = datos.escenario();
+    Medico medico = e.medico();
+    Long paciente = e.paciente().getId();
+    String tarjeta = e.paciente().getNumeroTarjetaSanitaria();
+    Long medicamento = e.medicamento().getId();
+    String nombreMedicamento = e.medicamento().getNombreComercial();
+    Long farmacia = e.farmacia().getId();
+
+    // 4 semanas, 1 dosis al día y cajas de 7: 5 recetas
+    Prescripcion creada = medir(() -> prescripcionService.crearPrescripcion(medico.getId(), paciente, medicamento,
+        1.0, null, hoy.plusWeeks(4)));
+    assertThat(creada.getRecetas()).hasSize(5);
+    assertThat(carga.entidades()).isEqualTo(1);
+    assertThat(carga.sentencias()).isLessThanOrEqualTo(8);
+
+    // vista de prescripciones: con medicamento y médico
+    List<Prescripcion> enVigor = medir(() -> prescripcionService.prescripcionesEnVigor(paciente, hoy));
+    assertThat(carga).isEqualTo(new Carga(1, 3));
+    assertThat(enVigor).singleElement().satisfies(p -> {
+      assertThat(p.getMedicamento().getNombreComercial()).isEqualTo(nombreMedicamento);
+      assertThat(Hibernate.isInitialized(p.getPaciente())).isFalse();
+      assertThat(Hibernate.isInitialized(p.getMedico().getCentroSalud())).isFalse();
+    });
+
+    // recetas pendientes y en vigor: con su prescripción, medicamento y médico; la segunda sentencia
+    // busca planes por ventana sin terminar (aquí el plan ya está entero)
+    List<Receta> pendientes = medir(() -> recetaService.recetasPendientesPaciente(paciente, hoy));
+    assertThat(carga).isEqualTo(new Carga(2, 8));
+    assertThat(pendientes).hasSize(5)
+        .allSatisfy(r -> assertThat(r.getPrescripcion().getMedico().getApellidos()).isEqualTo("Pérez"));
+    medir(() -> recetaService.recetasEnVigorPorTarjetaSanitaria(tarjeta, hoy));
+    assertThat(carga).isEqualTo(new Carga(1, 8));
+    assertThat(medir(() -> recetaService.recetasDispensables(tarjeta, hoy))).hasSize(5);
+    assertThat(carga).isEqualTo(new Carga(1, 5));
+
+    // dispensación: solo las recetas, sin prescripción; la farmacia sale de la caché de segundo nivel
+    Receta servida = medir(() -> recetaService.servirReceta(pendientes.get(0).getId(), farmacia, hoy));
+    assertThat(servida.getEstado()).isEqualTo(EstadoReceta.SERVIDA);
+    assertThat(carga).isEqualTo(new Carga(3, 1));
+    List<Long> lote = List.of(pendientes.get(1).getId(), pendientes.get(2).getId());
+    List<ResultadoDispensacion> resultados = medir(() -> recetaService.servirRecetas(lote, farmacia, hoy));
+    assertThat(resultados).extracting(ResultadoDispensacion::servida).containsExactly(true, false);
+    assertThat(carga).isEqualTo(new Carga(3, 2));
+
+    ejecutar(() -> prescripcionService.anularPrescripcion(creada.getId(), medico.getId()));
+    assertThat(carga).isEqualTo(new Carga(4, 1));
+    ejecutar(() -> prescripcionService.anularPrescripcionesDePaciente(paciente));
+    assertThat(carga).isEqualTo(new Carga(3, 0));
+    ejecutar(() -> prescripcionService.anularPrescripcionesDeMedico(medico.getId()));
+    assertThat(carga).isEqualTo(new Carga(3, 0));
+  }
+
+  private <T> T medir(Supplier<T> operacion) {
+    stats.clear();
+    T resultado = operacion.get();
+    carga = new Carga(stats.getPrepareStatementCount(), stats.getEntityLoadCount());
+    return resultado;
+  }
+
+  private void ejecutar(Runnable operacion) {
+    medir(() -> {
+      operacion.run();
+      return null;
+    });
+  }
+
+  /** Sentencias preparadas y entidades cargadas de filas de la BD */
+  record Carga(long sentencias, long entidades) {
+  }
+}
@@ -0,0 +1,141 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.entidades.Paciente;
+import es.uvigo.dagss.recetas.repositorios.MedicoDAO;
+import es.uvigo.dagss.recetas.servicios.AdministradorService;
+import es.uvigo.dagss.recetas.servicios.CentroSaludService;
+import es.uvigo.dagss.recetas.servicios.FarmaciaService;
+import es.uvigo.dagss.recetas.servicios.MedicamentoService;
+import es.uvigo.dagss.recetas.servicios.MedicoService;
+import es.uvigo.dagss.recetas.servicios.PacienteService;
+import es.uvigo.dagss.recetas.servicios.metricas.ContadorSentencias;
+import es.uvigo.dagss.recetas.servicios.metricas.ControlPresupuestos;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultas;
+import es.uvigo.dagss.recetas.servicios.metricas.PresupuestoConsultasExcedidoException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PresupuestoConsultasTest {
+
+  @Autowired DatosPrueba datos;
+  @Autowired PacienteService pacienteService;
+  @Autowired MedicoService medicoService;
+  @Autowired CentroSaludService centroSaludService;
+  @Autowired FarmaciaService farmaciaService;
+  @Autowired MedicamentoService medicamentoService;
+  @Autowired AdministradorService administradorService;
+  @Autowired MedicoDAO medicoDAO;
+  @Autowired ContadorSentencias contador;
+  @Autowired ControlPresupuestos control;
+
+  @Test void los_listados_de_administracion_no_crecen_con_las_filas() {
+    String k = DatosPrueba.clave();
+    CentroSalud centro = null;
+    for (int i = 0; i < 4; i++) {
+      centro = datos.centro("CS " + k + i);
+      Medico medico = datos.medico(centro.getId());
+      datos.paciente(centro.getId(), medico.getId());
+    }
+
+    // con el perfil de test cada uno fallaría si pasase de su presupuesto
+    List<Paciente> pacientes = pacienteService.listarActivos();
+    assertThat(pacientes).extracting(p -> p.getMedicoAsignado().getCentroSalud().getNombre()).contains("CS " + k + "3");
+    assertThat(pacienteService.paginarActivos(null, 2).elementos()).hasSize(2);
+    assertThat(pacienteService.buscarActivos(k, null, null, null)).isEmpty();
+    assertThat(medicoService.listarActivos()).extracting(m -> m.getCentroSalud().getNombre()).contains("CS " + k + "3");
+    assertThat(medicoService.paginarActivos(null, 2).elementos()).hasSize(2);
+    assertThat(medicoService.buscarActivos("Pérez", null, null)).isNotEmpty();
+    assertThat(medicoService.medicosActivosDeCentro(centro.getId())).isNotEmpty();
+    assertThat(centroSaludService.listarActivos()).isNotEmpty();
+    assertThat(centroSaludService.buscarActivos(k)).hasSize(4);
+    assertThat(centroSaludService.buscarResumenesActivos(k)).hasSize(4);
+    assertThat(centroSaludService.centrosActivosDeProvincia("Pontevedra")).isNotEmpty();
+    farmaciaService.listarActivas();
+    farmaciaService.buscarActivas(k);
+    medicamentoService.listarActivos();
+    administradorService.listarActivos();
+    administradorService.paginarActivos(null, 2);
+  }
+
+  @Test void pasarse_falla_con_las_consultas_repetidas_y_cuenta_las_anidadas() {
+    CentroSalud centro = datos.centro();
+    List<Long> medicos = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      medicos.add(datos.medico(centro.getId()).getId());
+    }
+    Lecturas lecturas = conPresupuesto(new Lecturas(medicoDAO));
+
+    assertThat(lecturas.unMedico(medicos.get(0))).isEqualTo("Pérez");
+    assertThatThrownBy(() -> lecturas.variosMedicos(medicos))
+        .isInstanceOf(PresupuestoConsultasExcedidoException.class)
+        .hasMessageStartingWith("Lecturas.variosMedicos: 3 sentencias, presupuesto 2, 3x select ");
+
+    // la medición de fuera (la de la petición) también ve las del método
+    ContadorSentencias.Medicion fuera = contador.abrir();
+    try {
+      lecturas.unMedico(medicos.get(1));
+      lecturas.unMedico(medicos.get(2));
+    } finally {
+      contador.cerrar(fuera);
+    }
+    assertThat(fuera.sentencias()).isEqualTo(2);
+    assertThat(fuera.formas(5)).hasSize(1).allSatisfy(f -> assertThat(f).startsWith("2x select "));
+  }
+
+  @Test void las_formas_agrupan_literales_y_listas_in() {
+    ContadorSentencias.Medicion m = contador.abrir();
+    try {
+      contador.inspect("select m from Medico m where m.id in (?, ?, ?) and m.login = 'ana'");
+      contador.inspect("select m from Medico m where m.id in (?,?) and m.login = 'luis'");
+      contador.inspect("select c\n  from Cita c where c.id = 42");
+    } finally {
+      contador.cerrar(m);
+    }
+    assertThat(m.formas(5)).containsExactly(
+        "2x select m from Medico m where m.id in (?...) and m.login = ?",
+        "1x select c from Cita c where c.id = ?");
+  }
+
+  private <T> T conPresupuesto(T objetivo) {
+    AspectJProxyFactory fabrica = new AspectJProxyFactory(objetivo);
+    fabrica.setProxyTargetClass(true);
+    fabrica.addAspect(control);
+    return fabrica.getProxy();
+  }
+
+  static class Lecturas {
+
+    private final MedicoDAO medicoDAO;
+
+    Lecturas(MedicoDAO medicoDAO) {
+      this.medicoDAO = medicoDAO;
+    }
+
+    @PresupuestoConsultas(1)
+    public String unMedico(Long id) {
+      return medicoDAO.findById(id).orElseThrow().getApellidos();
+    }
+
+    /** Un N+1 de libro */
+    @PresupuestoConsultas(2)
+    public int variosMedicos(List<Long> ids) {
+      int n = 0;
+      for (Long id : ids) {
+        if (medicoDAO.findById(id).isPresent()) n++;
+      }
+      return n;
+    }
+  }
+}
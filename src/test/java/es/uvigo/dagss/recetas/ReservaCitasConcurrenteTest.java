@@ -0,0 +1,196 @@
+package es.uvigo.dagss.recetas;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import es.uvigo.dagss.recetas.entidades.CentroSalud;
+import es.uvigo.dagss.recetas.entidades.Medico;
+import es.uvigo.dagss.recetas.servicios.CitaService;
+import es.uvigo.dagss.recetas.servicios.excepciones.ConflictoException;
+import es.uvigo.dagss.recetas.servicios.excepciones.OperacionNoPermitidaException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservaCitasConcurrenteTest {
+
+  static final int HUECOS = 28; // 8:30 a 15:30 cada 15 min
+
+  @Autowired DatosPrueba datos;
+  @Autowired CitaService citaService;
+  @Autowired JdbcTemplate jdbc;
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Test void sin_dobles_reservas_con_reservas_concurrentes_del_mismo_dia() throws Exception {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    int reservas = 400;
+    List<Long> pacientes = pacientes(centro, medico, reservas);
+    LocalDate fecha = LocalDate.now().plusDays(7);
+
+    Reservas r = reservasConcurrentes(medico, pacientes, fecha, 8);
+    Integer planificadas = jdbc.queryForObject(
+        "select count(*) from Cita where medico_id = ? and fecha = ? and estado = 'PLANIFICADA'",
+        Integer.class, medico.getId(), fecha);
+
+    assertThat(dobles(medico, fecha)).isZero();
+    assertThat(r.reservadas()).isEqualTo(HUECOS).isEqualTo(planificadas);
+    assertThat(r.reservadas() + r.conflictos() + r.ocupadas()).isEqualTo(reservas);
+    assertThat(citaService.huecosDisponibles(medico.getId(), fecha)).isEmpty();
+
+    // anular libera el hueco para otra reserva
+    Long citaId = jdbc.queryForObject(
+        "select id from Cita where medico_id = ? and fecha = ? and horaInicio = ? and estado = 'PLANIFICADA'",
+        Long.class, medico.getId(), fecha, LocalTime.of(8, 30));
+    citaService.anularComoAdmin(citaId);
+    assertThat(citaService.crearCitaPaciente(pacientes.get(reservas - 1), fecha, LocalTime.of(8, 30)).getId()).isNotNull();
+  }
+
+  @Tag("benchmark")
+  @Test void rendimiento_reservas_concurrentes() throws Exception {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    int reservas = 2000;
+    List<Long> pacientes = pacientes(centro, medico, reservas);
+    reservasConcurrentes(medico, pacientes, LocalDate.now().plusDays(1), 8); // calentamiento
+
+    // cada ronda, un día sin citas: todos los intentos compiten por los mismos HUECOS huecos
+    int dia = 2;
+    for (int hilos : List.of(1, 2, 4, 8)) {
+      LocalDate fecha = LocalDate.now().plusDays(dia++);
+      long t0 = System.nanoTime();
+      Reservas r = reservasConcurrentes(medico, pacientes, fecha, hilos);
+      double seg = (System.nanoTime() - t0) / 1e9;
+      assertThat(dobles(medico, fecha)).isZero();
+      assertThat(r.reservadas()).isEqualTo(HUECOS);
+      System.out.printf("reservas concurrentes: hilos=%d %d intentos, %d reservadas, %d conflictos en BD, "
+          + "%d rechazadas antes, %.0f intentos/s%n",
+          hilos, reservas, r.reservadas(), r.conflictos(), r.ocupadas(), reservas / seg);
+    }
+  }
+
+  @Test void la_restriccion_de_la_bd_resuelve_la_carrera_que_no_ve_la_comprobacion_previa() throws Exception {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    Long primero = datos.paciente(centro.getId(), medico.getId()).getId();
+    Long segundo = datos.paciente(centro.getId(), medico.getId()).getId();
+    LocalDate fecha = LocalDate.now().plusDays(3);
+    LocalTime hora = LocalTime.of(10, 0);
+
+    // la primera reserva inserta y tarda en confirmar: la segunda no la ve en la comprobación previa
+    // y su INSERT espera al de la primera en el índice único
+    CountDownLatch insertada = new CountDownLatch(1);
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> primera = pool.submit(() -> new TransactionTemplate(transactionManager).execute(tx -> {
+        citaService.crearCitaPaciente(primero, fecha, hora);
+        insertada.countDown();
+        try {
+          Thread.sleep(300);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      }));
+      insertada.await();
+
+      Throwable error = null;
+      try {
+        citaService.crearCitaPaciente(segundo, fecha, hora);
+      } catch (Throwable e) {
+        error = e;
+      }
+      primera.get();
+      assertThat(error).isInstanceOf(ConflictoException.class);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test void otras_violaciones_de_integridad_no_se_toman_por_hueco_ocupado() {
+    CentroSalud centro = datos.centro();
+    Medico medico = datos.medico(centro.getId());
+    Long paciente = datos.paciente(centro.getId(), medico.getId()).getId();
+
+    // una restricción que solo afecta a las citas de este médico
+    jdbc.execute("alter table Cita add constraint CK_CITA_PRUEBA check (medico_id <> " + medico.getId() + ")");
+    try {
+      assertThatThrownBy(() -> citaService.crearCitaPaciente(paciente, LocalDate.now().plusDays(3), LocalTime.of(9, 0)))
+          .isInstanceOf(DataIntegrityViolationException.class)
+          .isNotInstanceOf(ConflictoException.class);
+    } finally {
+      jdbc.execute("alter table Cita drop constraint CK_CITA_PRUEBA");
+    }
+  }
+
+  private List<Long> pacientes(CentroSalud centro, Medico medico, int n) {
+    List<Long> pacientes = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      pacientes.add(datos.paciente(centro.getId(), medico.getId()).getId());
+    }
+    return pacientes;
+  }
+
+  /** Una reserva por paciente, repartidas por los huecos del día y lanzadas a la vez */
+  private Reservas reservasConcurrentes(Medico medico, List<Long> pacientes, LocalDate fecha, int hilos)
+      throws Exception {
+    AtomicInteger reservadas = new AtomicInteger();
+    AtomicInteger conflictos = new AtomicInteger();
+    AtomicInteger ocupadas = new AtomicInteger();
+    CountDownLatch salida = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    try {
+      List<Future<?>> tareas = new ArrayList<>();
+      for (int i = 0; i < pacientes.size(); i++) {
+        Long pacienteId = pacientes.get(i);
+        LocalTime hora = LocalTime.of(8, 30).plusMinutes(15L * (i % HUECOS));
+        tareas.add(pool.submit(() -> {
+          salida.await();
+          try {
+            citaService.crearCitaPaciente(pacienteId, fecha, hora);
+            reservadas.incrementAndGet();
+          } catch (ConflictoException e) {
+            conflictos.incrementAndGet();
+          } catch (OperacionNoPermitidaException e) {
+            ocupadas.incrementAndGet(); // la comprobación previa ya vio el hueco ocupado
+          }
+          return null;
+        }));
+      }
+      salida.countDown();
+      for (Future<?> f : tareas) f.get();
+    } finally {
+      pool.shutdown();
+    }
+    return new Reservas(reservadas.get(), conflictos.get(), ocupadas.get());
+  }
+
+  private Integer dobles(Medico medico, LocalDate fecha) {
+    return jdbc.queryForObject("""
+        select count(*) from (
+          select horaInicio from Cita
+          where medico_id = ? and fecha = ? and estado = 'PLANIFICADA'
+          group by horaInicio having count(*) > 1) d
+        """, Integer.class, medico.getId(), fecha);
+  }
+
+  record Reservas(int reservadas, int conflictos, int ocupadas) {
+  }
+}